@@ -0,0 +1,80 @@
+package com.medtrack.analytics;
+
+/**
+ * Distribution of adherence percentages in 101 one-percent buckets. Adherence
+ * lives on a fixed 0-100 scale, so fixed buckets merge exactly by adding
+ * counts and answer any quantile to within one percent.
+ */
+public final class AdherenceHistogram {
+
+    public static final int BUCKETS = 101;
+
+    private final int[] counts;
+
+    public AdherenceHistogram() {
+        this.counts = new int[BUCKETS];
+    }
+
+    private AdherenceHistogram(int[] counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * A histogram over a copy of the given counts, as returned by
+     * {@link #toCounts()}
+     */
+    public static AdherenceHistogram of(int[] counts) {
+        if (counts == null || counts.length != BUCKETS) {
+            throw new IllegalArgumentException("Expected " + BUCKETS + " buckets");
+        }
+        return new AdherenceHistogram(counts.clone());
+    }
+
+    /**
+     * Adds one observation; nothing is added without doses
+     */
+    public void add(long taken, long missed) {
+        long total = taken + missed;
+        if (total > 0) {
+            counts[(int) Math.round(taken * 100.0 / total)]++;
+        }
+    }
+
+    public AdherenceHistogram merge(AdherenceHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        return this;
+    }
+
+    public long count() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * The adherence percentage at quantile {@code q} (0..1), or -1 when empty
+     */
+    public int quantile(double q) {
+        long total = count();
+        if (total == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int percent = 0; percent < BUCKETS; percent++) {
+            seen += counts[percent];
+            if (seen >= rank) {
+                return percent;
+            }
+        }
+        return BUCKETS - 1;
+    }
+
+    public int[] toCounts() {
+        return counts.clone();
+    }
+}
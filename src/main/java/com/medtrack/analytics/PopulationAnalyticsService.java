@@ -0,0 +1,95 @@
+package com.medtrack.analytics;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.dto.ActiveUsersDto;
+import com.medtrack.dto.ExpiryDistributionDto;
+import com.medtrack.dto.PopulationAdherenceDto;
+import com.medtrack.exceptions.AuthException;
+import com.medtrack.model.PopulationSketch;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.HealthProductRepo.MonthCount;
+import com.medtrack.repository.PopulationSketchRepo;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Population views for the clinical team, answered by merging the daily
+ * {@link PopulationSketch} rows of the requested range instead of scanning
+ * logs. Ranges end yesterday, the last finished day.
+ */
+@Service
+@RequiredArgsConstructor
+public class PopulationAnalyticsService {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final PopulationSketchRepo populationSketchRepo;
+    private final HealthProductRepo healthProductRepo;
+
+    @Value("${medtrack.adherence.max-days:366}")
+    private int maxDays;
+
+    /**
+     * Percentiles of daily adherence over every user-day with doses in the
+     * last {@code days} finished days
+     */
+    public PopulationAdherenceDto adherence(int days) {
+        LocalDate to = lastDay();
+        LocalDate from = firstDay(to, days);
+
+        AdherenceHistogram histogram = new AdherenceHistogram();
+        for (PopulationSketch sketch : populationSketchRepo.findByDayBetweenOrderByDay(from, to)) {
+            histogram.merge(AdherenceHistogram.of(sketch.getAdherenceHistogram()));
+        }
+        return new PopulationAdherenceDto(from, to, histogram.count(), histogram.quantile(0.1),
+                histogram.quantile(0.5), histogram.quantile(0.9));
+    }
+
+    /**
+     * Active users of each of the last {@code days} finished days and the
+     * estimated number of distinct users over all of them
+     */
+    public ActiveUsersDto activeUsers(int days) {
+        LocalDate to = lastDay();
+        LocalDate from = firstDay(to, days);
+
+        int[] daily = new int[days];
+        Arrays.fill(daily, -1);
+        HyperLogLog users = new HyperLogLog();
+        for (PopulationSketch sketch : populationSketchRepo.findByDayBetweenOrderByDay(from, to)) {
+            daily[(int) (sketch.getDay().toEpochDay() - from.toEpochDay())] = sketch.getActiveUsers();
+            users.merge(HyperLogLog.of(sketch.getUsersSketch()));
+        }
+        return new ActiveUsersDto(from, to, daily, users.estimate());
+    }
+
+    /**
+     * Products of all users that have not expired by expiry month, and those
+     * already expired
+     */
+    public ExpiryDistributionDto expiryDistribution() {
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        List<MonthCount> months = healthProductRepo.countByExpiryMonthFrom(today);
+        return new ExpiryDistributionDto(healthProductRepo.countExpiredBefore(today),
+                months.stream().map(MonthCount::getMonth).toList(),
+                months.stream().mapToLong(MonthCount::getCount).toArray());
+    }
+
+    private LocalDate lastDay() {
+        return LocalDate.now(KOLKATA_ZONE).minusDays(1);
+    }
+
+    private LocalDate firstDay(LocalDate to, int days) {
+        if (days < 1 || days > maxDays) {
+            throw new AuthException("Days must be between 1 and %d".formatted(maxDays));
+        }
+        return to.minusDays(days - 1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.medtrack.analytics;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.medtrack.model.PopulationSketch;
+import com.medtrack.repository.PopulationSketchRepo;
+import com.medtrack.scheduling.ScheduleBucketOwnership;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes a {@link PopulationSketch} for every finished day.
+ *
+ * Logs are only written with the current time, so a day's sketch is final
+ * once the day is over. Every night, and once at startup, the days of the
+ * last {@code backfill-days} that have no sketch are built from
+ * {@code usage_daily_rollup} in a single streamed scan grouped by day and
+ * user. Only the node holding bucket 0 builds, so instances do not repeat
+ * the scan.
+ */
+@Component
+@Order(3)
+@Slf4j
+@RequiredArgsConstructor
+public class PopulationSketchManager implements ApplicationRunner {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopulationSketchRepo populationSketchRepo;
+    private final ScheduleBucketOwnership scheduleBucketOwnership;
+
+    @Value("${medtrack.analytics.backfill-days:400}")
+    private int backfillDays;
+
+    private static final class DayBuilder {
+        private final HyperLogLog users = new HyperLogLog();
+        private final AdherenceHistogram adherence = new AdherenceHistogram();
+        private int activeUsers;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        buildMissing();
+    }
+
+    @Scheduled(cron = "${medtrack.analytics.cron:0 30 0 * * *}", zone = "Asia/Kolkata")
+    public void buildMissing() {
+        if (!scheduleBucketOwnership.ownsBucket(0)) {
+            return;
+        }
+
+        LocalDate yesterday = LocalDate.now(KOLKATA_ZONE).minusDays(1);
+        LocalDate first = yesterday.minusDays(backfillDays - 1);
+        Set<LocalDate> present = new HashSet<>(populationSketchRepo.findDaysBetween(first, yesterday));
+
+        LocalDate firstMissing = first;
+        while (!firstMissing.isAfter(yesterday) && present.contains(firstMissing)) {
+            firstMissing = firstMissing.plusDays(1);
+        }
+        if (firstMissing.isAfter(yesterday)) {
+            return;
+        }
+
+        Map<LocalDate, DayBuilder> days = new LinkedHashMap<>();
+        for (LocalDate day = firstMissing; !day.isAfter(yesterday); day = day.plusDays(1)) {
+            if (!present.contains(day)) {
+                days.put(day, new DayBuilder());
+            }
+        }
+
+        long started = System.currentTimeMillis();
+        jdbcTemplate.query("""
+                SELECT day, user_id, sum(taken) AS taken, sum(missed) AS missed
+                FROM usage_daily_rollup
+                WHERE day >= ? AND day <= ?
+                GROUP BY day, user_id""", rs -> {
+            DayBuilder builder = days.get(rs.getDate("day").toLocalDate());
+            if (builder != null) {
+                builder.users.add(rs.getLong("user_id"));
+                builder.adherence.add(rs.getLong("taken"), rs.getLong("missed"));
+                builder.activeUsers++;
+            }
+        }, Date.valueOf(firstMissing), Date.valueOf(yesterday));
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        populationSketchRepo.saveAll(days.entrySet().stream()
+                .map(day -> PopulationSketch.builder()
+                        .day(day.getKey())
+                        .activeUsers(day.getValue().activeUsers)
+                        .usersSketch(day.getValue().users.toBytes())
+                        .adherenceHistogram(day.getValue().adherence.toCounts())
+                        .computedAt(now)
+                        .build())
+                .toList());
+        log.info("Built population sketches for {} days from {} in {} ms", days.size(), firstMissing,
+                System.currentTimeMillis() - started);
+    }
+}
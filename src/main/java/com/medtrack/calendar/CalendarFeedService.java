@@ -0,0 +1,166 @@
+package com.medtrack.calendar;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import com.medtrack.events.HealthProductChangedEvent;
+import com.medtrack.exceptions.AuthException;
+import com.medtrack.model.User;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.UserRepo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves per-user iCalendar feeds from pre-rendered bytes.
+ *
+ * Every user has a schedule version that is bumped by
+ * {@link HealthProductChangedEvent}. A feed is rendered once per version and
+ * kept with its ETag, so the frequent polls of calendar clients are answered
+ * from memory without touching the database: token to user, user to version,
+ * version to bytes.
+ *
+ * Product changes made through another instance do not reach this instance's
+ * versions, so cached feeds and tokens are also re-read after a maximum age.
+ * The ETag is a digest of the bytes, so a re-render of an unchanged schedule
+ * still answers conditional requests with 304.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CalendarFeedService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final UserRepo userRepo;
+    private final HealthProductRepo healthProductRepo;
+    private final IcsFeedRenderer icsFeedRenderer;
+
+    @Value("${medtrack.calendar.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${medtrack.calendar.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    public record Feed(byte[] body, String etag, long version, long renderedAt) {
+    }
+
+    private record TokenOwner(long userId, long resolvedAt) {
+    }
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private Map<Long, Feed> feeds;
+    private Map<String, TokenOwner> tokens;
+
+    @PostConstruct
+    void init() {
+        feeds = lru(cacheSize);
+        tokens = lru(cacheSize);
+    }
+
+    /**
+     * Issues a new feed token for the user, invalidating the previous one
+     */
+    @Transactional
+    public String rotateToken(Long userId) {
+        User user = userRepo.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User Not Found"));
+
+        // the token reads the schedule without a JWT, so only the owner may mint it
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !user.getEmail().equalsIgnoreCase(authentication.getName())) {
+            throw new AuthException("Calendar tokens can only be issued for your own account");
+        }
+
+        byte[] raw = new byte[32];
+        RANDOM.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+
+        String previous = user.getCalendarToken();
+        user.setCalendarToken(token);
+        userRepo.save(user);
+
+        if (previous != null) {
+            synchronized (tokens) {
+                tokens.remove(previous);
+            }
+        }
+        return token;
+    }
+
+    /**
+     * The user's feed for the given token, rendered only if the user's
+     * schedule changed since the cached copy
+     */
+    public Feed feed(String token) {
+        long userId = resolve(token);
+        long version = versions.getOrDefault(userId, 0L);
+        long now = System.currentTimeMillis();
+
+        Feed cached;
+        synchronized (feeds) {
+            cached = feeds.get(userId);
+        }
+        if (cached != null && cached.version() == version && now - cached.renderedAt() < maxAgeSeconds * 1000) {
+            return cached;
+        }
+
+        byte[] body = icsFeedRenderer.render(healthProductRepo.findByUserId(userId));
+        Feed feed = new Feed(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"", version, now);
+        synchronized (feeds) {
+            feeds.put(userId, feed);
+        }
+        log.debug("Rendered calendar feed for user {} (version {}, {} bytes)", userId, version, body.length);
+        return feed;
+    }
+
+    public long maxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHealthProductChanged(HealthProductChangedEvent event) {
+        versions.merge(event.userId(), 1L, Long::sum);
+    }
+
+    private long resolve(String token) {
+        long now = System.currentTimeMillis();
+        TokenOwner owner;
+        synchronized (tokens) {
+            owner = tokens.get(token);
+        }
+        if (owner != null && now - owner.resolvedAt() < maxAgeSeconds * 1000) {
+            return owner.userId();
+        }
+
+        User user = userRepo.findOneByCalendarToken(token)
+                .orElseThrow(() -> new EntityNotFoundException("Calendar feed not found"));
+        synchronized (tokens) {
+            tokens.put(token, new TokenOwner(user.getId(), now));
+        }
+        return user.getId();
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
@@ -0,0 +1,221 @@
+package com.medtrack.calendar;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.springframework.stereotype.Component;
+
+import com.medtrack.model.HealthProduct;
+import com.medtrack.model.ScheduleRule;
+import com.medtrack.scheduling.CompiledSchedule;
+import com.medtrack.utils.ReminderMinutes;
+
+/**
+ * Renders a user's products as an iCalendar (RFC 5545) feed.
+ *
+ * Each reminder time becomes one recurring event (RRULE) instead of one event
+ * per dose, so the feed size depends on the number of products and times, not
+ * on how far ahead the calendar looks. Expiry dates are all-day events. The
+ * output depends only on the stored products, never on the current time, so an
+ * unchanged schedule always renders to the same bytes and the same ETag.
+ */
+@Component
+public class IcsFeedRenderer {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final String TZID = "Asia/Kolkata";
+    private static final String CRLF = "\r\n";
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final String[] BYDAY = { "MO", "TU", "WE", "TH", "FR", "SA", "SU" };
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    public byte[] render(List<HealthProduct> products) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024 + products.size() * 512);
+
+        line(out, "BEGIN:VCALENDAR");
+        line(out, "VERSION:2.0");
+        line(out, "PRODID:-//MedTrack//Dose Schedule//EN");
+        line(out, "CALSCALE:GREGORIAN");
+        line(out, "METHOD:PUBLISH");
+        line(out, "X-WR-CALNAME:MedTrack doses");
+        line(out, "X-WR-TIMEZONE:" + TZID);
+        // India has no daylight saving, so a single standard component is exact
+        line(out, "BEGIN:VTIMEZONE");
+        line(out, "TZID:" + TZID);
+        line(out, "BEGIN:STANDARD");
+        line(out, "DTSTART:19700101T000000");
+        line(out, "TZOFFSETFROM:+0530");
+        line(out, "TZOFFSETTO:+0530");
+        line(out, "TZNAME:IST");
+        line(out, "END:STANDARD");
+        line(out, "END:VTIMEZONE");
+
+        products.stream()
+                .sorted(Comparator.comparing(HealthProduct::getId))
+                .forEach(product -> {
+                    writeDoses(out, product);
+                    writeExpiry(out, product);
+                });
+
+        line(out, "END:VCALENDAR");
+        return out.toByteArray();
+    }
+
+    private void writeDoses(ByteArrayOutputStream out, HealthProduct product) {
+        short[] minutes = product.getReminderMinutes();
+        if (minutes == null || minutes.length == 0) {
+            return;
+        }
+
+        ScheduleRule rule = product.getScheduleRule();
+        CompiledSchedule schedule = CompiledSchedule.of(product);
+        LocalDate start = rule != null && rule.getStartDate() != null ? rule.getStartDate() : createdDate(product);
+
+        // reminders stop at the end of the course or at expiry, whichever is first
+        LocalDate until = product.getExpiryDate();
+        if (schedule.endDate() != null && (until == null || schedule.endDate().isBefore(until))) {
+            until = schedule.endDate();
+        }
+        String untilPart = until != null
+                ? ";UNTIL=" + UTC_DATE_TIME.format(until.atTime(LocalTime.MAX).atZone(KOLKATA_ZONE).toInstant())
+                : "";
+
+        String summary = "Take " + product.getName() + dose(product);
+        String description = describe(rule);
+
+        if (rule != null && rule.getIntervalHours() != null) {
+            short anchor = rule.getAnchorMinute() != null ? rule.getAnchorMinute() : minutes[0];
+            writeEvent(out, product, "dose-" + product.getId() + "-interval", start.atTime(ReminderMinutes.toTime(anchor)),
+                    "FREQ=HOURLY;INTERVAL=" + rule.getIntervalHours() + untilPart, summary, description);
+            return;
+        }
+
+        String byDay = byDay(rule);
+        for (short minute : minutes) {
+            writeEvent(out, product, "dose-" + product.getId() + "-" + minute, start.atTime(ReminderMinutes.toTime(minute)),
+                    "FREQ=DAILY" + byDay + untilPart, summary, description);
+        }
+    }
+
+    private void writeEvent(ByteArrayOutputStream out, HealthProduct product, String uid, LocalDateTime start,
+            String rrule, String summary, String description) {
+        line(out, "BEGIN:VEVENT");
+        line(out, "UID:" + uid + "@medtrack");
+        line(out, "DTSTAMP:" + stamp(product));
+        line(out, "DTSTART;TZID=" + TZID + ":" + LOCAL_DATE_TIME.format(start));
+        line(out, "DURATION:PT15M");
+        line(out, "RRULE:" + rrule);
+        line(out, "SUMMARY:" + escape(summary));
+        if (description != null) {
+            line(out, "DESCRIPTION:" + escape(description));
+        }
+        line(out, "BEGIN:VALARM");
+        line(out, "ACTION:DISPLAY");
+        line(out, "DESCRIPTION:" + escape(summary));
+        line(out, "TRIGGER:PT0M");
+        line(out, "END:VALARM");
+        line(out, "END:VEVENT");
+    }
+
+    private void writeExpiry(ByteArrayOutputStream out, HealthProduct product) {
+        if (product.getExpiryDate() == null) {
+            return;
+        }
+        line(out, "BEGIN:VEVENT");
+        line(out, "UID:expiry-" + product.getId() + "@medtrack");
+        line(out, "DTSTAMP:" + stamp(product));
+        line(out, "DTSTART;VALUE=DATE:" + DATE.format(product.getExpiryDate()));
+        line(out, "DTEND;VALUE=DATE:" + DATE.format(product.getExpiryDate().plusDays(1)));
+        line(out, "SUMMARY:" + escape(product.getName() + " expires"));
+        line(out, "TRANSP:TRANSPARENT");
+        line(out, "END:VEVENT");
+    }
+
+    private static String byDay(ScheduleRule rule) {
+        if (rule == null || rule.getDaysOfWeekMask() == null || rule.getDaysOfWeekMask() == 0) {
+            return "";
+        }
+        StringJoiner days = new StringJoiner(",", ";BYDAY=", "");
+        for (int day = 0; day < 7; day++) {
+            if ((rule.getDaysOfWeekMask() & (1 << day)) != 0) {
+                days.add(BYDAY[day]);
+            }
+        }
+        return days.toString();
+    }
+
+    private static String describe(ScheduleRule rule) {
+        if (rule == null || rule.getTaperStepDays() == null || rule.getTaperStepDose() == null) {
+            return null;
+        }
+        return "Tapering: the dose drops by " + rule.getTaperStepDose() + " every " + rule.getTaperStepDays()
+                + " days";
+    }
+
+    private static String dose(HealthProduct product) {
+        if (product.getDoseQuantity() == null) {
+            return "";
+        }
+        String quantity = product.getDoseQuantity() % 1 == 0
+                ? String.valueOf(product.getDoseQuantity().intValue())
+                : String.valueOf(product.getDoseQuantity());
+        return " (" + quantity + (product.getUnit() != null ? " " + product.getUnit() : "") + ")";
+    }
+
+    private static LocalDate createdDate(HealthProduct product) {
+        return product.getCreatedAt() != null
+                ? product.getCreatedAt().toInstant().atZone(KOLKATA_ZONE).toLocalDate()
+                : LocalDate.EPOCH;
+    }
+
+    // a stable stamp keeps the bytes identical until the product changes
+    private static String stamp(HealthProduct product) {
+        Instant created = product.getCreatedAt() != null ? product.getCreatedAt().toInstant() : Instant.EPOCH;
+        return UTC_DATE_TIME.format(created);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    /**
+     * Writes a content line, folded at 75 octets without splitting a UTF-8
+     * sequence
+     */
+    private static void line(ByteArrayOutputStream out, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        int start = 0;
+        int limit = MAX_LINE_OCTETS;
+        while (bytes.length - start > limit) {
+            int end = start + limit;
+            while ((bytes[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            out.write(bytes, start, end - start);
+            out.writeBytes((CRLF + " ").getBytes(StandardCharsets.US_ASCII));
+            start = end;
+            // continuation lines start with a space, which counts toward the limit
+            limit = MAX_LINE_OCTETS - 1;
+        }
+        out.write(bytes, start, bytes.length - start);
+        out.writeBytes(CRLF.getBytes(StandardCharsets.US_ASCII));
+    }
+}
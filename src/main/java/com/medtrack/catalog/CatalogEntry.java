@@ -0,0 +1,10 @@
+package com.medtrack.catalog;
+
+/**
+ * A reference medicine from the catalog data file.
+ *
+ * @param name        canonical display name stored on new products
+ * @param defaultUnit unit used when the client does not send one
+ */
+public record CatalogEntry(String name, String defaultUnit) {
+}
@@ -0,0 +1,249 @@
+package com.medtrack.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix index over normalised medicine names and synonyms.
+ *
+ * The trie is flattened into parallel primitive arrays: the children of a node
+ * are stored contiguously and sorted by label, so descending one character is a
+ * binary search over a small slice of {@code labels}. Every node also records
+ * the range of sorted keys below it, which makes a prefix query "walk the
+ * prefix, then read the first few keys of the range" without any per-lookup
+ * allocation beyond the result list.
+ *
+ * Instances are built once and never mutated, so they can be shared freely
+ * between request threads and swapped out wholesale on reload.
+ */
+public final class CatalogIndex {
+
+    private final CatalogEntry[] entries;
+
+    // sorted, de-duplicated keys and the entry each key points to
+    private final String[] keys;
+    private final int[] keyEntry;
+
+    // flattened trie
+    private final char[] labels;
+    private final int[] childStart;
+    private final int[] childEnd;
+    private final int[] keyFrom;
+    private final int[] keyTo;
+
+    private CatalogIndex(CatalogEntry[] entries, String[] keys, int[] keyEntry, char[] labels, int[] childStart,
+            int[] childEnd, int[] keyFrom, int[] keyTo) {
+        this.entries = entries;
+        this.keys = keys;
+        this.keyEntry = keyEntry;
+        this.labels = labels;
+        this.childStart = childStart;
+        this.childEnd = childEnd;
+        this.keyFrom = keyFrom;
+        this.keyTo = keyTo;
+    }
+
+    public static CatalogIndex empty() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returns up to {@code limit} distinct entries having a name or synonym that
+     * starts with the given (already normalised) prefix, in key order.
+     */
+    public List<CatalogEntry> complete(String normalizedPrefix, int limit) {
+        int node = descend(normalizedPrefix);
+        if (node < 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        int[] picked = new int[limit];
+        int count = 0;
+
+        for (int k = keyFrom[node]; k < keyTo[node] && count < limit; k++) {
+            int entry = keyEntry[k];
+            if (!contains(picked, count, entry)) {
+                picked[count++] = entry;
+            }
+        }
+
+        List<CatalogEntry> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entries[picked[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entry whose name or synonym equals the given (already
+     * normalised) key, or {@code null} when the catalog does not know it.
+     */
+    public CatalogEntry exact(String normalizedKey) {
+        int node = descend(normalizedKey);
+        if (node < 0 || keyFrom[node] == keyTo[node]) {
+            return null;
+        }
+        // a key equal to the node's prefix always sorts first in its range
+        int first = keyFrom[node];
+        return keys[first].length() == normalizedKey.length() ? entries[keyEntry[first]] : null;
+    }
+
+    private int descend(String prefix) {
+        if (labels.length == 0) {
+            return -1;
+        }
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = child(node, prefix.charAt(i));
+            if (node < 0) {
+                return -1;
+            }
+        }
+        return node;
+    }
+
+    private int child(int node, char label) {
+        int lo = childStart[node];
+        int hi = childEnd[node] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char midLabel = labels[mid];
+            if (midLabel < label) {
+                lo = mid + 1;
+            } else if (midLabel > label) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects entries and their keys, then lays out the trie breadth-first so
+     * that siblings end up next to each other.
+     */
+    public static final class Builder {
+
+        private final List<CatalogEntry> entries = new ArrayList<>();
+        private final Map<String, Integer> keyToEntry = new TreeMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an entry reachable under its canonical name and every synonym. When
+         * two entries claim the same key, the first one wins.
+         */
+        public Builder add(CatalogEntry entry, List<String> synonyms) {
+            int index = entries.size();
+            entries.add(entry);
+
+            for (String synonym : withName(entry.name(), synonyms)) {
+                String key = MedicineNameNormalizer.normalize(synonym);
+                if (!key.isEmpty()) {
+                    keyToEntry.putIfAbsent(key, index);
+                }
+            }
+            return this;
+        }
+
+        private static List<String> withName(String name, List<String> synonyms) {
+            List<String> all = new ArrayList<>(synonyms.size() + 1);
+            all.add(name);
+            all.addAll(synonyms);
+            return all;
+        }
+
+        public CatalogIndex build() {
+            int keyCount = keyToEntry.size();
+            String[] keys = new String[keyCount];
+            int[] keyEntry = new int[keyCount];
+
+            int maxNodes = 1;
+            int k = 0;
+            for (Map.Entry<String, Integer> e : keyToEntry.entrySet()) {
+                keys[k] = e.getKey();
+                keyEntry[k] = e.getValue();
+                maxNodes += e.getKey().length();
+                k++;
+            }
+
+            char[] labels = new char[maxNodes];
+            int[] childStart = new int[maxNodes];
+            int[] childEnd = new int[maxNodes];
+            int[] keyFrom = new int[maxNodes];
+            int[] keyTo = new int[maxNodes];
+            int[] depth = new int[maxNodes];
+
+            // root
+            keyFrom[0] = 0;
+            keyTo[0] = keyCount;
+            int nodeCount = 1;
+
+            for (int node = 0; node < nodeCount; node++) {
+                int d = depth[node];
+                int from = keyFrom[node];
+                int to = keyTo[node];
+
+                // the key that ends exactly at this node sorts first; skip it
+                while (from < to && keys[from].length() == d) {
+                    from++;
+                }
+
+                childStart[node] = nodeCount;
+                while (from < to) {
+                    char label = keys[from].charAt(d);
+                    int end = from + 1;
+                    while (end < to && keys[end].charAt(d) == label) {
+                        end++;
+                    }
+
+                    labels[nodeCount] = label;
+                    keyFrom[nodeCount] = from;
+                    keyTo[nodeCount] = end;
+                    depth[nodeCount] = d + 1;
+                    nodeCount++;
+
+                    from = end;
+                }
+                childEnd[node] = nodeCount;
+            }
+
+            if (keyCount == 0) {
+                nodeCount = 0;
+            }
+
+            return new CatalogIndex(
+                    entries.toArray(CatalogEntry[]::new),
+                    keys,
+                    keyEntry,
+                    Arrays.copyOf(labels, nodeCount),
+                    Arrays.copyOf(childStart, nodeCount),
+                    Arrays.copyOf(childEnd, nodeCount),
+                    Arrays.copyOf(keyFrom, nodeCount),
+                    Arrays.copyOf(keyTo, nodeCount));
+        }
+    }
+}
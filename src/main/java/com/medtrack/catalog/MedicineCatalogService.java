@@ -0,0 +1,124 @@
+package com.medtrack.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reference medicine catalog used for autocomplete and for normalising product
+ * names on creation.
+ *
+ * The catalog is read from a local data file into an immutable
+ * {@link CatalogIndex}. A reload builds a complete new index off to the side and
+ * publishes it with a single volatile write, so in-flight lookups keep using
+ * the old index and never wait on the reload.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MedicineCatalogService {
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${medtrack.catalog.location:classpath:catalog/medicines.csv}")
+    private String catalogLocation;
+
+    private volatile CatalogIndex index = CatalogIndex.empty();
+
+    @PostConstruct
+    public void load() {
+        try {
+            reload();
+        } catch (IOException e) {
+            // Product creation still works without a catalog, names are just not normalised
+            log.error("Failed to load medicine catalog from {}", catalogLocation, e);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the data file and swaps it in atomically
+     *
+     * @return number of catalog entries now served
+     */
+    public int reload() throws IOException {
+        long start = System.nanoTime();
+        CatalogIndex fresh = readCatalog(resourceLoader.getResource(catalogLocation));
+        index = fresh;
+
+        log.info("Loaded {} catalog entries from {} in {}ms", fresh.size(), catalogLocation,
+                (System.nanoTime() - start) / 1_000_000);
+        return fresh.size();
+    }
+
+    /**
+     * Suggests catalog entries whose name or synonym starts with the given text
+     */
+    public List<CatalogEntry> autocomplete(String query, int limit) {
+        String prefix = MedicineNameNormalizer.normalize(query);
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return index.complete(prefix, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    }
+
+    /**
+     * Resolves a free-text product name to its catalog entry, matching the
+     * canonical name or any synonym after normalisation
+     */
+    public Optional<CatalogEntry> resolve(String name) {
+        return Optional.ofNullable(index.exact(MedicineNameNormalizer.normalize(name)));
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    private CatalogIndex readCatalog(Resource resource) throws IOException {
+        CatalogIndex.Builder builder = CatalogIndex.builder();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                // name,defaultUnit,synonym1;synonym2
+                String[] columns = line.split(",", 3);
+                if (columns[0].isBlank()) {
+                    log.warn("Skipping catalog line {}: missing name", lineNumber);
+                    continue;
+                }
+
+                String unit = columns.length > 1 && !columns[1].isBlank() ? columns[1].strip() : null;
+                List<String> synonyms = columns.length > 2
+                        ? Arrays.stream(columns[2].split(";")).map(String::strip).filter(s -> !s.isEmpty()).toList()
+                        : List.of();
+
+                builder.add(new CatalogEntry(columns[0].strip(), unit), synonyms);
+            }
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.medtrack.catalog;
+
+/**
+ * Canonical form used for catalog keys and lookups.
+ *
+ * Lower-cases, turns punctuation into single spaces and glues a strength to its
+ * unit, so "Paracetamol 500 MG", "paracetamol-500mg" and "paracetamol 500mg"
+ * all normalise to {@code "paracetamol 500mg"}.
+ */
+public final class MedicineNameNormalizer {
+
+    private MedicineNameNormalizer() {
+    }
+
+    public static String normalize(CharSequence raw) {
+        if (raw == null) {
+            return "";
+        }
+
+        int length = raw.length();
+        StringBuilder out = new StringBuilder(length);
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(raw.charAt(i));
+
+            boolean alphaNumeric = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+            boolean decimalPoint = c == '.' && out.length() > 0 && isDigit(out.charAt(out.length() - 1))
+                    && i + 1 < length && isDigit(raw.charAt(i + 1));
+
+            if (!alphaNumeric && !decimalPoint) {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+
+            if (pendingSpace) {
+                // "500 mg" -> "500mg": a unit directly follows its strength
+                boolean unitAfterStrength = c >= 'a' && c <= 'z' && isDigit(out.charAt(out.length() - 1))
+                        && isUnitStart(raw, i);
+                if (!unitAfterStrength) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+            }
+            out.append(c);
+        }
+
+        return out.toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static final String[] UNITS = { "mg", "mcg", "g", "ml", "iu", "k" };
+
+    /**
+     * True when the word starting at {@code from} is one of the known strength
+     * units (and not, say, the next word of the product name).
+     */
+    private static boolean isUnitStart(CharSequence raw, int from) {
+        int end = from;
+        while (end < raw.length() && Character.isLetter(raw.charAt(end))) {
+            end++;
+        }
+        int wordLength = end - from;
+
+        for (String unit : UNITS) {
+            if (unit.length() != wordLength) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < wordLength && matches; i++) {
+                matches = Character.toLowerCase(raw.charAt(from + i)) == unit.charAt(i);
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
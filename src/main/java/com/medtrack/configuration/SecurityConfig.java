@@ -2,6 +2,7 @@ package com.medtrack.configuration;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -17,6 +18,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import com.medtrack.security.CustomUserDetailsService;
 import com.medtrack.security.JwtAuthFilter;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -32,11 +34,16 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // the async dispatch of a CompletableFuture result belongs to an already authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/user/signup", "/api/v1/user/signin").permitAll()
                         .requestMatchers("/api/v1/user/test", "/api/v1/test/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html").permitAll()
                         .requestMatchers("/api-docs/**", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/swagger-resources/**", "/webjars/**").permitAll()
+                        // calendar apps cannot send a JWT; the feed URL carries its own token
+                        .requestMatchers(HttpMethod.GET, "/api/v1/calendar/*.ics").permitAll()
+                        .requestMatchers("/api/v1/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/v1/health-product/**").authenticated()
                         .requestMatchers("/api/v1/medicine-logs/**").authenticated()
                         .requestMatchers("/api/v1/user/**").authenticated()
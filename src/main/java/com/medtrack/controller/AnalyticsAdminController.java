@@ -0,0 +1,78 @@
+package com.medtrack.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.medtrack.analytics.PopulationAnalyticsService;
+import com.medtrack.dto.ActiveUsersDto;
+import com.medtrack.dto.ExpiryDistributionDto;
+import com.medtrack.dto.PopulationAdherenceDto;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/analytics")
+@Tag(name = "Population Analytics", description = "Adherence and stock views across all users, from daily sketches")
+@SecurityRequirement(name = "bearerAuth")
+public class AnalyticsAdminController {
+
+    private final PopulationAnalyticsService populationAnalyticsService;
+
+    @GetMapping("/adherence")
+    @Operation(summary = "Population adherence percentiles", description = """
+            Returns the 10th, 50th and 90th percentile of daily adherence over every user-day
+            with at least one dose in the last `days` finished days (up to yesterday).
+            Percentiles are exact to within one percentage point.
+            Requires the ADMIN role.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Percentiles retrieved", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PopulationAdherenceDto.class))),
+            @ApiResponse(responseCode = "400", description = "Days out of range", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<PopulationAdherenceDto> adherence(
+            @Parameter(description = "Number of finished days", example = "30") @RequestParam(name = "days", defaultValue = "30") int days) {
+        return ResponseEntity.ok(populationAnalyticsService.adherence(days));
+    }
+
+    @GetMapping("/active-users")
+    @Operation(summary = "Active users", description = """
+            Returns the number of users with at least one usage log on each of the last `days`
+            finished days, and an estimate of the distinct users over the whole range.
+            Requires the ADMIN role.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Active users retrieved", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ActiveUsersDto.class))),
+            @ApiResponse(responseCode = "400", description = "Days out of range", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<ActiveUsersDto> activeUsers(
+            @Parameter(description = "Number of finished days", example = "30") @RequestParam(name = "days", defaultValue = "30") int days) {
+        return ResponseEntity.ok(populationAnalyticsService.activeUsers(days));
+    }
+
+    @GetMapping("/expiry")
+    @Operation(summary = "Expiry distribution", description = """
+            Returns the products of all users by expiry month, plus the number already expired.
+            Requires the ADMIN role.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Distribution retrieved", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ExpiryDistributionDto.class))),
+            @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<ExpiryDistributionDto> expiry() {
+        return ResponseEntity.ok(populationAnalyticsService.expiryDistribution());
+    }
+}
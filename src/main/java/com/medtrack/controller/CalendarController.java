@@ -0,0 +1,96 @@
+package com.medtrack.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.medtrack.calendar.CalendarFeedService;
+import com.medtrack.calendar.CalendarFeedService.Feed;
+import com.medtrack.dto.CalendarFeedDto;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1")
+@Tag(name = "Calendar Feed", description = "Subscribe to the dose schedule from phone and desktop calendar apps")
+public class CalendarController {
+
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar;charset=UTF-8");
+
+    private final CalendarFeedService calendarFeedService;
+
+    @PostMapping("/user/{userId}/calendar-token")
+    @Operation(summary = "Create calendar feed URL", description = """
+            Issues a new secret feed token for the user and returns the feed path.
+
+            **Notes:**
+            - Only the authenticated user can issue a token for their own account
+            - Calling this again rotates the token; calendars subscribed to the old URL stop updating
+            - The URL itself is the credential, share it only with your own calendar apps
+            """, security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Feed token issued", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CalendarFeedDto.class), examples = @ExampleObject(value = """
+                    {
+                        "token": "q3Jx0bE6m2Vw9uKpL1sYdT8fHc4nZ7aR5gO-iXeUvMw",
+                        "feedPath": "/api/v1/calendar/q3Jx0bE6m2Vw9uKpL1sYdT8fHc4nZ7aR5gO-iXeUvMw.ics"
+                    }
+                    """))),
+            @ApiResponse(responseCode = "400", description = "User not found, or not the authenticated user", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<CalendarFeedDto> createFeedToken(
+            @Parameter(description = "User ID", required = true, example = "1") @PathVariable("userId") Long userId) {
+        String token = calendarFeedService.rotateToken(userId);
+        return ResponseEntity.ok(new CalendarFeedDto(token, "/api/v1/calendar/" + token + ".ics"));
+    }
+
+    @GetMapping("/calendar/{token}.ics")
+    @Operation(summary = "Dose schedule as iCalendar", description = """
+            Returns the user's reminder times as recurring events and product expiry dates as all-day events.
+
+            **Caching:**
+            - No JWT is needed, the token in the path authenticates the feed
+            - Responses carry an ETag; send it back in If-None-Match to get 304 Not Modified when nothing changed
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Feed rendered", content = @Content(mediaType = "text/calendar")),
+            @ApiResponse(responseCode = "304", description = "Feed unchanged since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Unknown or revoked token", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<byte[]> feed(
+            @Parameter(description = "Feed token", required = true) @PathVariable("token") String token,
+            WebRequest request) {
+        Feed feed = calendarFeedService.feed(token);
+        CacheControl cacheControl = CacheControl.maxAge(calendarFeedService.maxAgeSeconds(), TimeUnit.SECONDS)
+                .cachePrivate();
+
+        if (request.checkNotModified(feed.etag())) {
+            return ResponseEntity.status(304).eTag(feed.etag()).cacheControl(cacheControl).build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .contentLength(feed.body().length)
+                .eTag(feed.etag())
+                .cacheControl(cacheControl)
+                .body(feed.body());
+    }
+}
@@ -9,11 +9,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.medtrack.dto.HealthProductRequestDto;
 import com.medtrack.dto.HealthProductResponseDto;
+import com.medtrack.idempotency.IdempotencyService;
 import com.medtrack.mapper.HealthProductMapper;
 import com.medtrack.model.HealthProduct;
 import com.medtrack.service.HealthProductService;
@@ -40,6 +42,7 @@ public class HealthProductController {
 
     private final HealthProductService healthProductService;
     private final HealthProductMapper healthProductMapper;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/createHealthProduct")
     @Operation(summary = "Create a new health product", description = """
@@ -282,6 +285,9 @@ public class HealthProductController {
             - Updates inventory automatically
 
             📊 **Smart Monitoring**: Automatically sends alerts when stock gets low or runs out.
+
+            **Retries:** send an `Idempotency-Key` header to make retries safe. A repeated key
+            returns the original response without reducing the stock again.
             """, tags = { "Usage Tracking" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Medicine usage recorded successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = HealthProductResponseDto.class), examples = @ExampleObject(value = """
@@ -309,8 +315,12 @@ public class HealthProductController {
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
     })
     public ResponseEntity<HealthProductResponseDto> recordMedicineUsage(
-            @Parameter(description = "Health product ID to record usage for", required = true, example = "1") @PathVariable("healthProductId") Long healthProductId) {
-        HealthProduct updatedProduct = healthProductService.recordMedicineUsage(healthProductId);
-        return ResponseEntity.ok(healthProductMapper.toDto(updatedProduct));
+            @Parameter(description = "Health product ID to record usage for", required = true, example = "1") @PathVariable("healthProductId") Long healthProductId,
+            @Parameter(description = "Client-generated key that identifies this dose across retries", example = "6f1c2a4e-8d3b-4f7a-9c61-2b5e0d9a7f13") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("record-usage:" + healthProductId, idempotencyKey,
+                null, HealthProductResponseDto.class, () -> {
+                    HealthProduct updatedProduct = healthProductService.recordMedicineUsage(healthProductId);
+                    return ResponseEntity.ok(healthProductMapper.toDto(updatedProduct));
+                });
     }
 }
\ No newline at end of file
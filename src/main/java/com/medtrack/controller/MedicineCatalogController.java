@@ -0,0 +1,84 @@
+package com.medtrack.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.medtrack.catalog.MedicineCatalogService;
+import com.medtrack.dto.CatalogSuggestionDto;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1")
+@Tag(name = "Medicine Catalog", description = "Reference medicine catalog used for name autocomplete and normalisation")
+@SecurityRequirement(name = "bearerAuth")
+public class MedicineCatalogController {
+
+    private final MedicineCatalogService medicineCatalogService;
+
+    @GetMapping("/catalog/autocomplete")
+    @Operation(summary = "Autocomplete medicine names", description = """
+            Suggests reference medicines whose name or a known synonym starts with the typed text.
+
+            **Matching:**
+            - Case, punctuation and spacing are ignored ("paracetamol 500 mg" matches "Paracetamol 500mg")
+            - Brand names and abbreviations are matched through synonyms ("PCM 500", "Dolo 650")
+            - At most 20 suggestions are returned
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully", content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CatalogSuggestionDto.class)), examples = @ExampleObject(value = """
+                    [
+                        {
+                            "name": "Paracetamol 500mg",
+                            "defaultUnit": "tablets"
+                        },
+                        {
+                            "name": "Paracetamol 650mg",
+                            "defaultUnit": "tablets"
+                        }
+                    ]
+                    """))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<List<CatalogSuggestionDto>> autocomplete(
+            @Parameter(description = "Partially typed medicine name", required = true, example = "parac") @RequestParam("q") String query,
+            @Parameter(description = "Maximum number of suggestions", example = "10") @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        List<CatalogSuggestionDto> suggestions = medicineCatalogService.autocomplete(query, limit).stream()
+                .map(entry -> new CatalogSuggestionDto(entry.name(), entry.defaultUnit()))
+                .toList();
+        return ResponseEntity.ok(suggestions);
+    }
+
+    @PostMapping("/admin/catalog/reload")
+    @Operation(summary = "Reload medicine catalog", description = "Re-reads the catalog data file and atomically replaces the in-memory index. Requires the ADMIN role.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catalog reloaded", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "entries": 50
+                    }
+                    """))),
+            @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<Map<String, Integer>> reloadCatalog() throws IOException {
+        return ResponseEntity.ok(Map.of("entries", medicineCatalogService.reload()));
+    }
+}
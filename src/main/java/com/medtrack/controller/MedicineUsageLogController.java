@@ -1,6 +1,7 @@
 package com.medtrack.controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,12 +9,22 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.medtrack.dto.AdherenceHeatmapDto;
+import com.medtrack.dto.AdherenceSeriesDto;
+import com.medtrack.dto.DoseEventDto;
+import com.medtrack.dto.LiveAdherenceDto;
 import com.medtrack.dto.MedicineUsageLogDto;
 import com.medtrack.dto.MedicineUsageSummaryDto;
+import com.medtrack.dto.SlotAdherenceDto;
+import com.medtrack.idempotency.IdempotencyService;
+import com.medtrack.service.AdherenceAnalyticsService;
 import com.medtrack.service.MedicineUsageLogService;
+import com.medtrack.streaming.UsageStreamProcessor;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,6 +36,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 
 @RestController
@@ -35,10 +47,14 @@ import lombok.AllArgsConstructor;
 public class MedicineUsageLogController {
 
     private final MedicineUsageLogService medicineUsageLogService;
+    private final IdempotencyService idempotencyService;
+    private final AdherenceAnalyticsService adherenceAnalyticsService;
+    private final UsageStreamProcessor usageStreamProcessor;
 
     @GetMapping("/{userId}/time/{days}")
     @Operation(summary = "Get usage logs for past days", description = """
             Retrieves medicine usage logs for a specified number of past days.
+            The period covers whole calendar days, counting today as the first day.
 
             **Returns aggregated data showing:**
             - Total doses taken per medicine
@@ -93,6 +109,11 @@ public class MedicineUsageLogController {
             - Checks if user exists
             - Validates health product exists and belongs to user
             - Ensures sufficient quantity available (if taken = true)
+
+            **Retries:** send an `Idempotency-Key` header to make retries safe. A repeated key
+            returns the original response without logging the dose again. A keyed log is
+            written directly, also when logs are otherwise batched. A key repeated with a
+            different body is rejected with 400.
             """, tags = { "Usage Logging" })
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Medicine usage logged successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = ""))),
@@ -112,7 +133,7 @@ public class MedicineUsageLogController {
                     """))),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
     })
-    public ResponseEntity<Void> addLog(
+    public CompletableFuture<ResponseEntity<Void>> addLog(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Medicine usage log details", required = true, content = @Content(schema = @Schema(implementation = MedicineUsageLogDto.class), examples = {
                     @ExampleObject(name = "Medicine Taken", summary = "Log when medicine was taken", value = """
                             {
@@ -128,11 +149,60 @@ public class MedicineUsageLogController {
                                 "isTaken": false
                             }
                             """)
-            })) @RequestBody MedicineUsageLogDto logDto) {
-        System.out.println("Received log: " + logDto);
-        medicineUsageLogService.add(logDto);
-        System.out.println("Log added successfully");
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+            })) @RequestBody MedicineUsageLogDto logDto,
+            @Parameter(description = "Client-generated key that identifies this log across retries", example = "6f1c2a4e-8d3b-4f7a-9c61-2b5e0d9a7f13") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            // completes once the log is committed, without holding the request thread
+            return medicineUsageLogService.add(logDto)
+                    .thenApply(committed -> ResponseEntity.status(HttpStatus.CREATED).<Void>build());
+        }
+        return CompletableFuture.completedFuture(idempotencyService.execute("medicine-log", idempotencyKey,
+                logDto, Void.class, () -> {
+                    // written in the key's transaction, not by the buffer, so both commit or neither does
+                    medicineUsageLogService.add(logDto, false);
+                    return ResponseEntity.status(HttpStatus.CREATED).<Void>build();
+                }));
+    }
+
+    @PostMapping("/dose")
+    @Operation(summary = "Record a dose", description = """
+            Logs a dose and, when it was taken, deducts it from the product's stock in a single step.
+            This replaces calling `/medicine-logs/log` and `/health-product/{id}/record-usage` separately.
+
+            **Behaviour:**
+            - The log, the stock deduction and the daily statistics are written in one atomic database statement
+            - The deducted dose follows the product's tapering rule
+            - A taken dose larger than the available stock is rejected and nothing is written
+            - `stockAlert` is set, and a notification sent, only when this dose crosses the low-stock threshold or empties the stock
+
+            **Retries:** send an `Idempotency-Key` header to make retries safe. A key repeated
+            with a different body is rejected with 400.
+            """, tags = { "Usage Logging" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Dose recorded", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DoseEventDto.class), examples = @ExampleObject(value = """
+                    {
+                        "logId": 1024,
+                        "healthProductId": 1,
+                        "taken": true,
+                        "dose": 1.0,
+                        "availableQuantity": 9.0,
+                        "stockAlert": "LOW_STOCK"
+                    }
+                    """))),
+            @ApiResponse(responseCode = "400", description = "Product not found for this user, or insufficient quantity", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "errors": {
+                            "error": "Insufficient quantity available for dose"
+                        }
+                    }
+                    """))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<DoseEventDto> recordDose(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Dose details", required = true, content = @Content(schema = @Schema(implementation = MedicineUsageLogDto.class))) @Valid @RequestBody MedicineUsageLogDto logDto,
+            @Parameter(description = "Client-generated key that identifies this dose across retries", example = "6f1c2a4e-8d3b-4f7a-9c61-2b5e0d9a7f13") @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("dose", idempotencyKey, logDto, DoseEventDto.class,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(medicineUsageLogService.recordDose(logDto)));
     }
 
     @GetMapping("/{userId}/today")
@@ -187,4 +257,103 @@ public class MedicineUsageLogController {
             @Parameter(description = "User ID to get today's usage for", required = true, example = "1") @PathVariable("userId") Long userId) {
         return ResponseEntity.ok(medicineUsageLogService.getOneDay(userId));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{userId}/adherence/daily")
+    @Operation(summary = "Get daily adherence trend", description = """
+            Returns the user's daily taken and missed doses and the adherence percentage
+            for the last `days` days, including today.
+
+            **Format:** parallel arrays with one element per day, starting at `from`.
+            Days without any dose have an adherence of -1.
+
+            **Time Zone**: Days are calendar days in Asia/Kolkata timezone.
+            """, tags = { "Usage Reports" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Adherence trend retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = AdherenceSeriesDto.class), examples = @ExampleObject(value = """
+                    {
+                        "from": "2025-09-26",
+                        "taken": [3, 2, 0],
+                        "missed": [0, 1, 0],
+                        "adherence": [100.0, 66.7, -1.0]
+                    }
+                    """))),
+            @ApiResponse(responseCode = "400", description = "User not found or days out of range", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "errors": {
+                            "error": "Days must be between 1 and 366"
+                        }
+                    }
+                    """))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<AdherenceSeriesDto> getDailyAdherence(
+            @Parameter(description = "User ID", required = true, example = "1") @PathVariable("userId") Long userId,
+            @Parameter(description = "Number of days including today", example = "90") @RequestParam(name = "days", defaultValue = "90") int days) {
+        return ResponseEntity.ok(adherenceAnalyticsService.dailySeries(userId, days));
+    }
+
+    @GetMapping("/{userId}/adherence/heatmap")
+    @Operation(summary = "Get weekday and hour heatmap", description = """
+            Returns the user's taken and missed doses by weekday and hour of day over
+            the last `days` days, including today.
+
+            **Format:** two arrays of 168 cells each. Cell `weekday * 24 + hour` holds the
+            count for that hour, with Monday = 0.
+
+            **Time Zone**: Hours are in Asia/Kolkata timezone.
+            """, tags = { "Usage Reports" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Heatmap retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = AdherenceHeatmapDto.class))),
+            @ApiResponse(responseCode = "400", description = "User not found or days out of range", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<AdherenceHeatmapDto> getAdherenceHeatmap(
+            @Parameter(description = "User ID", required = true, example = "1") @PathVariable("userId") Long userId,
+            @Parameter(description = "Number of days including today", example = "90") @RequestParam(name = "days", defaultValue = "90") int days) {
+        return ResponseEntity.ok(adherenceAnalyticsService.heatmap(userId, days));
+    }
+
+    @GetMapping("/{userId}/adherence/slots")
+    @Operation(summary = "Get dose slot adherence", description = """
+            Returns, per product, how many dose slots were taken and missed over the last
+            `days` days including today, plus today's slots as bitmasks.
+
+            **Slots:** every log is assigned to the product's nearest daily reminder time
+            (bit i = i-th time of the day, in ascending order), or to its hour for products
+            without reminder times. A slot counts once however many logs it has, and a
+            taken log wins over a missed one. Slots without any log are not counted.
+
+            **Time Zone**: Days are in Asia/Kolkata timezone.
+            """, tags = { "Usage Reports" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Slot adherence retrieved successfully", content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = SlotAdherenceDto.class)))),
+            @ApiResponse(responseCode = "400", description = "User not found or days out of range", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<List<SlotAdherenceDto>> getSlotAdherence(
+            @Parameter(description = "User ID", required = true, example = "1") @PathVariable("userId") Long userId,
+            @Parameter(description = "Number of days including today", example = "365") @RequestParam(name = "days", defaultValue = "365") int days) {
+        return ResponseEntity.ok(adherenceAnalyticsService.slotAdherence(userId, days));
+    }
+
+    @GetMapping("/{userId}/adherence/live")
+    @Operation(summary = "Get live streaks", description = """
+            Returns the user's current and longest streak of taken doses, the current run of
+            missed doses and the adherence over the last 7 days.
+
+            **Source:** served from the in-memory state each instance builds from the usage
+            event stream, without a database query. A log shows up here within moments of
+            being recorded. Streaks reach back no further than the replayed history
+            (`medtrack.usage-events.replay-days`).
+
+            **Time Zone**: Days are in Asia/Kolkata timezone.
+            """, tags = { "Usage Reports" })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Live streaks retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = LiveAdherenceDto.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<LiveAdherenceDto> getLiveAdherence(
+            @Parameter(description = "User ID", required = true, example = "1") @PathVariable("userId") Long userId) {
+        return ResponseEntity.ok(usageStreamProcessor.live(userId));
+    }
+}
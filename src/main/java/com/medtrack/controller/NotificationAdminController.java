@@ -0,0 +1,47 @@
+package com.medtrack.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.medtrack.dto.DeadLetterReplayDto;
+import com.medtrack.kafka.service.NotificationRetryService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/notifications")
+@Tag(name = "Notification Administration", description = "Recover notifications that failed every delivery attempt")
+@SecurityRequirement(name = "bearerAuth")
+public class NotificationAdminController {
+
+    private final NotificationRetryService notificationRetryService;
+
+    @PostMapping("/dead-letters/replay")
+    @Operation(summary = "Replay dead-lettered notifications", description = """
+            Moves up to `limit` notifications from the dead-letter topic back to the notification topic
+            with a fresh retry budget, oldest first. Each dead letter is replayed once; run it again
+            to continue with the next ones.
+            Requires the ADMIN role.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications replayed", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeadLetterReplayDto.class))),
+            @ApiResponse(responseCode = "400", description = "Limit out of range", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<DeadLetterReplayDto> replayDeadLetters(
+            @Parameter(description = "Maximum number of notifications to replay", example = "100") @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return ResponseEntity.ok(new DeadLetterReplayDto(notificationRetryService.replayDeadLetters(limit)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.medtrack.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.medtrack.dto.SchedulerNodeDto;
+import com.medtrack.scheduling.ReminderDispatchService;
+import com.medtrack.scheduling.ScheduleBucketOwnership;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/scheduler")
+@Tag(name = "Scheduler Administration", description = "Inspect how scheduled work is split across application instances")
+@SecurityRequirement(name = "bearerAuth")
+public class SchedulerAdminController {
+
+    private final ScheduleBucketOwnership scheduleBucketOwnership;
+    private final ReminderDispatchService reminderDispatchService;
+
+    @GetMapping("/node")
+    @Operation(summary = "Show this instance's buckets", description = """
+            Returns the user buckets currently leased to the instance that answers the request.
+            Calling it against each running instance shows how reminders and expiry warnings are split.
+            Requires the ADMIN role.
+            """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Node status retrieved", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                    {
+                        "nodeId": "48211@medtrack-1",
+                        "bucketCount": 64,
+                        "ownedBuckets": [0, 1, 2, 3],
+                        "scheduledReminders": 1520
+                    }
+                    """))),
+            @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<SchedulerNodeDto> node() {
+        return ResponseEntity.ok(new SchedulerNodeDto(
+                scheduleBucketOwnership.nodeId(),
+                scheduleBucketOwnership.bucketCount(),
+                scheduleBucketOwnership.ownedBuckets(),
+                reminderDispatchService.scheduledReminderCount()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.medtrack.dto;
+
+import java.time.LocalDate;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Users with at least one usage log, per day and distinct over the range")
+public record ActiveUsersDto(
+        @Schema(description = "Day of the first element", example = "2025-06-01", required = true) LocalDate from,
+
+        @Schema(description = "Last day included", example = "2025-06-30", required = true) LocalDate to,
+
+        @Schema(description = "Active users per day, -1 for days not summarized yet", example = "[1610, 1588, 1632]", required = true) int[] daily,
+
+        @Schema(description = "Estimated distinct active users over the whole range (about 1.6% error)", example = "2904", required = true) Long distinctUsers) {
+}
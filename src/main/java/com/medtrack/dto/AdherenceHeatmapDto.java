@@ -0,0 +1,16 @@
+package com.medtrack.dto;
+
+import java.time.LocalDate;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Doses of a user by weekday and hour. Each array has 168 cells, index = weekday * 24 + hour with Monday = 0, in Asia/Kolkata time")
+public record AdherenceHeatmapDto(
+        @Schema(description = "First day counted", example = "2025-07-01", required = true) LocalDate from,
+
+        @Schema(description = "Last day counted (today)", example = "2025-09-28", required = true) LocalDate to,
+
+        @Schema(description = "Doses taken per weekday and hour", required = true) int[] taken,
+
+        @Schema(description = "Doses missed per weekday and hour", required = true) int[] missed) {
+}
@@ -0,0 +1,16 @@
+package com.medtrack.dto;
+
+import java.time.LocalDate;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Daily adherence of a user as parallel arrays, one element per day from the start date up to today")
+public record AdherenceSeriesDto(
+        @Schema(description = "Day of the first element", example = "2025-07-01", required = true) LocalDate from,
+
+        @Schema(description = "Doses taken per day", example = "[3, 2, 3]", required = true) int[] taken,
+
+        @Schema(description = "Doses missed per day", example = "[0, 1, 0]", required = true) int[] missed,
+
+        @Schema(description = "Adherence percentage per day, -1 for days without doses", example = "[100.0, 66.7, 100.0]", required = true) float[] adherence) {
+}
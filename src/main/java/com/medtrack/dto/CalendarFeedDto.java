@@ -0,0 +1,10 @@
+package com.medtrack.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Calendar subscription details for a user's dose schedule")
+public record CalendarFeedDto(
+        @Schema(description = "Secret token identifying the feed; rotating it revokes the previous URL", example = "q3Jx0bE6m2Vw9uKpL1sYdT8fHc4nZ7aR5gO-iXeUvMw", required = true) String token,
+
+        @Schema(description = "Path of the iCalendar feed to subscribe to from a calendar app", example = "/api/v1/calendar/q3Jx0bE6m2Vw9uKpL1sYdT8fHc4nZ7aR5gO-iXeUvMw.ics", required = true) String feedPath) {
+}
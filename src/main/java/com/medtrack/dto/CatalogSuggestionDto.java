@@ -0,0 +1,10 @@
+package com.medtrack.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Reference catalog entry suggested for a partially typed medicine name")
+public record CatalogSuggestionDto(
+        @Schema(description = "Canonical medicine name", example = "Paracetamol 500mg", required = true) String name,
+
+        @Schema(description = "Default unit of measurement for this medicine", example = "tablets") String defaultUnit) {
+}
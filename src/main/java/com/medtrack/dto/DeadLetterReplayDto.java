@@ -0,0 +1,8 @@
+package com.medtrack.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of replaying dead-lettered notifications")
+public record DeadLetterReplayDto(
+        @Schema(description = "Notifications moved back to the notification topic", example = "42", required = true) Integer replayed) {
+}
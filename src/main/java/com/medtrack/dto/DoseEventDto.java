@@ -0,0 +1,19 @@
+package com.medtrack.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Result of recording a dose: the usage log and the stock after it")
+public record DoseEventDto(
+        @Schema(description = "ID of the created usage log", example = "1024", required = true) Long logId,
+
+        @Schema(description = "Health product the dose belongs to", example = "1", required = true) Long healthProductId,
+
+        @Schema(description = "Whether the dose was taken", example = "true", required = true) Boolean taken,
+
+        @Schema(description = "Dose deducted from stock, 0 for a missed dose", example = "1.0", required = true) Float dose,
+
+        @Schema(description = "Available quantity after the dose", example = "9.0", required = true) Float availableQuantity,
+
+        @Schema(description = "Stock alert raised by this dose, null if the stock level did not cross a limit", example = "LOW_STOCK", allowableValues = {
+                "LOW_STOCK", "OUT_OF_STOCK" }) String stockAlert) {
+}
@@ -0,0 +1,14 @@
+package com.medtrack.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Products of all users by expiry month")
+public record ExpiryDistributionDto(
+        @Schema(description = "Products already expired", example = "312", required = true) Long expired,
+
+        @Schema(description = "Expiry months in ascending order, from the current month", example = "[\"2025-07\", \"2025-08\"]", required = true) List<String> months,
+
+        @Schema(description = "Products expiring in each month", example = "[120, 95]", required = true) long[] counts) {
+}
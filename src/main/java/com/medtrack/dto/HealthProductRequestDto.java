@@ -7,6 +7,7 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -31,7 +32,9 @@ public record HealthProductRequestDto(
 
         @Schema(description = "Expiry date of the product", example = "2025-12-31", required = true, format = "date") @NotNull(message = "Expiry date is required") @JsonFormat(pattern = "yyyy-MM-dd") LocalDate expiryDate,
 
-        @Schema(description = "List of reminder times in HH:mm format", example = "[\"08:00\", \"14:00\", \"20:00\"]", required = false) List<String> reminderTimes)
+        @Schema(description = "List of reminder times in HH:mm format; with an interval rule the first time is the anchor", example = "[\"08:00\", \"14:00\", \"20:00\"]", required = false) List<String> reminderTimes,
+
+        @Schema(description = "Optional dosing pattern: interval, weekdays, course length or taper", required = false) @Valid ScheduleRuleDto scheduleRule)
         implements Serializable{
 
     // Compact constructor for validation if needed
@@ -49,6 +52,6 @@ public record HealthProductRequestDto(
             String unit,
             List<String> reminderTimes) {
         this(userId, healthProductname, totalQuantity, null, thresholdQuantity, doseQuantity, unit, expiryDate,
-                reminderTimes);
+                reminderTimes, null);
     }
 }
\ No newline at end of file
@@ -33,7 +33,13 @@ public record HealthProductResponseDto(
 
         @Schema(description = "Product expiry date", example = "2025-12-31", required = true, format = "date") @JsonFormat(pattern = "yyyy-MM-dd") LocalDate expiryDate,
 
-        @Schema(description = "List of reminder times in HH:mm format", example = "[\"08:00\", \"14:00\", \"20:00\"]") List<String> reminderTimes,
+        @Schema(description = "List of reminder times in HH:mm format; with an interval rule, the anchor time", example = "[\"08:00\", \"14:00\", \"20:00\"]") List<String> reminderTimes,
+
+        @Schema(description = "Dosing pattern, absent when the reminder times apply every day") ScheduleRuleDto scheduleRule,
+
+        @Schema(description = "Next dose according to the schedule", example = "2025-01-15T20:00:00", format = "date-time") @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime nextDoseAt,
+
+        @Schema(description = "Forecast day on which the available quantity no longer covers the day's doses", example = "2025-02-10", format = "date") @JsonFormat(pattern = "yyyy-MM-dd") LocalDate estimatedRunOutDate,
 
         @Schema(description = "Date and time when the product was created", example = "2024-01-15T10:30:00", format = "date-time") @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime createdAt)
         implements Serializable{
@@ -53,6 +59,6 @@ public record HealthProductResponseDto(
             String unit,
             List<String> reminderTimes) {
         this(healthProductId, healthProductName, totalQuantity, null, thresholdQuantity, doseQuantity, unit, expiryDate,
-                reminderTimes, null);
+                reminderTimes, null, null, null, null);
     }
 }
\ No newline at end of file
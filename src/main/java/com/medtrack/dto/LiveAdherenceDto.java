@@ -0,0 +1,24 @@
+package com.medtrack.dto;
+
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Live streaks and rolling adherence of a user, maintained from the usage event stream")
+public record LiveAdherenceDto(
+        @Schema(description = "User ID", example = "1", required = true) Long userId,
+
+        @Schema(description = "Doses taken in a row up to the latest log", example = "12", required = true) int currentStreak,
+
+        @Schema(description = "Longest run of taken doses within the replayed history", example = "30", required = true) int longestStreak,
+
+        @Schema(description = "Doses missed in a row up to the latest log", example = "0", required = true) int consecutiveMisses,
+
+        @Schema(description = "Doses taken in the last 7 days including today", example = "19", required = true) int takenLast7Days,
+
+        @Schema(description = "Doses missed in the last 7 days including today", example = "2", required = true) int missedLast7Days,
+
+        @Schema(description = "Adherence percentage over the last 7 days, -1 without doses", example = "90.5", required = true) float adherenceLast7Days,
+
+        @Schema(description = "Time of the latest usage log seen, null if none", example = "2025-07-01T08:00:12") LocalDateTime lastEventAt) {
+}
@@ -0,0 +1,20 @@
+package com.medtrack.dto;
+
+import java.time.LocalDate;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Distribution of daily adherence across all users with logs, over whole days")
+public record PopulationAdherenceDto(
+        @Schema(description = "First day included", example = "2025-06-01", required = true) LocalDate from,
+
+        @Schema(description = "Last day included", example = "2025-06-30", required = true) LocalDate to,
+
+        @Schema(description = "Number of user-days with at least one dose", example = "48211", required = true) Long userDays,
+
+        @Schema(description = "10th percentile of adherence in percent, -1 without data", example = "40", required = true) Integer p10,
+
+        @Schema(description = "Median adherence in percent, -1 without data", example = "86", required = true) Integer p50,
+
+        @Schema(description = "90th percentile of adherence in percent, -1 without data", example = "100", required = true) Integer p90) {
+}
@@ -0,0 +1,63 @@
+package com.medtrack.dto;
+
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+
+@Schema(description = """
+        Dosing pattern beyond the same times every day. Use either an interval, anchored at the first reminder
+        time on the start date, or weekdays applied to the reminder times. Either can be limited to a course
+        length and combined with a taper that lowers the dose in steps until it reaches zero. On update, fields
+        left out keep their stored values, and an empty rule removes the pattern.
+        """)
+public record ScheduleRuleDto(
+        @Schema(description = "Take a dose every N hours from the first reminder time", example = "8") @Min(value = 1, message = "Interval must be at least 1 hour") @Max(value = 168, message = "Interval cannot exceed 168 hours") Integer intervalHours,
+
+        @Schema(description = "Weekdays on which the reminder times apply; all days when empty", example = "[\"MONDAY\", \"WEDNESDAY\", \"FRIDAY\"]") List<DayOfWeek> daysOfWeek,
+
+        @Schema(description = "Time of the first interval dose on the start date, taken from the first reminder time", example = "09:00", type = "string", accessMode = Schema.AccessMode.READ_ONLY) @JsonFormat(pattern = "HH:mm") LocalTime anchorTime,
+
+        @Schema(description = "First day of the schedule; defaults to the day the product is created, and on update to the stored start date", example = "2025-01-15", format = "date") @JsonFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+
+        @Schema(description = "Number of days the course lasts, then reminders stop", example = "14") @Positive(message = "Course days must be greater than 0") Integer courseDays,
+
+        @Schema(description = "Days between taper steps", example = "3") @Positive(message = "Taper step days must be greater than 0") Integer taperStepDays,
+
+        @Schema(description = "Dose reduction at each taper step", example = "5.0") @Positive(message = "Taper step dose must be greater than 0") Float taperStepDose,
+
+        @Schema(description = "Last day with a dose, derived from the course length and taper", example = "2025-01-28", format = "date", accessMode = Schema.AccessMode.READ_ONLY) @JsonFormat(pattern = "yyyy-MM-dd") LocalDate endDate)
+        implements Serializable {
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    @AssertTrue(message = "Use either an interval or weekdays, not both")
+    public boolean isIntervalOrWeekdays() {
+        return intervalHours == null || daysOfWeek == null || daysOfWeek.isEmpty();
+    }
+
+    // only the derived fields set, as in a request of {}
+    @JsonIgnore
+    @Schema(hidden = true)
+    public boolean isEmpty() {
+        return intervalHours == null && (daysOfWeek == null || daysOfWeek.isEmpty()) && startDate == null
+                && courseDays == null && taperStepDays == null && taperStepDose == null;
+    }
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    @AssertTrue(message = "Taper step days and taper step dose must be given together")
+    public boolean isTaperComplete() {
+        return (taperStepDays == null) == (taperStepDose == null);
+    }
+}
@@ -0,0 +1,16 @@
+package com.medtrack.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Scheduled work held by the application instance that served the request")
+public record SchedulerNodeDto(
+        @Schema(description = "Identifier of this instance in the bucket lease table", example = "48211@medtrack-1", required = true) String nodeId,
+
+        @Schema(description = "Total number of user buckets", example = "64", required = true) Integer bucketCount,
+
+        @Schema(description = "Buckets currently leased to this instance", example = "[0, 1, 2, 3]", required = true) List<Integer> ownedBuckets,
+
+        @Schema(description = "Reminder times loaded in this instance's schedule", example = "1520", required = true) Integer scheduledReminders) {
+}
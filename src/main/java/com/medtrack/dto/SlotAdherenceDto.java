@@ -0,0 +1,18 @@
+package com.medtrack.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Dose slots of one product taken and missed over a range of days, with today's slots as bitmasks")
+public record SlotAdherenceDto(
+        @Schema(description = "Health product ID", example = "1", required = true) Long healthProductId,
+
+        @Schema(description = "Slots taken in the range", example = "172", required = true) int takenSlots,
+
+        @Schema(description = "Slots logged as missed in the range", example = "8", required = true) int missedSlots,
+
+        @Schema(description = "Adherence percentage over logged slots, -1 without any", example = "95.6", required = true) float adherence,
+
+        @Schema(description = "Today's taken slots; bit i is the i-th reminder time of the day", example = "3", required = true) long todayTaken,
+
+        @Schema(description = "Today's missed slots; bit i is the i-th reminder time of the day", example = "4", required = true) long todayMissed) {
+}
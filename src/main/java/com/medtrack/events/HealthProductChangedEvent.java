@@ -0,0 +1,26 @@
+package com.medtrack.events;
+
+import com.medtrack.scheduling.CompiledSchedule;
+
+/**
+ * Published by {@code HealthProductService} whenever a product is created,
+ * updated or deleted. Listeners that keep in-memory state derived from products
+ * (reminder schedules, caches) use it to update incrementally instead of
+ * re-reading the database.
+ *
+ * @param healthProductId the product that changed
+ * @param userId          owner of the product
+ * @param schedule        the product's compiled dosing schedule after the
+ *                        change, null when deleted
+ * @param deleted         whether the product was removed
+ */
+public record HealthProductChangedEvent(
+        Long healthProductId,
+        Long userId,
+        CompiledSchedule schedule,
+        boolean deleted) {
+
+    public static HealthProductChangedEvent deleted(Long healthProductId, Long userId) {
+        return new HealthProductChangedEvent(healthProductId, userId, null, true);
+    }
+}
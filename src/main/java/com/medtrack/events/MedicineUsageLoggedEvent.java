@@ -0,0 +1,22 @@
+package com.medtrack.events;
+
+import java.sql.Timestamp;
+
+/**
+ * Published inside the transaction that writes a usage log, by the direct,
+ * buffered and dose paths alike. Listeners that must only see committed logs
+ * listen after commit.
+ *
+ * @param logId           id of the written log
+ * @param userId          owner of the log
+ * @param healthProductId product the dose belongs to
+ * @param taken           whether the dose was taken
+ * @param createdAt       time the log was recorded
+ */
+public record MedicineUsageLoggedEvent(
+        long logId,
+        long userId,
+        long healthProductId,
+        boolean taken,
+        Timestamp createdAt) {
+}
@@ -0,0 +1,15 @@
+package com.medtrack.events;
+
+/**
+ * Published by {@code HealthProductService} when a dose only lowers a
+ * product's available quantity. Unlike {@link HealthProductChangedEvent} it
+ * leaves schedules and calendar feeds alone; it is for state derived from
+ * stock, such as user stats.
+ *
+ * @param healthProductId the product whose stock changed
+ * @param userId          owner of the product
+ */
+public record ProductStockChangedEvent(
+        Long healthProductId,
+        Long userId) {
+}
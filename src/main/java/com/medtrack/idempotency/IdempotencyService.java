@@ -0,0 +1,218 @@
+package com.medtrack.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medtrack.exceptions.AuthException;
+import com.medtrack.repository.IdempotencyRecordRepo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes retried writes safe with an {@code Idempotency-Key} header.
+ *
+ * Keys are scoped to the endpoint and the authenticated caller. A repeat is
+ * answered from a bounded in-memory map of recent responses, or on a miss from
+ * one primary-key probe of {@code idempotency_key}; neither touches the
+ * tables the write itself changes. A new key is claimed in the same
+ * transaction as the write, so the write and its stored response commit or
+ * roll back together: a failed request can be retried with the same key, and
+ * a concurrent duplicate waits on the claim and then replays the response.
+ * A key reused with a different request body is rejected rather than
+ * answered with the response to the first one.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepo idempotencyRecordRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${medtrack.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${medtrack.idempotency.cache-size:100000}")
+    private int cacheSize;
+
+    private record StoredResponse(String fingerprint, int status, String body, LocalDateTime createdAt) {
+    }
+
+    private Map<String, StoredResponse> recent;
+
+    @PostConstruct
+    void init() {
+        recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize || isExpired(eldest.getValue().createdAt());
+            }
+        };
+    }
+
+    /**
+     * Runs the write once per key; without a key it simply runs it
+     *
+     * @param request the request body, or null if there is none; a repeat of
+     *                the key must carry an equal one
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<T> bodyType,
+            Supplier<ResponseEntity<T>> write) {
+        if (key == null || key.isBlank()) {
+            return write.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new AuthException("Idempotency-Key must be at most %d characters".formatted(MAX_KEY_LENGTH));
+        }
+
+        String id = digest(scope, caller(), key);
+        String fingerprint = digest(scope, serialize(request));
+
+        StoredResponse stored = lookup(id);
+        if (stored != null) {
+            return replay(stored, fingerprint, bodyType);
+        }
+
+        ResponseEntity<T> response = transactionTemplate.execute(status -> {
+            LocalDateTime now = now();
+            if (idempotencyRecordRepo.claim(id, fingerprint, now, now.minusHours(ttlHours)) == 0) {
+                return null;
+            }
+            ResponseEntity<T> result = run(write);
+            idempotencyRecordRepo.complete(id, result.getStatusCode().value(), serialize(result.getBody()));
+            return result;
+        });
+
+        if (response == null) {
+            // a concurrent request with the same key committed first
+            stored = lookup(id);
+            if (stored == null) {
+                throw new AuthException("A request with this Idempotency-Key is still being processed");
+            }
+            return replay(stored, fingerprint, bodyType);
+        }
+
+        synchronized (recent) {
+            recent.put(id, new StoredResponse(fingerprint, response.getStatusCode().value(),
+                    serialize(response.getBody()), now()));
+        }
+        return response;
+    }
+
+    @Scheduled(cron = "${medtrack.idempotency.cleanup-cron:0 0 * * * *}", zone = "Asia/Kolkata")
+    public void deleteExpired() {
+        Integer deleted = transactionTemplate.execute(
+                status -> idempotencyRecordRepo.deleteExpired(now().minusHours(ttlHours)));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private StoredResponse lookup(String id) {
+        StoredResponse stored;
+        synchronized (recent) {
+            stored = recent.get(id);
+        }
+        if (stored != null && !isExpired(stored.createdAt())) {
+            return stored;
+        }
+
+        return idempotencyRecordRepo.findLive(id, now().minusHours(ttlHours))
+                .filter(record -> record.getStatus() != null)
+                .map(record -> {
+                    StoredResponse found = new StoredResponse(record.getFingerprint(), record.getStatus(),
+                            record.getBody(), record.getCreatedAt());
+                    synchronized (recent) {
+                        recent.put(id, found);
+                    }
+                    return found;
+                })
+                .orElse(null);
+    }
+
+    // keys stored before fingerprints were recorded replay to any request
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String fingerprint, Class<T> bodyType) {
+        if (stored.fingerprint() != null && !stored.fingerprint().equals(fingerprint)) {
+            throw new AuthException("Idempotency-Key was already used with a different request");
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), bodyType) : null;
+            return ResponseEntity.status(HttpStatusCode.valueOf(stored.status()))
+                    .header(HEADER + "-Replayed", "true")
+                    .body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    // a write that completes asynchronously is awaited so it commits with the key
+    private static <T> ResponseEntity<T> run(Supplier<ResponseEntity<T>> write) {
+        try {
+            return write.get();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return body != null ? objectMapper.writeValueAsString(body) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for idempotent replay", e);
+        }
+    }
+
+    private boolean isExpired(LocalDateTime createdAt) {
+        return Duration.between(createdAt, now()).toHours() >= ttlHours;
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "";
+    }
+
+    private static String digest(String... parts) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(KOLKATA_ZONE);
+    }
+}
@@ -0,0 +1,251 @@
+package com.medtrack.ingestion;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.medtrack.events.MedicineUsageLoggedEvent;
+import com.medtrack.repository.UsageLogBatchRepo;
+import com.medtrack.repository.UsageLogBatchRepo.LogRow;
+import com.medtrack.repository.UsageLogBatchRepo.RollupDelta;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Group commit for usage logs.
+ *
+ * When {@code medtrack.usage-log.ingest.mode=buffered}, validated logs are
+ * queued in a bounded buffer and a single writer thread commits them in
+ * batches: a batch closes after {@code max-batch} logs or {@code linger-ms}
+ * after its first log, whichever comes first, and is written as one JDBC
+ * batch of log rows plus one each of rollup increments and dose slot bits in
+ * a single transaction. Each caller's future completes when its log has
+ * committed. A failed batch is retried in halves down to single logs, so a
+ * bad log fails only its own future.
+ *
+ * A full buffer is reported to the caller, which then writes directly, so a
+ * spike degrades to the unbuffered path instead of failing requests.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UsageLogWriteBuffer {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final UsageLogBatchRepo usageLogBatchRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${medtrack.usage-log.ingest.mode:direct}")
+    private String mode;
+
+    @Value("${medtrack.usage-log.ingest.capacity:8192}")
+    private int capacity;
+
+    @Value("${medtrack.usage-log.ingest.max-batch:256}")
+    private int maxBatch;
+
+    @Value("${medtrack.usage-log.ingest.linger-ms:5}")
+    private long lingerMillis;
+
+    private record PendingLog(long userId, long healthProductId, boolean taken, Timestamp createdAt,
+            CompletableFuture<Void> committed) {
+    }
+
+    private BlockingQueue<PendingLog> queue;
+    private Thread writer;
+    private volatile boolean running;
+    // submitters offer under the read lock, so none is left queuing after stop
+    private final ReadWriteLock offers = new ReentrantReadWriteLock();
+
+    private DistributionSummary batchSize;
+    private Timer flushLatency;
+    private Counter overflows;
+
+    @PostConstruct
+    void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        batchSize = DistributionSummary.builder("medtrack.usage_log.batch.size")
+                .description("Usage logs committed per batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        flushLatency = Timer.builder("medtrack.usage_log.flush.latency")
+                .description("Time to write and commit one batch of usage logs")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        overflows = Counter.builder("medtrack.usage_log.buffer.overflow")
+                .description("Usage logs written directly because the buffer was full")
+                .register(meterRegistry);
+        meterRegistry.gauge("medtrack.usage_log.buffer.depth", queue, BlockingQueue::size);
+
+        running = true;
+        writer = Thread.ofPlatform().name("usage-log-writer").daemon().start(this::writeLoop);
+        log.info("Buffered usage log ingestion started (capacity {}, batch {}, linger {} ms)",
+                capacity, maxBatch, lingerMillis);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        offers.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            offers.writeLock().unlock();
+        }
+        // the loop drains what is queued before it exits
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+
+        List<PendingLog> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            log.warn("Shut down with {} usage logs not written", left.size());
+            IllegalStateException stopped = new IllegalStateException("Usage log buffer stopped");
+            left.forEach(pending -> pending.committed().completeExceptionally(stopped));
+        }
+    }
+
+    public boolean isEnabled() {
+        return "buffered".equals(mode);
+    }
+
+    /**
+     * Queues a validated log
+     *
+     * @return a future completed once the log is committed, or null if the
+     *         buffer is full and the caller has to write it itself
+     */
+    public CompletableFuture<Void> submit(long userId, long healthProductId, boolean taken) {
+        PendingLog pending = new PendingLog(userId, healthProductId, taken,
+                new Timestamp(System.currentTimeMillis()), new CompletableFuture<>());
+        offers.readLock().lock();
+        try {
+            if (!running || !queue.offer(pending)) {
+                overflows.increment();
+                return null;
+            }
+        } finally {
+            offers.readLock().unlock();
+        }
+        return pending.committed();
+    }
+
+    private void writeLoop() {
+        List<PendingLog> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingLog first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || wait <= 0) {
+                        break;
+                    }
+                    PendingLog next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingLog> batch) {
+        long started = System.nanoTime();
+        try {
+            write(batch);
+        } finally {
+            batchSize.record(batch.size());
+            flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Commits the logs in one transaction, or, if that fails, each half in its
+     * own, so one bad log costs log2(batch) extra transactions rather than
+     * the whole batch
+     */
+    private void write(List<PendingLog> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            batch.forEach(pending -> pending.committed().complete(null));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.error("Failed to commit a usage log of product {}", batch.get(0).healthProductId(), e);
+                batch.get(0).committed().completeExceptionally(e);
+                return;
+            }
+            log.warn("Failed to commit a batch of {} usage logs, retrying in halves", batch.size(), e);
+            int half = batch.size() / 2;
+            write(batch.subList(0, half));
+            write(batch.subList(half, batch.size()));
+        }
+    }
+
+    private void insert(List<PendingLog> batch) {
+        long[] ids = usageLogBatchRepo.reserveIds(batch.size());
+        List<LogRow> rows = new ArrayList<>(batch.size());
+        Map<List<Object>, RollupDelta> deltas = new LinkedHashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingLog pending = batch.get(i);
+            rows.add(new LogRow(ids[i], pending.userId(), pending.healthProductId(), pending.taken(),
+                    pending.createdAt()));
+            eventPublisher.publishEvent(new MedicineUsageLoggedEvent(ids[i], pending.userId(),
+                    pending.healthProductId(), pending.taken(), pending.createdAt()));
+
+            RollupDelta delta = new RollupDelta(pending.userId(), pending.healthProductId(),
+                    pending.createdAt().toInstant().atZone(KOLKATA_ZONE).toLocalDate(),
+                    pending.taken() ? 1 : 0, pending.taken() ? 0 : 1);
+            deltas.merge(List.of(delta.userId(), delta.healthProductId(), delta.day()), delta,
+                    (a, b) -> new RollupDelta(a.userId(), a.healthProductId(), a.day(),
+                            a.taken() + b.taken(), a.missed() + b.missed()));
+        }
+
+        usageLogBatchRepo.insertLogs(rows);
+        usageLogBatchRepo.incrementRollups(new ArrayList<>(deltas.values()));
+        usageLogBatchRepo.markSlots(rows);
+    }
+}
@@ -16,9 +16,13 @@ import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import com.medtrack.kafka.dto.NotificationMessage;
 import com.medtrack.kafka.dto.NotificationResult;
+import com.medtrack.kafka.dto.UsageEvent;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @Configuration
 public class KafkaConfig {
@@ -29,6 +33,31 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${medtrack.notification.batch.max-poll-records:200}")
+    private int notificationBatchSize;
+
+    @Value("${spring.application.name:medtrack}")
+    private String applicationName;
+
+    @Value("${medtrack.cluster.node-id:}")
+    private String configuredNodeId;
+
+    // the configured node id, else the host (pod) name
+    private String instanceId() {
+        if (!configuredNodeId.isBlank()) {
+            return configuredNodeId;
+        }
+        String hostname = System.getenv("HOSTNAME");
+        if (hostname != null && !hostname.isBlank()) {
+            return hostname;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Set medtrack.cluster.node-id, the host name cannot be resolved", e);
+        }
+    }
+
     // ============= PRODUCER CONFIGURATION =============
 
     @Bean
@@ -101,6 +130,26 @@ public class KafkaConfig {
         return factory;
     }
 
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, NotificationMessage> notificationBatchKafkaListenerContainerFactory() {
+
+        ConcurrentKafkaListenerContainerFactory<String, NotificationMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(notificationConsumerFactory());
+
+        // A whole poll per call, committed once after the batch is handled
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        Properties batchProps = new Properties();
+        batchProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(notificationBatchSize));
+        factory.getContainerProperties().setKafkaConsumerProperties(batchProps);
+
+        factory.setCommonErrorHandler(new org.springframework.kafka.listener.DefaultErrorHandler());
+        factory.setConcurrency(2);
+
+        return factory;
+    }
+
     // ============= RESULT PRODUCER (for tracking notification results)
     // =============
 
@@ -120,4 +169,64 @@ public class KafkaConfig {
     public KafkaTemplate<String, NotificationResult> resultKafkaTemplate() {
         return new KafkaTemplate<>(resultProducerFactory());
     }
-}
\ No newline at end of file
+
+    // ============= USAGE EVENTS (usage log stream) =============
+
+    @Bean
+    public ProducerFactory<String, UsageEvent> usageEventProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+
+        // Idempotent and ordered per partition, so a user's events keep their order
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    public KafkaTemplate<String, UsageEvent> usageEventKafkaTemplate() {
+        return new KafkaTemplate<>(usageEventProducerFactory());
+    }
+
+    @Bean
+    public ConsumerFactory<String, UsageEvent> usageEventConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // A group of its own per instance: every instance reads every partition
+        // and keeps the full live state, so any instance can answer queries. The
+        // id is stable across restarts of the instance, so restarts reuse its group
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-usage-stream-" + instanceId());
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
+        configProps.put(JsonDeserializer.TRUSTED_PACKAGES, "com.medtrack.kafka.dto");
+        configProps.put(JsonDeserializer.VALUE_DEFAULT_TYPE, UsageEvent.class.getName());
+
+        // Positions are set by seeking on assignment; nothing is committed
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, UsageEvent> usageEventKafkaListenerContainerFactory() {
+
+        ConcurrentKafkaListenerContainerFactory<String, UsageEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(usageEventConsumerFactory());
+
+        // Never acknowledged, so the per-instance group leaves no offsets behind
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(new org.springframework.kafka.listener.DefaultErrorHandler());
+        factory.setConcurrency(2);
+
+        return factory;
+    }
+}
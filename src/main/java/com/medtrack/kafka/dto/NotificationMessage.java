@@ -29,6 +29,7 @@ public class NotificationMessage {
     @JsonFormat(pattern = "yyyy-MM-dd")
     private LocalDate expiryDate;
 
+    // Wall-clock times in Asia/Kolkata on every producer and consumer, whatever the host zone
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime scheduledAt;
 
@@ -42,4 +43,7 @@ public class NotificationMessage {
     private Float availableQuantity;
     private Float thresholdQuantity;
     private String additionalInfo;
+
+    // Reason of the last failed delivery, set when the message is retried or dead-lettered
+    private String lastError;
 }
@@ -0,0 +1,31 @@
+package com.medtrack.kafka.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A committed usage log on the usage event topic, keyed by user id so that
+ * all events of a user are in one partition and in order
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageEvent {
+
+    private Long logId;
+    private Long userId;
+    private Long healthProductId;
+    private Boolean taken;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss.SSS")
+    private LocalDateTime occurredAt;
+}
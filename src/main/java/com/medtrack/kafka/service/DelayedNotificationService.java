@@ -0,0 +1,207 @@
+package com.medtrack.kafka.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medtrack.kafka.dto.NotificationMessage;
+import com.medtrack.repository.ScheduledNotificationRepo;
+import com.medtrack.repository.ScheduledNotificationRepo.Due;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delayed delivery for notifications whose {@code scheduledAt} is in the
+ * future.
+ *
+ * The consumer parks such messages in the {@code scheduled_notification}
+ * due-queue. Worker threads claim due messages in batches and publish them
+ * back to the notification topic in the claiming transaction, which commits
+ * only after Kafka has acknowledged every message, so a message is delivered
+ * at least once even if an instance dies mid-batch. Back on the topic the
+ * message is due and is processed normally.
+ *
+ * An idle worker sleeps until the earliest queued message is due, at most
+ * {@code poll-interval-ms}; a message queued on this instance for an earlier
+ * time wakes it up. Delivery is therefore late by the claim and publish time
+ * for messages queued here, and by up to the poll interval for messages
+ * queued by other instances.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DelayedNotificationService {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final ScheduledNotificationRepo scheduledNotificationRepo;
+    private final KafkaTemplate<String, NotificationMessage> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${medtrack.notification.topics.medicine-expiry}")
+    private String notificationTopic;
+
+    @Value("${medtrack.notification.delayed.workers:2}")
+    private int workers;
+
+    @Value("${medtrack.notification.delayed.batch-size:200}")
+    private int batchSize;
+
+    @Value("${medtrack.notification.delayed.poll-interval-ms:1000}")
+    private long pollIntervalMillis;
+
+    private final Object wakeup = new Object();
+    private volatile long nextWakeMillis = Long.MAX_VALUE;
+    private volatile boolean running;
+    private final List<Thread> threads = new ArrayList<>();
+
+    private Timer deliveryLag;
+    private Counter delivered;
+
+    @PostConstruct
+    void start() {
+        scheduledNotificationRepo.createTableIfMissing();
+        deliveryLag = Timer.builder("medtrack.notification.delayed.lag")
+                .description("Time from a scheduled notification's due time to its publication")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        delivered = Counter.builder("medtrack.notification.delayed.delivered")
+                .description("Scheduled notifications published when due")
+                .register(meterRegistry);
+
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            threads.add(Thread.ofPlatform().name("delayed-notification-" + i).daemon().start(this::workLoop));
+        }
+        log.info("Delayed notification delivery started with {} workers", workers);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        synchronized (wakeup) {
+            wakeup.notifyAll();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queues the message until its {@code scheduledAt}
+     *
+     * @return false if a message with the same id is already queued
+     */
+    public boolean schedule(NotificationMessage message) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Notification " + message.getMessageId() + " is not serializable", e);
+        }
+
+        boolean queued = scheduledNotificationRepo.enqueue(message.getMessageId(), message.getScheduledAt(), payload);
+        long dueMillis = System.currentTimeMillis()
+                + Duration.between(LocalDateTime.now(KOLKATA_ZONE), message.getScheduledAt()).toMillis();
+        if (queued && dueMillis < nextWakeMillis) {
+            synchronized (wakeup) {
+                wakeup.notifyAll();
+            }
+        }
+        return queued;
+    }
+
+    private void workLoop() {
+        while (running) {
+            try {
+                int published = publishDue();
+                if (published < batchSize) {
+                    sleepUntilNextDue();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Delayed notification batch failed; it stays queued", e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int publishDue() {
+        Integer published = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+            List<Due> due = scheduledNotificationRepo.claimDue(now, batchSize);
+            if (due.isEmpty()) {
+                return 0;
+            }
+
+            List<CompletableFuture<?>> sends = new ArrayList<>(due.size());
+            for (Due message : due) {
+                NotificationMessage notification = read(message.payload());
+                if (notification == null) {
+                    continue;
+                }
+                String key = notification.getCorrelationId() != null ? notification.getCorrelationId()
+                        : notification.getMessageId();
+                sends.add(kafkaTemplate.send(notificationTopic, key, notification));
+                deliveryLag.record(Duration.between(message.dueAt(), now));
+            }
+            // roll the claim back unless every message reached Kafka
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+            delivered.increment(due.size());
+            return due.size();
+        });
+        return published != null ? published : 0;
+    }
+
+    private void sleepUntilNextDue() throws InterruptedException {
+        LocalDateTime next = scheduledNotificationRepo.nextDueAt();
+        long sleep = pollIntervalMillis;
+        if (next != null) {
+            sleep = Math.min(sleep, Math.max(0, Duration.between(LocalDateTime.now(KOLKATA_ZONE), next).toMillis()));
+        }
+        if (sleep == 0) {
+            return;
+        }
+        synchronized (wakeup) {
+            nextWakeMillis = System.currentTimeMillis() + sleep;
+            wakeup.wait(sleep);
+            nextWakeMillis = Long.MAX_VALUE;
+        }
+    }
+
+    // an unreadable row is dropped instead of failing every batch it is claimed in
+    private NotificationMessage read(String payload) {
+        try {
+            return objectMapper.readValue(payload, NotificationMessage.class);
+        } catch (JsonProcessingException e) {
+            log.error("Dropping unreadable scheduled notification: {}", payload, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.medtrack.kafka.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.kafka.dto.NotificationMessage;
+import com.medtrack.kafka.dto.NotificationType;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.HealthProductRepo.ProductOwner;
+import com.medtrack.utils.MailSenderService;
+import com.medtrack.utils.MailSenderService.DigestItem;
+import com.medtrack.utils.NotificationEmailTemplates;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Batch mode of the notification listener, enabled with
+ * {@code medtrack.notification.listener.mode=batch}.
+ *
+ * Each call receives a whole poll (up to
+ * {@code medtrack.notification.batch.max-poll-records}). Due notifications are
+ * grouped by recipient and type into one digest email per group, all emails
+ * of the poll go out over a single SMTP connection, and the offsets are
+ * committed once for the batch. Notifications whose email failed go to the
+ * retry topic one by one, so a failure does not hold back the rest of the
+ * batch.
+ *
+ * As in record mode, the recipient is the product's current owner, looked up
+ * for the whole poll in one query; notifications for deleted products or
+ * owners without an email are not sent.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationBatchConsumerService {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final MailSenderService mailSenderService;
+    private final DelayedNotificationService delayedNotificationService;
+    private final NotificationRetryService notificationRetryService;
+    private final NotificationConsumerService notificationConsumerService;
+    private final HealthProductRepo healthProductRepo;
+
+    private record Recipient(String email, NotificationType type) {
+    }
+
+    @KafkaListener(topics = { "${medtrack.notification.topics.medicine-expiry}",
+            "${medtrack.notification.topics.retry:medicine-notification-retry}" }, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "notificationBatchKafkaListenerContainerFactory", autoStartup = "#{'${medtrack.notification.listener.mode:record}' == 'batch'}")
+    public void processBatch(List<ConsumerRecord<String, NotificationMessage>> records,
+            Acknowledgment acknowledgment) {
+
+        long startTime = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+
+        List<NotificationMessage> due = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, NotificationMessage> record : records) {
+            NotificationMessage message = record.value();
+            if (message == null) {
+                log.warn("Skipping unreadable notification at {}-{}@{}", record.topic(), record.partition(),
+                        record.offset());
+                continue;
+            }
+            if (message.getScheduledAt() != null && now.isBefore(message.getScheduledAt())) {
+                delayedNotificationService.schedule(message);
+                continue;
+            }
+            if (notificationConsumerService.isDelivered(message)) {
+                log.info("Skipping notification {}: {} was already delivered", message.getMessageId(),
+                        message.getCorrelationId());
+                continue;
+            }
+            if (!notificationConsumerService.isValidNotificationMessage(message)) {
+                log.warn("Invalid notification message received: {}", message.getMessageId());
+                notificationConsumerService.sendNotificationResult(message, false, "Invalid message format",
+                        startTime);
+                continue;
+            }
+            due.add(message);
+        }
+
+        Map<Long, String> owners = new HashMap<>();
+        if (!due.isEmpty()) {
+            for (ProductOwner owner : healthProductRepo.findOwnerEmails(
+                    due.stream().map(NotificationMessage::getHealthProductId).distinct().toList())) {
+                owners.put(owner.getHealthProductId(), owner.getEmail());
+            }
+        }
+
+        Map<Recipient, List<NotificationMessage>> groups = new LinkedHashMap<>();
+        for (NotificationMessage message : due) {
+            String email = owners.get(message.getHealthProductId());
+            if (email == null || email.isEmpty()) {
+                log.warn("Skipping notification {}: product {} or its owner's email not found",
+                        message.getMessageId(), message.getHealthProductId());
+                notificationConsumerService.sendNotificationResult(message, false,
+                        "Health product or recipient not found", startTime);
+                continue;
+            }
+            groups.computeIfAbsent(new Recipient(email, message.getType()), recipient -> new ArrayList<>())
+                    .add(message);
+        }
+
+        List<MimeMessage> mails = new ArrayList<>(groups.size());
+        List<List<NotificationMessage>> mailGroups = new ArrayList<>(groups.size());
+        groups.forEach((recipient, messages) -> {
+            try {
+                mails.add(createDigest(recipient, messages));
+                mailGroups.add(messages);
+            } catch (MessagingException e) {
+                messages.forEach(message -> handleFailure(message, e.getMessage(), startTime));
+            }
+        });
+
+        Map<MimeMessage, Exception> failed = mailSenderService.sendAll(mails);
+        for (int i = 0; i < mails.size(); i++) {
+            Exception error = failed.get(mails.get(i));
+            for (NotificationMessage message : mailGroups.get(i)) {
+                if (error == null) {
+                    notificationConsumerService.markDelivered(message);
+                    notificationConsumerService.sendNotificationResult(message, true, null, startTime);
+                } else {
+                    handleFailure(message, error.getMessage(), startTime);
+                }
+            }
+        }
+
+        // Retries are on Kafka by now, so the whole poll can be committed
+        acknowledgment.acknowledge();
+
+        log.info("Processed {} notifications in {} emails ({} failed) in {}ms", records.size(), mails.size(),
+                failed.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private MimeMessage createDigest(Recipient recipient, List<NotificationMessage> messages)
+            throws MessagingException {
+        List<DigestItem> items = new ArrayList<>(messages.size());
+        for (NotificationMessage message : messages) {
+            items.add(NotificationEmailTemplates.item(message));
+        }
+        return mailSenderService.createDigest(recipient.email(), recipient.type(), items);
+    }
+
+    private void handleFailure(NotificationMessage message, String error, long startTime) {
+        boolean deadLettered = notificationRetryService.retryOrDeadLetter(message, error);
+        notificationConsumerService.sendNotificationResult(message, false, deadLettered
+                ? String.format("Dead-lettered after %d retries: %s", message.getRetryCount(), error)
+                : String.format("Retry %d scheduled for %s: %s", message.getRetryCount(), message.getScheduledAt(),
+                        error),
+                startTime);
+    }
+}
@@ -2,6 +2,9 @@
 package com.medtrack.kafka.service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -15,8 +18,11 @@ import org.springframework.stereotype.Service;
 
 import com.medtrack.kafka.dto.NotificationMessage;
 import com.medtrack.kafka.dto.NotificationResult;
+import com.medtrack.kafka.dto.NotificationType;
 import com.medtrack.utils.MailSenderService;
+import com.medtrack.utils.NotificationEmailTemplates;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,19 +31,41 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class NotificationConsumerService {
 
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
     private final MailSenderService mailSenderService;
     private final KafkaTemplate<String, NotificationResult> resultKafkaTemplate;
-
-    @Value("${medtrack.notification.max-retry-attempts}")
-    private int maxRetryAttempts;
+    private final DelayedNotificationService delayedNotificationService;
+    private final NotificationRetryService notificationRetryService;
 
     @Value("${medtrack.notification.topics.medicine-expiry}")
     private String expiryTopicName;
 
+    // Missed dose alerts are re-emitted when a slot is retried; the correlation
+    // id is the record key, so the copy reaches the consumer that sent the original
+    @Value("${medtrack.notification.dedupe-size:100000}")
+    private int dedupeSize;
+
+    private Map<String, Boolean> delivered;
+
+    @PostConstruct
+    void init() {
+        delivered = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupeSize;
+            }
+        };
+    }
+
     /**
-     * Main Kafka listener for processing notification messages
+     * Main Kafka listener for processing notification messages. Retries come
+     * in through the retry topic and wait in the due-queue like any scheduled
+     * notification. Idle when {@code medtrack.notification.listener.mode} is
+     * {@code batch}, where {@link NotificationBatchConsumerService} takes over.
      */
-    @KafkaListener(topics = "${medtrack.notification.topics.medicine-expiry}", groupId = "${spring.kafka.consumer.group-id}", containerFactory = "notificationKafkaListenerContainerFactory")
+    @KafkaListener(topics = { "${medtrack.notification.topics.medicine-expiry}",
+            "${medtrack.notification.topics.retry:medicine-notification-retry}" }, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "notificationKafkaListenerContainerFactory", autoStartup = "#{'${medtrack.notification.listener.mode:record}' != 'batch'}")
     public void processNotification(
             @Payload NotificationMessage message,
             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
@@ -52,15 +80,23 @@ public class NotificationConsumerService {
                 partition != null ? partition : "unknown",
                 offset != null ? offset : "unknown");
 
-        try {
-            // Check if this is a scheduled notification
-            if (message.getScheduledAt() != null && LocalDateTime.now().isBefore(message.getScheduledAt())) {
-                log.info("Message {} is scheduled for future delivery at: {}. Skipping for now.",
-                        message.getMessageId(), message.getScheduledAt());
-                acknowledgment.acknowledge();
-                return;
-            }
+        // A scheduled notification waits in the due-queue and comes back when due.
+        // Failing to queue it throws to the container, which redelivers it.
+        if (message.getScheduledAt() != null && LocalDateTime.now(KOLKATA_ZONE).isBefore(message.getScheduledAt())) {
+            delayedNotificationService.schedule(message);
+            log.info("Message {} is scheduled for delivery at: {}", message.getMessageId(), message.getScheduledAt());
+            acknowledgment.acknowledge();
+            return;
+        }
 
+        if (isDelivered(message)) {
+            log.info("Skipping notification {}: {} was already delivered", message.getMessageId(),
+                    message.getCorrelationId());
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        try {
             // Validate message
             if (!isValidNotificationMessage(message)) {
                 log.warn("Invalid notification message received: {}", message.getMessageId());
@@ -70,10 +106,16 @@ public class NotificationConsumerService {
             }
 
             // Process the notification based on type
-            boolean success = processNotificationByType(message);
+            if (!processNotificationByType(message)) {
+                handleNotificationFailure(message, "Delivery failed for " + message.getType(), acknowledgment,
+                        startTime);
+                return;
+            }
+
+            markDelivered(message);
 
             // Send result back to Kafka (for monitoring/tracking)
-            sendNotificationResult(message, success, null, startTime);
+            sendNotificationResult(message, true, null, startTime);
 
             // Acknowledge the message (mark as processed)
             acknowledgment.acknowledge();
@@ -85,7 +127,7 @@ public class NotificationConsumerService {
             log.error("Error processing notification: {}", message.getMessageId(), e);
 
             // Handle retry logic
-            handleNotificationFailure(message, e, acknowledgment, startTime);
+            handleNotificationFailure(message, e.getMessage(), acknowledgment, startTime);
         }
     }
 
@@ -146,16 +188,8 @@ public class NotificationConsumerService {
      */
     private boolean sendLowStockEmail(NotificationMessage message) {
         try {
-            // You can enhance MailSenderService to have a method for low stock emails
-            // For now, we'll use the existing method with additional context
-            String enhancedInfo = String.format("LOW STOCK ALERT: %s - %s",
-                    message.getProductName(), message.getAdditionalInfo());
-
-            // Create a custom email for low stock (you can enhance this)
-            mailSenderService.sendExpiryNotification(
-                    message.getHealthProductId(),
-                    enhancedInfo,
-                    message.getExpiryDate());
+            mailSenderService.sendNotification(message.getHealthProductId(), message.getType(),
+                    NotificationEmailTemplates.item(message));
 
             log.info("Low stock email sent successfully for product: {} to user: {}",
                     message.getProductName(), message.getUserEmail());
@@ -173,13 +207,8 @@ public class NotificationConsumerService {
      */
     private boolean sendOutOfStockEmail(NotificationMessage message) {
         try {
-            String enhancedInfo = String.format("OUT OF STOCK: %s - Please reorder immediately!",
-                    message.getProductName());
-
-            mailSenderService.sendExpiryNotification(
-                    message.getHealthProductId(),
-                    enhancedInfo,
-                    message.getExpiryDate());
+            mailSenderService.sendNotification(message.getHealthProductId(), message.getType(),
+                    NotificationEmailTemplates.item(message));
 
             log.info("Out of stock email sent successfully for product: {} to user: {}",
                     message.getProductName(), message.getUserEmail());
@@ -197,13 +226,8 @@ public class NotificationConsumerService {
      */
     private boolean sendReminderEmail(NotificationMessage message) {
         try {
-            String enhancedInfo = String.format("REMINDER: %s - %s",
-                    message.getProductName(), message.getAdditionalInfo());
-
-            mailSenderService.sendExpiryNotification(
-                    message.getHealthProductId(),
-                    enhancedInfo,
-                    message.getExpiryDate());
+            mailSenderService.sendNotification(message.getHealthProductId(), message.getType(),
+                    NotificationEmailTemplates.item(message));
 
             log.info("Reminder email sent successfully for product: {} to user: {}",
                     message.getProductName(), message.getUserEmail());
@@ -219,7 +243,7 @@ public class NotificationConsumerService {
     /**
      * Validate notification message
      */
-    private boolean isValidNotificationMessage(NotificationMessage message) {
+    boolean isValidNotificationMessage(NotificationMessage message) {
         return message != null &&
                 message.getMessageId() != null &&
                 message.getType() != null &&
@@ -229,48 +253,51 @@ public class NotificationConsumerService {
     }
 
     /**
-     * Handle notification processing failure
+     * Whether a missed dose alert with this correlation id was already
+     * delivered by this consumer
      */
-    private void handleNotificationFailure(NotificationMessage message, Exception error,
-            Acknowledgment acknowledgment, long startTime) {
-        try {
-            int currentRetryCount = message.getRetryCount() != null ? message.getRetryCount() : 0;
-
-            if (currentRetryCount < maxRetryAttempts) {
-                log.warn("Notification {} failed (attempt {}/{}). Will retry later: {}",
-                        message.getMessageId(), currentRetryCount + 1, maxRetryAttempts,
-                        error.getMessage());
-
-                // For retry, you could send the message back to a retry topic
-                // or use Kafka's built-in retry mechanisms
-                // For now, we'll just log and acknowledge
+    boolean isDelivered(NotificationMessage message) {
+        if (message.getType() != NotificationType.MEDICINE_MISSED_ALERT || message.getCorrelationId() == null) {
+            return false;
+        }
+        synchronized (delivered) {
+            return delivered.containsKey(message.getCorrelationId());
+        }
+    }
 
-                sendNotificationResult(message, false,
-                        String.format("Retry %d/%d: %s", currentRetryCount + 1, maxRetryAttempts, error.getMessage()),
-                        startTime);
-            } else {
-                log.error("Notification {} failed permanently after {} attempts: {}",
-                        message.getMessageId(), maxRetryAttempts, error.getMessage());
+    void markDelivered(NotificationMessage message) {
+        if (message.getType() != NotificationType.MEDICINE_MISSED_ALERT || message.getCorrelationId() == null) {
+            return;
+        }
+        synchronized (delivered) {
+            delivered.put(message.getCorrelationId(), Boolean.TRUE);
+        }
+    }
 
-                sendNotificationResult(message, false,
-                        String.format("Permanently failed after %d attempts: %s", maxRetryAttempts, error.getMessage()),
-                        startTime);
-            }
+    /**
+     * Handle notification processing failure: the message moves to the retry
+     * topic with a backoff, or to the dead-letter topic once its retries are
+     * used up. It is acknowledged only after Kafka has the copy; if that
+     * fails the exception reaches the container, which redelivers the
+     * original instead of dropping it.
+     */
+    private void handleNotificationFailure(NotificationMessage message, String error,
+            Acknowledgment acknowledgment, long startTime) {
+        boolean deadLettered = notificationRetryService.retryOrDeadLetter(message, error);
 
-            // Acknowledge to prevent infinite reprocessing
-            acknowledgment.acknowledge();
+        sendNotificationResult(message, false, deadLettered
+                ? String.format("Dead-lettered after %d retries: %s", message.getRetryCount(), error)
+                : String.format("Retry %d scheduled for %s: %s", message.getRetryCount(), message.getScheduledAt(),
+                        error),
+                startTime);
 
-        } catch (Exception e) {
-            log.error("Error handling notification failure for message: {}",
-                    message.getMessageId(), e);
-            acknowledgment.acknowledge();
-        }
+        acknowledgment.acknowledge();
     }
 
     /**
      * Send notification result back to Kafka for tracking
      */
-    private void sendNotificationResult(NotificationMessage originalMessage, boolean success,
+    void sendNotificationResult(NotificationMessage originalMessage, boolean success,
             String errorMessage, long startTime) {
         try {
             long processingTime = System.currentTimeMillis() - startTime;
@@ -280,7 +307,7 @@ public class NotificationConsumerService {
                     .correlationId(originalMessage.getCorrelationId())
                     .success(success)
                     .errorMessage(errorMessage)
-                    .processedAt(LocalDateTime.now())
+                    .processedAt(LocalDateTime.now(KOLKATA_ZONE))
                     .processingNode(getProcessingNodeId())
                     .processingTimeMs(processingTime)
                     .build();
@@ -1,8 +1,15 @@
 package com.medtrack.kafka.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -12,6 +19,7 @@ import org.springframework.stereotype.Service;
 import com.medtrack.kafka.dto.NotificationMessage;
 import com.medtrack.kafka.dto.NotificationType;
 import com.medtrack.model.HealthProduct;
+import com.medtrack.scheduling.ReminderTarget;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +31,9 @@ public class NotificationProducerService {
 
     private final KafkaTemplate<String, NotificationMessage> kafkaTemplate;
 
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final DateTimeFormatter REMINDER_SLOT_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
     @Value("${medtrack.notification.topics.medicine-expiry}")
     private String expiryTopicName;
 
@@ -30,12 +41,14 @@ public class NotificationProducerService {
     private int expiryWarningDays;
 
     /**
-     * Send medicine expiry notification to Kafka
+     * Send medicine expiry notification to Kafka, delivered right away
      */
     public void sendExpiryNotification(HealthProduct product) {
         try {
             String messageId = UUID.randomUUID().toString();
-            String correlationId = "expiry-" + product.getId() + "-" + System.currentTimeMillis();
+            // one warning per product and expiry date, whichever node or request sends it
+            String correlationId = "expiry-" + product.getId() + "-" + product.getExpiryDate();
+            long daysLeft = ChronoUnit.DAYS.between(LocalDate.now(KOLKATA_ZONE), product.getExpiryDate());
 
             // ✅ FIX: Handle null values gracefully
             String productName = getSafeProductName(product);
@@ -52,11 +65,11 @@ public class NotificationProducerService {
                     .userEmail(userEmail)
                     .userName(userName)
                     .expiryDate(product.getExpiryDate())
-                    .scheduledAt(LocalDateTime.now().plusDays(expiryWarningDays))
-                    .createdAt(LocalDateTime.now())
+                    .scheduledAt(LocalDateTime.now(KOLKATA_ZONE))
+                    .createdAt(LocalDateTime.now(KOLKATA_ZONE))
                     .retryCount(0)
                     .availableQuantity(product.getAvailableQuantity())
-                    .additionalInfo("Medicine expiring in " + expiryWarningDays + " days")
+                    .additionalInfo("Medicine expiring in " + daysLeft + " days")
                     .build();
 
             sendNotificationMessage(expiryTopicName, correlationId, message);
@@ -71,6 +84,19 @@ public class NotificationProducerService {
         }
     }
 
+    /**
+     * Whether an expiry date falls inside the warning window, counted from today
+     */
+    public boolean isWithinExpiryWarning(LocalDate expiryDate) {
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        return expiryDate != null && !expiryDate.isBefore(today)
+                && !expiryDate.isAfter(today.plusDays(expiryWarningDays));
+    }
+
+    public int expiryWarningDays() {
+        return expiryWarningDays;
+    }
+
     /**
      * Send low stock notification to Kafka
      */
@@ -95,8 +121,8 @@ public class NotificationProducerService {
                     .userEmail(userEmail)
                     .userName(userName)
                     .expiryDate(product.getExpiryDate())
-                    .scheduledAt(LocalDateTime.now()) // Send immediately
-                    .createdAt(LocalDateTime.now())
+                    .scheduledAt(LocalDateTime.now(KOLKATA_ZONE)) // Send immediately
+                    .createdAt(LocalDateTime.now(KOLKATA_ZONE))
                     .retryCount(0)
                     .availableQuantity(product.getAvailableQuantity())
                     .thresholdQuantity(product.getThresholdQuantity())
@@ -139,8 +165,8 @@ public class NotificationProducerService {
                     .userEmail(userEmail)
                     .userName(userName)
                     .expiryDate(product.getExpiryDate())
-                    .scheduledAt(LocalDateTime.now()) // Send immediately
-                    .createdAt(LocalDateTime.now())
+                    .scheduledAt(LocalDateTime.now(KOLKATA_ZONE)) // Send immediately
+                    .createdAt(LocalDateTime.now(KOLKATA_ZONE))
                     .retryCount(0)
                     .availableQuantity(0f)
                     .thresholdQuantity(product.getThresholdQuantity())
@@ -158,6 +184,109 @@ public class NotificationProducerService {
         }
     }
 
+    /**
+     * Send dose reminders for every target due at the given slot. The producer
+     * batches the records itself (linger.ms), so a large tick becomes a handful
+     * of produce requests rather than one round trip per reminder.
+     */
+    public int sendReminderNotifications(List<ReminderTarget> targets, LocalDateTime slot) {
+        String slotTime = slot.toLocalTime().toString();
+        List<CompletableFuture<?>> sends = sendSlotNotifications(NotificationType.MEDICINE_TAKEN_REMINDER,
+                "reminder", targets, slot,
+                (dose, unit) -> String.format("Time to take %.1f %s (scheduled %s)", dose, unit, slotTime));
+        return (int) sends.stream().filter(send -> !send.isCompletedExceptionally()).count();
+    }
+
+    /**
+     * Send missed dose alerts for reminders of the given slot that were not
+     * logged. The correlation id is derived from product and slot, so an alert
+     * re-emitted after a restart or a failed send is recognised downstream.
+     *
+     * @return completes once Kafka has acknowledged every alert, and fails if
+     *         any of them could not be sent
+     */
+    public CompletableFuture<Void> sendMissedDoseNotifications(List<ReminderTarget> targets, LocalDateTime slot) {
+        String slotTime = slot.toLocalTime().toString();
+        List<CompletableFuture<?>> sends = sendSlotNotifications(NotificationType.MEDICINE_MISSED_ALERT, "missed",
+                targets, slot,
+                (dose, unit) -> String.format("Dose of %.1f %s scheduled at %s was not logged", dose, unit, slotTime));
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+    }
+
+    // one future per target; a message that could not even be handed to the producer is already failed
+    private List<CompletableFuture<?>> sendSlotNotifications(NotificationType type, String correlationPrefix,
+            List<ReminderTarget> targets, LocalDateTime slot, BiFunction<Float, String, String> describe) {
+        String slotKey = slot.format(REMINDER_SLOT_FORMAT);
+        LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+        List<CompletableFuture<?>> sends = new ArrayList<>(targets.size());
+        int queued = 0;
+
+        for (ReminderTarget target : targets) {
+            try {
+                String correlationId = correlationPrefix + "-" + target.healthProductId() + "-" + slotKey;
+                String unit = target.unit() != null ? target.unit() : "units";
+
+                NotificationMessage message = NotificationMessage.builder()
+                        .messageId(UUID.randomUUID().toString())
+                        .correlationId(correlationId)
+                        .type(type)
+                        .healthProductId(target.healthProductId())
+                        .userId(target.userId())
+                        .productName(target.productName())
+                        .userEmail(target.userEmail())
+                        .userName(target.userName())
+                        .scheduledAt(slot)
+                        .createdAt(now)
+                        .retryCount(0)
+                        .additionalInfo(describe.apply(target.doseQuantity(), unit))
+                        .build();
+
+                sends.add(sendNotificationMessage(expiryTopicName, correlationId, message));
+                queued++;
+            } catch (Exception e) {
+                log.error("Failed to queue {} for product ID: {}", type, target.healthProductId(), e);
+                sends.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        log.info("Queued {} {} notifications for slot {}", queued, type, slotKey);
+        return sends;
+    }
+
+    /**
+     * Alert for a run of missed doses detected on the usage event stream. The
+     * correlation id names the log that completed the run, so a redelivered
+     * event does not alert twice.
+     */
+    public void sendMissStreakNotification(HealthProduct product, int misses, Long logId) {
+        try {
+            String correlationId = "miss-streak-" + product.getUser().getId() + "-" + logId;
+            String productName = getSafeProductName(product);
+
+            NotificationMessage message = NotificationMessage.builder()
+                    .messageId(UUID.randomUUID().toString())
+                    .correlationId(correlationId)
+                    .type(NotificationType.MEDICINE_MISSED_ALERT)
+                    .healthProductId(product.getId())
+                    .userId(product.getUser().getId())
+                    .productName(productName)
+                    .userEmail(getSafeUserEmail(product))
+                    .userName(getSafeUserName(product))
+                    .scheduledAt(LocalDateTime.now(KOLKATA_ZONE))
+                    .createdAt(LocalDateTime.now(KOLKATA_ZONE))
+                    .retryCount(0)
+                    .additionalInfo(misses + " doses in a row were missed")
+                    .build();
+
+            sendNotificationMessage(expiryTopicName, correlationId, message);
+
+            log.info("Missed dose streak alert queued for user {} ({} misses)", product.getUser().getId(), misses);
+
+        } catch (Exception e) {
+            log.error("Failed to send missed dose streak alert for product ID: {}", product.getId(), e);
+        }
+    }
+
     // ✅ NEW: Helper methods to safely extract values
     private String getSafeProductName(HealthProduct product) {
         if (product == null)
@@ -199,14 +328,17 @@ public class NotificationProducerService {
 
     /**
      * Generic method to send notification message to Kafka
+     *
+     * @return completes when the broker has acknowledged the message
      */
-    private void sendNotificationMessage(String topicName, String key, NotificationMessage message) {
+    private CompletableFuture<SendResult<String, NotificationMessage>> sendNotificationMessage(String topicName,
+            String key, NotificationMessage message) {
         try {
             CompletableFuture<SendResult<String, NotificationMessage>> future = kafkaTemplate.send(topicName, key,
                     message);
 
             // Add callback for success/failure handling
-            future.whenComplete((result, exception) -> {
+            return future.whenComplete((result, exception) -> {
                 if (exception == null) {
                     log.debug("Notification sent successfully: [{}] with key: [{}] to partition: [{}] at offset: [{}]",
                             message.getMessageId(),
@@ -235,7 +367,7 @@ public class NotificationProducerService {
                     NotificationMessage.builder()
                             .messageId(testMessage)
                             .type(NotificationType.MEDICINE_EXPIRY_WARNING)
-                            .createdAt(LocalDateTime.now())
+                            .createdAt(LocalDateTime.now(KOLKATA_ZONE))
                             .productName("Health Check Test") // ✅ Ensure not null
                             .userEmail("health@medtrack.com") // ✅ Ensure not null
                             .healthProductId(0L) // ✅ Ensure not null
@@ -0,0 +1,192 @@
+package com.medtrack.kafka.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.exceptions.AuthException;
+import com.medtrack.kafka.dto.NotificationMessage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking retries for notifications that could not be delivered.
+ *
+ * A failed message is republished to the retry topic with its
+ * {@code retryCount} incremented and {@code scheduledAt} moved out by an
+ * exponential backoff. The consumer parks it in the due-queue like any
+ * scheduled notification, and it returns to the notification topic when due,
+ * so the main partitions keep flowing while retries wait. A message that has
+ * used up {@code max-retry-attempts} goes to the dead-letter topic with its
+ * last error, from where it can be replayed.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NotificationRetryService {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final String REPLAY_GROUP_SUFFIX = "-dead-letter-replay";
+    private static final int MAX_REPLAY = 10_000;
+    private static final long REPLAY_TIMEOUT_SECONDS = 60;
+
+    private final KafkaTemplate<String, NotificationMessage> kafkaTemplate;
+    private final ConsumerFactory<String, NotificationMessage> notificationConsumerFactory;
+
+    @Value("${medtrack.notification.topics.medicine-expiry}")
+    private String notificationTopic;
+
+    @Value("${medtrack.notification.topics.retry:medicine-notification-retry}")
+    private String retryTopic;
+
+    @Value("${medtrack.notification.topics.dead-letter:medicine-notification-dlt}")
+    private String deadLetterTopic;
+
+    @Value("${medtrack.notification.max-retry-attempts}")
+    private int maxRetryAttempts;
+
+    @Value("${medtrack.notification.retry.initial-backoff-ms:30000}")
+    private long initialBackoffMillis;
+
+    @Value("${medtrack.notification.retry.max-backoff-ms:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    /**
+     * Schedules another attempt, or dead-letters the message once the
+     * attempts are used up. Returns only after Kafka has the message, so the
+     * caller may acknowledge the original; throws otherwise.
+     *
+     * @return true if the message was dead-lettered
+     */
+    public boolean retryOrDeadLetter(NotificationMessage message, String error) {
+        int attempt = (message.getRetryCount() != null ? message.getRetryCount() : 0) + 1;
+        message.setLastError(error);
+        String key = message.getCorrelationId() != null ? message.getCorrelationId() : message.getMessageId();
+
+        if (attempt > maxRetryAttempts) {
+            send(deadLetterTopic, key, message);
+            log.error("Notification {} dead-lettered after {} retries: {}", message.getMessageId(),
+                    maxRetryAttempts, error);
+            return true;
+        }
+
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        message.setRetryCount(attempt);
+        message.setScheduledAt(LocalDateTime.now(KOLKATA_ZONE).plus(Duration.ofMillis(backoff)));
+        send(retryTopic, key, message);
+        log.warn("Notification {} failed, retry {}/{} in {} ms: {}", message.getMessageId(), attempt,
+                maxRetryAttempts, backoff, error);
+        return false;
+    }
+
+    /**
+     * Moves up to {@code limit} dead-lettered messages back to the
+     * notification topic with a fresh retry budget. Progress is committed for
+     * a replay consumer group, so each dead letter is replayed once.
+     *
+     * Every partition of the dead-letter topic is read from its committed
+     * offset up to the end offset taken when the replay starts; letters that
+     * arrive later are left for the next replay.
+     *
+     * @return the number of messages replayed
+     */
+    public synchronized int replayDeadLetters(int limit) {
+        if (limit < 1 || limit > MAX_REPLAY) {
+            throw new AuthException("Limit must be between 1 and %d".formatted(MAX_REPLAY));
+        }
+        int replayed = 0;
+        try (Consumer<String, NotificationMessage> consumer = notificationConsumerFactory
+                .createConsumer(groupId + REPLAY_GROUP_SUFFIX, "replay")) {
+            // assigned, not subscribed: no group join to wait for, and the end is known up front
+            List<PartitionInfo> infos = consumer.partitionsFor(deadLetterTopic);
+            if (infos == null || infos.isEmpty()) {
+                return 0;
+            }
+            List<TopicPartition> partitions = infos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+            Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata done = committed.get(partition);
+                consumer.seek(partition, done != null ? Math.max(done.offset(), beginning.get(partition))
+                        : beginning.get(partition));
+            }
+
+            // letters dead-lettered while this runs wait for the next replay
+            Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+            Set<TopicPartition> pending = new HashSet<>(partitions);
+            pending.removeIf(partition -> consumer.position(partition) >= end.get(partition));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(REPLAY_TIMEOUT_SECONDS);
+            while (replayed < limit && !pending.isEmpty() && System.nanoTime() < deadline) {
+                ConsumerRecords<String, NotificationMessage> records = consumer.poll(Duration.ofSeconds(1));
+
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (TopicPartition partition : records.partitions()) {
+                    long stop = end.get(partition);
+                    for (ConsumerRecord<String, NotificationMessage> record : records.records(partition)) {
+                        if (record.offset() >= stop) {
+                            pending.remove(partition);
+                            break;
+                        }
+                        if (replayed >= limit) {
+                            break;
+                        }
+                        NotificationMessage message = record.value();
+                        if (message != null) {
+                            message.setRetryCount(0);
+                            message.setScheduledAt(null);
+                            send(notificationTopic, record.key(), message);
+                            replayed++;
+                        }
+                        offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                        if (record.offset() + 1 >= stop) {
+                            pending.remove(partition);
+                        }
+                    }
+                }
+                if (!offsets.isEmpty()) {
+                    consumer.commitSync(offsets);
+                }
+            }
+        }
+        log.info("Replayed {} dead-lettered notifications", replayed);
+        return replayed;
+    }
+
+    private void send(String topic, String key, NotificationMessage message) {
+        try {
+            kafkaTemplate.send(topic, key, message).get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing notification " + message.getMessageId(), e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not publish notification " + message.getMessageId()
+                    + " to " + topic, e);
+        }
+    }
+}
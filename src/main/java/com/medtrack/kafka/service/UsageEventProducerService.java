@@ -0,0 +1,58 @@
+package com.medtrack.kafka.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.medtrack.events.MedicineUsageLoggedEvent;
+import com.medtrack.kafka.dto.UsageEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes every committed usage log to the usage event topic, keyed by user
+ * id. Logs of a rolled back transaction are never published.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UsageEventProducerService {
+
+    private final KafkaTemplate<String, UsageEvent> usageEventKafkaTemplate;
+
+    @Value("${medtrack.usage-events.topic:medicine-usage-events}")
+    private String topicName;
+
+    @Value("${medtrack.usage-events.enabled:true}")
+    private boolean enabled;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsageLogged(MedicineUsageLoggedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        UsageEvent usageEvent = UsageEvent.builder()
+                .logId(event.logId())
+                .userId(event.userId())
+                .healthProductId(event.healthProductId())
+                .taken(event.taken())
+                .occurredAt(event.createdAt().toLocalDateTime())
+                .build();
+
+        try {
+            usageEventKafkaTemplate.send(topicName, String.valueOf(event.userId()), usageEvent)
+                    .whenComplete((result, exception) -> {
+                        if (exception != null) {
+                            log.error("Failed to publish usage event for log {}: {}", event.logId(),
+                                    exception.getMessage());
+                        }
+                    });
+        } catch (Exception e) {
+            // the log is committed; a lost event only delays the live view
+            log.error("Error publishing usage event for log {}", event.logId(), e);
+        }
+    }
+}
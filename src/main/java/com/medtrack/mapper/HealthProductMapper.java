@@ -1,7 +1,10 @@
 package com.medtrack.mapper;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -10,8 +13,12 @@ import org.springframework.stereotype.Component;
 
 import com.medtrack.dto.HealthProductRequestDto;
 import com.medtrack.dto.HealthProductResponseDto;
+import com.medtrack.dto.ScheduleRuleDto;
 import com.medtrack.model.HealthProduct;
+import com.medtrack.model.ScheduleRule;
 import com.medtrack.model.User;
+import com.medtrack.scheduling.CompiledSchedule;
+import com.medtrack.utils.ReminderMinutes;
 
 /**
  * Mapper class for converting between HealthProduct entity and DTO
@@ -19,6 +26,9 @@ import com.medtrack.model.User;
 @Component
 public class HealthProductMapper {
 
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final int RUN_OUT_HORIZON_DAYS = 366;
+
     /*
      * Converts a HealthProduct entity to its HealthProductResponseDto
      * representation
@@ -28,12 +38,16 @@ public class HealthProductMapper {
             return null;
         }
 
-        List<String> reminderTimes = product.getMedicineReminders() != null ? product.getMedicineReminders().stream()
-                .map(reminder -> reminder.getTime().format(DateTimeFormatter.ofPattern("HH:mm")))
-                .collect(Collectors.toList()) : Collections.emptyList();
+        List<String> reminderTimes = ReminderMinutes.format(ownMinutes(product));
 
         LocalDateTime createdAt = product.getCreatedAt() != null ? product.getCreatedAt().toLocalDateTime() : null;
 
+        CompiledSchedule schedule = CompiledSchedule.of(product);
+        LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+        LocalDate runOut = product.getAvailableQuantity() != null
+                ? schedule.runOutDate(product.getAvailableQuantity(), now.toLocalDate(), RUN_OUT_HORIZON_DAYS)
+                : null;
+
         return new HealthProductResponseDto(
                 product.getId(),
                 product.getName(),
@@ -44,12 +58,93 @@ public class HealthProductMapper {
                 product.getUnit(),
                 product.getExpiryDate(),
                 reminderTimes,
+                toScheduleRuleDto(product.getScheduleRule(), schedule),
+                schedule.next(now),
+                runOut,
                 createdAt);
     }
 
+    /**
+     * The reminder times as the user gave them. For an interval rule the
+     * stored minutes are every minute of day a dose can fall on, so only its
+     * anchor is the user's.
+     */
+    public short[] ownMinutes(HealthProduct product) {
+        ScheduleRule rule = product.getScheduleRule();
+        if (rule != null && rule.getIntervalHours() != null && rule.getAnchorMinute() != null) {
+            return new short[] { rule.getAnchorMinute() };
+        }
+        return product.getReminderMinutes() != null ? product.getReminderMinutes() : ReminderMinutes.NONE;
+    }
+
+    /**
+     * Converts a requested dosing pattern to its embeddable form. Interval
+     * schedules are anchored at the first reminder time, or without times at
+     * the anchor of the existing rule; the start date defaults to the existing
+     * rule's, then to the given day. An empty pattern converts to none.
+     */
+    public ScheduleRule toScheduleRule(ScheduleRuleDto dto, short[] reminderMinutes, ScheduleRule existing,
+            LocalDate defaultStart) {
+        if (dto == null || dto.isEmpty()) {
+            return null;
+        }
+
+        Short anchorMinute = null;
+        if (dto.intervalHours() != null) {
+            anchorMinute = reminderMinutes.length > 0 ? Short.valueOf(reminderMinutes[0])
+                    : existing != null ? existing.getAnchorMinute() : null;
+        }
+        LocalDate startDate = dto.startDate() != null ? dto.startDate()
+                : existing != null && existing.getStartDate() != null ? existing.getStartDate() : defaultStart;
+
+        short daysOfWeekMask = 0;
+        if (dto.daysOfWeek() != null) {
+            for (DayOfWeek day : dto.daysOfWeek()) {
+                daysOfWeekMask |= (short) (1 << (day.getValue() - 1));
+            }
+        }
+
+        return ScheduleRule.builder()
+                .intervalHours(dto.intervalHours())
+                .anchorMinute(anchorMinute)
+                .daysOfWeekMask(daysOfWeekMask != 0 ? daysOfWeekMask : null)
+                .startDate(startDate)
+                .courseDays(dto.courseDays())
+                .taperStepDays(dto.taperStepDays())
+                .taperStepDose(dto.taperStepDose())
+                .build();
+    }
+
+    private ScheduleRuleDto toScheduleRuleDto(ScheduleRule rule, CompiledSchedule schedule) {
+        if (rule == null) {
+            return null;
+        }
+
+        List<DayOfWeek> daysOfWeek = new ArrayList<>();
+        if (rule.getDaysOfWeekMask() != null) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if ((rule.getDaysOfWeekMask() & (1 << (day.getValue() - 1))) != 0) {
+                    daysOfWeek.add(day);
+                }
+            }
+        }
+
+        return new ScheduleRuleDto(
+                rule.getIntervalHours(),
+                daysOfWeek,
+                rule.getIntervalHours() != null && rule.getAnchorMinute() != null
+                        ? ReminderMinutes.toTime(rule.getAnchorMinute())
+                        : null,
+                rule.getStartDate(),
+                rule.getCourseDays(),
+                rule.getTaperStepDays(),
+                rule.getTaperStepDose(),
+                schedule.endDate());
+    }
+
     /**
      * Converts a HealthProductRequestDto to its entity representation
-     * Note: User and MedicineReminders need to be set separately
+     * Note: User and reminder times need to be set separately
      */
     public HealthProduct toEntity(HealthProductRequestDto dto, User user) {
         if (dto == null) {
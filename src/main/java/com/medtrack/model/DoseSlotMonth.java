@@ -0,0 +1,74 @@
+package com.medtrack.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Which dose slots of a product were taken or missed, one row per product and
+ * month.
+ *
+ * Element {@code d - 1} of each array is day {@code d} of the month as a
+ * bitset: bit {@code i} is the product's {@code i}-th daily reminder time, or
+ * the hour of day for products without reminder times. A slot is either taken
+ * or missed, and a taken log wins over a missed one. Slots without a log have
+ * neither bit. A year of a product is twelve small rows, and adherence over a
+ * range is a popcount per day instead of a count over log rows; the logs stay
+ * the record of every individual dose.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(DoseSlotMonth.Key.class)
+@Table(name = "dose_slot_month", indexes = @Index(name = "idx_dose_slot_user_month", columnList = "user_id, month_start"))
+public class DoseSlotMonth {
+
+    public static final int DAYS = 31;
+
+    @Id
+    @Column(name = "health_product_id")
+    private Long healthProductId;
+
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(columnDefinition = "bigint[] NOT NULL")
+    private long[] taken;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(columnDefinition = "bigint[] NOT NULL")
+    private long[] missed;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long healthProductId;
+        private LocalDate monthStart;
+    }
+}
@@ -2,19 +2,24 @@ package com.medtrack.model;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
-import java.util.Set;
 
-import jakarta.persistence.CascadeType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import com.medtrack.utils.ReminderMinutes;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -28,7 +33,7 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "health_product")
+@Table(name = "health_product", indexes = @Index(name = "idx_health_product_updated_at", columnList = "updated_at"))
 public class HealthProduct {
 
     @Id
@@ -47,15 +52,35 @@ public class HealthProduct {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "healthProduct")
-    private Set<MedicineReminder> medicineReminders = new java.util.HashSet<>();
+    // Sorted minutes of day a dose can fall on; replaces the medicine_reminder rows
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "reminder_minutes", columnDefinition = "smallint[] NOT NULL DEFAULT '{}'")
+    @Builder.Default
+    private short[] reminderMinutes = ReminderMinutes.NONE;
+
+    @Embedded
+    private ScheduleRule scheduleRule;
 
     @Column(nullable = false, updatable = false)
     private Timestamp createdAt;
 
+    // Last insert or entity update; other nodes pick up schedule changes by it
+    @Column(name = "updated_at")
+    private Timestamp updatedAt;
+
     @PrePersist
     public void onPrePersist() {
         this.createdAt = new Timestamp(System.currentTimeMillis());
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    public void onPreUpdate() {
+        this.updatedAt = new Timestamp(System.currentTimeMillis());
+    }
+
+    public int reminderCount() {
+        return ReminderMinutes.count(reminderMinutes);
     }
 
 }
@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -24,7 +25,9 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "medicine_usage_log")
+@Table(name = "medicine_usage_log", indexes = {
+        @Index(name = "idx_usage_log_product_created", columnList = "health_product_id, created_at"),
+        @Index(name = "idx_usage_log_user_created", columnList = "user_id, created_at") })
 public class MedicineUsageLog {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
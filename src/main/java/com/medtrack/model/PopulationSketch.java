@@ -0,0 +1,48 @@
+package com.medtrack.model;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Population summary of one day: the users with a log that day, exactly and
+ * as a HyperLogLog sketch for distinct counts over ranges, and the histogram
+ * of their daily adherence. About 4.5 KB per day however many users log.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "population_sketch")
+public class PopulationSketch {
+
+    @Id
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private Integer activeUsers;
+
+    @Column(nullable = false)
+    private byte[] usersSketch;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(columnDefinition = "integer[] NOT NULL")
+    private int[] adherenceHistogram;
+
+    @Column(nullable = false)
+    private Timestamp computedAt;
+}
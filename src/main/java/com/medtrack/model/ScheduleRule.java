@@ -0,0 +1,52 @@
+package com.medtrack.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Dosing pattern beyond "the same times every day", stored on the product row.
+ *
+ * Either a fixed interval ("every 8 hours" from the anchor minute on the start
+ * date) or the product's daily reminder minutes restricted to some weekdays.
+ * Both can be limited to a course length and combined with a taper that lowers
+ * the dose in steps until it reaches zero. A product without a rule takes its
+ * reminder minutes every day, indefinitely.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class ScheduleRule {
+
+    @Column(name = "schedule_interval_hours")
+    private Integer intervalHours;
+
+    // Minute of day of the first interval dose on the start date
+    @Column(name = "schedule_anchor_minute")
+    private Short anchorMinute;
+
+    // Bit 0 = Monday ... bit 6 = Sunday; null means every day
+    @Column(name = "schedule_days_of_week")
+    private Short daysOfWeekMask;
+
+    @Column(name = "schedule_start_date")
+    private LocalDate startDate;
+
+    @Column(name = "schedule_course_days")
+    private Integer courseDays;
+
+    @Column(name = "schedule_taper_step_days")
+    private Integer taperStepDays;
+
+    @Column(name = "schedule_taper_step_dose")
+    private Float taperStepDose;
+}
@@ -0,0 +1,37 @@
+package com.medtrack.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Progress marker of a background job that walks through time: the last slot
+ * it has fully processed. Jobs resume from here after a restart.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "scheduler_watermark")
+public class SchedulerWatermark {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime processedUntil;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package com.medtrack.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Taken and missed counts of one product on one day, kept up to date with
+ * every usage log so that range statistics sum a row per day instead of
+ * loading every log.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(UsageDailyRollup.Key.class)
+@Table(name = "usage_daily_rollup", indexes = {
+        @Index(name = "idx_usage_rollup_user_day", columnList = "user_id, day"),
+        @Index(name = "idx_usage_rollup_day", columnList = "day") })
+public class UsageDailyRollup {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "health_product_id")
+    private Long healthProductId;
+
+    @Id
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private Integer taken;
+
+    @Column(nullable = false)
+    private Integer missed;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long healthProductId;
+        private LocalDate day;
+    }
+}
@@ -40,6 +40,10 @@ public class User {
     @Column(nullable = false, updatable = false)
     private Timestamp createdAt;
 
+    // Secret in the calendar feed URL; rotating it revokes old subscriptions
+    @Column(unique = true, length = 64)
+    private String calendarToken;
+
     @PrePersist
     public void onPrePersist() {
         if (this.createdAt == null) {
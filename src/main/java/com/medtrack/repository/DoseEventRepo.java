@@ -0,0 +1,147 @@
+package com.medtrack.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records a dose as one statement: the usage log, the stock decrement, the
+ * daily rollup and the dose slot bit are data-modifying CTEs over the product
+ * row locked by the first one, so concurrent doses of a product serialize on that row and stock
+ * is never decremented without its log or twice for one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DoseEventRepo {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    /**
+     * The dose statement, with the parameters built by {@link #record}. The
+     * dose of the day follows the taper rule like CompiledSchedule.doseOn, and
+     * the slot bit is set like UsageLogBatchRepo.markSlots.
+     */
+    public static final String RECORD = """
+            WITH target AS (
+                SELECT hp.id, hp.name, hp.unit, hp.expiry_date, hp.threshold_quantity, hp.reminder_minutes,
+                       COALESCE(hp.available_quantity, 0) AS available,
+                       u.id AS user_id, u.email, u.fullname,
+                       CASE WHEN hp.schedule_taper_step_days > 0 AND hp.schedule_taper_step_dose > 0
+                            THEN GREATEST(0, COALESCE(hp.dose_quantity, 0)
+                                 - (GREATEST(0, CAST(:day AS date)
+                                                - COALESCE(hp.schedule_start_date, CAST(:day AS date)))
+                                    / hp.schedule_taper_step_days) * hp.schedule_taper_step_dose)
+                            ELSE COALESCE(hp.dose_quantity, 0)
+                       END AS dose
+                FROM health_product hp JOIN users u ON u.id = hp.user_id
+                WHERE hp.id = :healthProductId AND hp.user_id = :userId
+                FOR UPDATE OF hp
+            ),
+            accepted AS (
+                SELECT * FROM target WHERE NOT :taken OR available >= dose
+            ),
+            stock AS (
+                UPDATE health_product hp
+                SET available_quantity = GREATEST(0, a.available - a.dose)
+                FROM accepted a
+                WHERE hp.id = a.id AND :taken
+                RETURNING hp.available_quantity
+            ),
+            log AS (
+                INSERT INTO medicine_usage_log (id, user_id, health_product_id, is_taken, created_at)
+                SELECT :logId, a.user_id, a.id, :taken, :createdAt FROM accepted a
+                RETURNING id
+            ),
+            rollup AS (
+                INSERT INTO usage_daily_rollup (user_id, health_product_id, day, taken, missed)
+                SELECT a.user_id, a.id, CAST(:day AS date),
+                       CASE WHEN :taken THEN 1 ELSE 0 END, CASE WHEN :taken THEN 0 ELSE 1 END
+                FROM accepted a
+                ON CONFLICT (user_id, health_product_id, day) DO UPDATE
+                SET taken = usage_daily_rollup.taken + EXCLUDED.taken,
+                    missed = usage_daily_rollup.missed + EXCLUDED.missed
+            ),
+            slot AS (
+                INSERT INTO dose_slot_month (health_product_id, month_start, user_id, taken, missed)
+                SELECT a.id, CAST(:monthStart AS date), a.user_id,
+                       CASE WHEN :taken THEN bits.month ELSE array_fill(0::bigint, ARRAY[31]) END,
+                       CASE WHEN :taken THEN array_fill(0::bigint, ARRAY[31]) ELSE bits.month END
+                FROM accepted a
+                CROSS JOIN LATERAL (
+                    SELECT array_agg(CASE WHEN g = :dayOfMonth
+                                          THEN 1::bigint << LEAST(63, COALESCE((
+                                                   SELECT m.i::int - 1
+                                                   FROM unnest(a.reminder_minutes) WITH ORDINALITY AS m(minute, i)
+                                                   ORDER BY abs(m.minute - :minute), m.i
+                                                   LIMIT 1), :hour))
+                                          ELSE 0 END ORDER BY g) AS month
+                    FROM generate_series(1, 31) g
+                ) bits
+                ON CONFLICT (health_product_id, month_start) DO UPDATE
+                SET taken[:dayOfMonth] = dose_slot_month.taken[:dayOfMonth] | EXCLUDED.taken[:dayOfMonth],
+                    missed[:dayOfMonth] = (dose_slot_month.missed[:dayOfMonth] | EXCLUDED.missed[:dayOfMonth])
+                                          & ~(dose_slot_month.taken[:dayOfMonth] | EXCLUDED.taken[:dayOfMonth])
+            )
+            SELECT t.id, t.name, t.unit, t.expiry_date, t.user_id, t.email, t.fullname, t.dose,
+                   t.threshold_quantity, t.available AS available_before,
+                   COALESCE((SELECT available_quantity FROM stock), t.available) AS available_after,
+                   EXISTS (SELECT 1 FROM log) AS logged
+            FROM target t""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * State of the product around one dose event. {@code logged} is false when
+     * a taken dose exceeded the available stock, in which case nothing was
+     * written.
+     */
+    public record DoseOutcome(long healthProductId, String name, String unit, LocalDate expiryDate,
+            long userId, String userEmail, String userName,
+            float dose, Float thresholdQuantity, float availableBefore, float availableAfter, boolean logged) {
+    }
+
+    /**
+     * Writes a dose of the given product for its owner
+     *
+     * @return the outcome, or null if the product does not exist or belongs to
+     *         another user
+     */
+    public DoseOutcome record(long logId, long userId, long healthProductId, boolean taken, Timestamp createdAt) {
+        LocalDateTime time = createdAt.toInstant().atZone(KOLKATA_ZONE).toLocalDateTime();
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("logId", logId)
+                .addValue("userId", userId)
+                .addValue("healthProductId", healthProductId)
+                .addValue("taken", taken)
+                .addValue("createdAt", createdAt)
+                .addValue("day", time.toLocalDate())
+                .addValue("monthStart", time.toLocalDate().withDayOfMonth(1))
+                .addValue("dayOfMonth", time.getDayOfMonth())
+                .addValue("minute", time.getHour() * 60 + time.getMinute())
+                .addValue("hour", time.getHour());
+
+        List<DoseOutcome> outcome = jdbcTemplate.query(RECORD, parameters,
+                (rs, row) -> new DoseOutcome(
+                        rs.getLong("id"),
+                        rs.getString("name"),
+                        rs.getString("unit"),
+                        rs.getObject("expiry_date", LocalDate.class),
+                        rs.getLong("user_id"),
+                        rs.getString("email"),
+                        rs.getString("fullname"),
+                        rs.getFloat("dose"),
+                        rs.getObject("threshold_quantity", Float.class),
+                        rs.getFloat("available_before"),
+                        rs.getFloat("available_after"),
+                        rs.getBoolean("logged")));
+        return outcome.isEmpty() ? null : outcome.get(0);
+    }
+}
@@ -0,0 +1,15 @@
+package com.medtrack.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.medtrack.model.DoseSlotMonth;
+
+@Repository
+public interface DoseSlotMonthRepo extends JpaRepository<DoseSlotMonth, DoseSlotMonth.Key> {
+
+        List<DoseSlotMonth> findByUserIdAndMonthStartBetween(Long userId, LocalDate firstMonth, LocalDate lastMonth);
+}
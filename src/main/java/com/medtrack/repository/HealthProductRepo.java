@@ -1,7 +1,10 @@
 package com.medtrack.repository;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -10,14 +13,67 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.medtrack.model.HealthProduct;
+import com.medtrack.model.ScheduleRule;
+import com.medtrack.scheduling.ReminderTarget;
 
 import jakarta.transaction.Transactional;
 
 @Repository
 public interface HealthProductRepo extends JpaRepository<HealthProduct, Long> {
 
+        interface ProductSchedule {
+                Long getHealthProductId();
+
+                Long getUserId();
+
+                short[] getReminderMinutes();
+
+                ScheduleRule getScheduleRule();
+
+                Float getDoseQuantity();
+        }
+
+        interface LogTarget {
+                Long getUserId();
+
+                Long getHealthProductId();
+
+                Float getTotalQuantity();
+
+                Float getDoseQuantity();
+        }
+
+        interface ProductOwner {
+                Long getHealthProductId();
+
+                String getEmail();
+        }
+
+        interface MonthCount {
+                String getMonth();
+
+                Long getCount();
+        }
+
         List<HealthProduct> findByUserId(Long userId);
 
+        // Products of all users not expired before the given day, by expiry month
+        @Query(value = "SELECT to_char(expiry_date, 'YYYY-MM') AS \"month\", count(*) AS \"count\" " +
+                        "FROM health_product WHERE expiry_date >= :from " +
+                        "GROUP BY 1 ORDER BY 1", nativeQuery = true)
+        List<MonthCount> countByExpiryMonthFrom(@Param("from") LocalDate from);
+
+        @Query("SELECT COUNT(hp) FROM HealthProduct hp WHERE hp.expiryDate < :today")
+        long countExpiredBefore(@Param("today") LocalDate today);
+
+        // The user, and the product only if it belongs to that user, in one primary-key probe each
+        @Query("SELECT u.id AS userId, hp.id AS healthProductId, hp.totalQuantity AS totalQuantity, " +
+                        "hp.doseQuantity AS doseQuantity " +
+                        "FROM User u LEFT JOIN HealthProduct hp ON hp.id = :healthProductId AND hp.user = u " +
+                        "WHERE u.id = :userId")
+        Optional<LogTarget> findLogTarget(@Param("userId") Long userId,
+                        @Param("healthProductId") Long healthProductId);
+
         // Find all products with quantity > 0 and not expired
         List<HealthProduct> findAllByUserIdAndAvailableQuantityGreaterThanAndExpiryDateAfter(Long userId,
                         Float quantity,
@@ -32,6 +88,60 @@ public interface HealthProductRepo extends JpaRepository<HealthProduct, Long> {
                         @Param("userId") Long userId,
                         @Param("expiryDate") LocalDate expiryDate);
 
+        // Notification details for a batch of due products, skipping expired ones
+        @Query("SELECT new com.medtrack.scheduling.ReminderTarget(hp.id, hp.name, hp.doseQuantity, hp.unit, " +
+                        "u.id, u.email, u.fullname) " +
+                        "FROM HealthProduct hp JOIN hp.user u " +
+                        "WHERE hp.id IN :ids AND hp.expiryDate >= :today")
+        List<ReminderTarget> findReminderTargets(@Param("ids") Collection<Long> ids,
+                        @Param("today") LocalDate today);
+
+        // Schedule of every product, used to build the in-memory reminder wheel at startup
+        @Query("SELECT hp.id AS healthProductId, hp.user.id AS userId, hp.reminderMinutes AS reminderMinutes, " +
+                        "hp.scheduleRule AS scheduleRule, hp.doseQuantity AS doseQuantity " +
+                        "FROM HealthProduct hp")
+        List<ProductSchedule> findAllSchedules();
+
+        // Schedules of the products created or edited since the given time, to refresh the wheel
+        @Query("SELECT hp.id AS healthProductId, hp.user.id AS userId, hp.reminderMinutes AS reminderMinutes, " +
+                        "hp.scheduleRule AS scheduleRule, hp.doseQuantity AS doseQuantity " +
+                        "FROM HealthProduct hp WHERE hp.updatedAt > :since")
+        List<ProductSchedule> findSchedulesUpdatedSince(@Param("since") Timestamp since);
+
+        // Products that can be due at the given minute of day with no usage log in the window
+        // around it, for every user in the given scheduler buckets at once.
+        // array_contains is rendered as @> on Postgres and served by the GIN index.
+        // Products created after the slot are not yet due.
+        @Query("SELECT new com.medtrack.scheduling.ReminderTarget(hp.id, hp.name, hp.doseQuantity, hp.unit, " +
+                        "u.id, u.email, u.fullname) " +
+                        "FROM HealthProduct hp JOIN hp.user u " +
+                        "WHERE array_contains(hp.reminderMinutes, :minute) " +
+                        "AND MOD(u.id, :bucketCount) IN :buckets " +
+                        "AND hp.expiryDate >= :slotDate " +
+                        "AND hp.createdAt <= :slotStart " +
+                        "AND NOT EXISTS (SELECT 1 FROM MedicineUsageLog l WHERE l.healthProduct = hp " +
+                        "AND l.createdAt >= :windowStart AND l.createdAt < :windowEnd)")
+        List<ReminderTarget> findMissedReminderTargets(@Param("minute") short minute,
+                        @Param("slotDate") LocalDate slotDate,
+                        @Param("slotStart") Timestamp slotStart,
+                        @Param("windowStart") Timestamp windowStart,
+                        @Param("windowEnd") Timestamp windowEnd,
+                        @Param("bucketCount") long bucketCount,
+                        @Param("buckets") Collection<Integer> buckets);
+
+        // Products expiring on the given date for users in the given scheduler buckets
+        @Query("SELECT hp FROM HealthProduct hp JOIN FETCH hp.user u " +
+                        "WHERE hp.expiryDate = :expiryDate " +
+                        "AND MOD(u.id, :bucketCount) IN :buckets")
+        List<HealthProduct> findExpiringInBuckets(@Param("expiryDate") LocalDate expiryDate,
+                        @Param("bucketCount") long bucketCount,
+                        @Param("buckets") Collection<Integer> buckets);
+
+        // The current owner's email of each product that still exists and has an owner
+        @Query("SELECT hp.id AS healthProductId, u.email AS email " +
+                        "FROM HealthProduct hp JOIN hp.user u WHERE hp.id IN :ids")
+        List<ProductOwner> findOwnerEmails(@Param("ids") Collection<Long> ids);
+
         @Modifying
         @Transactional
         @Query("UPDATE HealthProduct hp SET hp.availableQuantity  = :newAvailableQuantity  WHERE hp.id = :healthProductId")
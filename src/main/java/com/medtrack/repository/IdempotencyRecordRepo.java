@@ -0,0 +1,38 @@
+package com.medtrack.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.medtrack.model.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepo extends JpaRepository<IdempotencyRecord, String> {
+
+        // Claims a key, taking over a row that expired but was not cleaned up yet; waits for a
+        // concurrent claim of the same key and returns 0 if it committed
+        @Modifying
+        @Query(value = "INSERT INTO idempotency_key (id, fingerprint, created_at) VALUES (:id, :fingerprint, :createdAt) " +
+                        "ON CONFLICT (id) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, " +
+                        "created_at = EXCLUDED.created_at, status = NULL, body = NULL " +
+                        "WHERE idempotency_key.created_at <= :expiredBefore", nativeQuery = true)
+        int claim(@Param("id") String id, @Param("fingerprint") String fingerprint,
+                        @Param("createdAt") LocalDateTime createdAt,
+                        @Param("expiredBefore") LocalDateTime expiredBefore);
+
+        @Modifying
+        @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.body = :body WHERE r.id = :id")
+        void complete(@Param("id") String id, @Param("status") int status, @Param("body") String body);
+
+        @Query("SELECT r FROM IdempotencyRecord r WHERE r.id = :id AND r.createdAt > :since")
+        Optional<IdempotencyRecord> findLive(@Param("id") String id, @Param("since") LocalDateTime since);
+
+        @Modifying
+        @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt <= :before")
+        int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -1,10 +1,21 @@
 package com.medtrack.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.medtrack.model.MedicineReminder;
 
+/**
+ * Legacy per-time reminder rows, only read by the startup migration into
+ * {@code health_product.reminder_minutes}, and deleted with their product
+ */
 @Repository
 public interface MedicineReminderRepo extends JpaRepository<MedicineReminder, Long> {
+
+    @Modifying
+    @Query("DELETE FROM MedicineReminder r WHERE r.healthProduct.id = :healthProductId")
+    int deleteByHealthProductId(@Param("healthProductId") Long healthProductId);
 }
@@ -1,6 +1,6 @@
 package com.medtrack.repository;
 
-import java.time.LocalDateTime;
+import java.sql.Timestamp;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,14 +9,66 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.medtrack.model.MedicineUsageLog;
+import com.medtrack.model.ScheduleRule;
 
 @Repository
 public interface MedicineUsageLogRepo extends JpaRepository<MedicineUsageLog, Long> {
 
-        @Query("SELECT p FROM MedicineUsageLog p WHERE p.user.id = :userId AND p.createdAt > :date")
-        List<MedicineUsageLog> findAllByUserIdAndCreatedAtIsAfter(@Param("userId") Long userId,
-                        @Param("date") LocalDateTime date);
+        interface ProductUsage {
+                Long getHealthProductId();
 
-        List<MedicineUsageLog> findAllByUserIdAndCreatedAtBetween(Long id, LocalDateTime startOfDay,
-                        LocalDateTime endOfDay);
-}
\ No newline at end of file
+                String getHealthProductName();
+
+                short[] getReminderMinutes();
+
+                ScheduleRule getScheduleRule();
+
+                Float getDoseQuantity();
+
+                Long getTakenCount();
+        }
+
+        interface HourTotals {
+                Integer getDayOfWeek();
+
+                Integer getHour();
+
+                Long getTaken();
+
+                Long getMissed();
+        }
+
+        // Every product of the user with its schedule and the doses taken in the window,
+        // including products without logs. Grouping by the primary key is enough for
+        // the other product columns on Postgres.
+        @Query("SELECT hp.id AS healthProductId, hp.name AS healthProductName, " +
+                        "hp.reminderMinutes AS reminderMinutes, hp.scheduleRule AS scheduleRule, " +
+                        "hp.doseQuantity AS doseQuantity, " +
+                        "COUNT(l) FILTER (WHERE l.isTaken = true) AS takenCount " +
+                        "FROM HealthProduct hp LEFT JOIN MedicineUsageLog l ON l.healthProduct = hp " +
+                        "AND l.createdAt >= :start AND l.createdAt < :end " +
+                        "WHERE hp.user.id = :userId " +
+                        "GROUP BY hp.id " +
+                        "ORDER BY hp.id")
+        List<ProductUsage> findProductUsage(@Param("userId") Long userId,
+                        @Param("start") Timestamp start,
+                        @Param("end") Timestamp end);
+
+        // Doses of a user in [from, until) by ISO weekday (Monday = 0) and hour in Asia/Kolkata.
+        // created_at holds the wall time of hostZone, the zone it was written in; the
+        // bounds stay on the bare column so partitions are still pruned.
+        String FIND_HOUR_TOTALS = "SELECT CAST(extract(isodow FROM l.local_time) AS int) - 1 AS \"dayOfWeek\", " +
+                        "CAST(extract(hour FROM l.local_time) AS int) AS \"hour\", " +
+                        "count(*) FILTER (WHERE l.is_taken) AS \"taken\", " +
+                        "count(*) FILTER (WHERE l.is_taken IS NOT TRUE) AS \"missed\" " +
+                        "FROM (SELECT (created_at AT TIME ZONE :hostZone) AT TIME ZONE 'Asia/Kolkata' AS local_time, " +
+                        "is_taken FROM medicine_usage_log " +
+                        "WHERE user_id = :userId AND created_at >= :from AND created_at < :until) l " +
+                        "GROUP BY 1, 2";
+
+        @Query(value = FIND_HOUR_TOTALS, nativeQuery = true)
+        List<HourTotals> findHourTotals(@Param("userId") Long userId,
+                        @Param("from") Timestamp from,
+                        @Param("until") Timestamp until,
+                        @Param("hostZone") String hostZone);
+}
@@ -0,0 +1,20 @@
+package com.medtrack.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.medtrack.model.PopulationSketch;
+
+@Repository
+public interface PopulationSketchRepo extends JpaRepository<PopulationSketch, LocalDate> {
+
+        List<PopulationSketch> findByDayBetweenOrderByDay(LocalDate from, LocalDate to);
+
+        @Query("SELECT s.day FROM PopulationSketch s WHERE s.day BETWEEN :from AND :to")
+        List<LocalDate> findDaysBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,98 @@
+package com.medtrack.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Lease table for scheduler bucket ownership, written with plain SQL because
+ * every statement is a conditional claim or renewal evaluated against the
+ * database clock.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduleLeaseRepo {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createTablesIfMissing(int bucketCount) {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS schedule_node (
+                    node_id      varchar(200) PRIMARY KEY,
+                    heartbeat_at timestamptz  NOT NULL
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS schedule_bucket_lease (
+                    bucket     integer      PRIMARY KEY,
+                    owner      varchar(200),
+                    expires_at timestamptz  NOT NULL DEFAULT now()
+                )""");
+        jdbcTemplate.update("""
+                INSERT INTO schedule_bucket_lease (bucket)
+                SELECT generate_series(0, ? - 1)
+                ON CONFLICT (bucket) DO NOTHING""", bucketCount);
+    }
+
+    public void heartbeat(String nodeId) {
+        jdbcTemplate.update("""
+                INSERT INTO schedule_node (node_id, heartbeat_at) VALUES (?, now())
+                ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now()""", nodeId);
+    }
+
+    public int countLiveNodes(long liveWithinMillis) {
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM schedule_node
+                WHERE heartbeat_at > now() - make_interval(secs => ? / 1000.0)""", Integer.class, liveWithinMillis);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Extends every lease held by the node
+     *
+     * @return the buckets still held
+     */
+    public List<Integer> renew(String nodeId, long ttlMillis, int bucketCount) {
+        return jdbcTemplate.queryForList("""
+                UPDATE schedule_bucket_lease
+                SET expires_at = now() + make_interval(secs => ? / 1000.0)
+                WHERE owner = ? AND bucket < ?
+                RETURNING bucket""", Integer.class, ttlMillis, nodeId, bucketCount);
+    }
+
+    /**
+     * Takes up to {@code limit} buckets that are unowned or whose lease has
+     * expired. Rows being claimed by another node at the same moment are skipped
+     * rather than waited on.
+     */
+    @Transactional
+    public List<Integer> claim(String nodeId, long ttlMillis, int bucketCount, int limit) {
+        return jdbcTemplate.queryForList("""
+                UPDATE schedule_bucket_lease
+                SET owner = ?, expires_at = now() + make_interval(secs => ? / 1000.0)
+                WHERE bucket IN (
+                    SELECT bucket FROM schedule_bucket_lease
+                    WHERE bucket < ? AND (owner IS NULL OR expires_at < now())
+                    ORDER BY bucket
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING bucket""", Integer.class, nodeId, ttlMillis, bucketCount, limit);
+    }
+
+    public void release(String nodeId, List<Integer> buckets) {
+        for (Integer bucket : buckets) {
+            jdbcTemplate.update("""
+                    UPDATE schedule_bucket_lease SET owner = NULL, expires_at = now()
+                    WHERE bucket = ? AND owner = ?""", bucket, nodeId);
+        }
+    }
+
+    public void releaseAll(String nodeId) {
+        jdbcTemplate.update("UPDATE schedule_bucket_lease SET owner = NULL, expires_at = now() WHERE owner = ?",
+                nodeId);
+        jdbcTemplate.update("DELETE FROM schedule_node WHERE node_id = ?", nodeId);
+    }
+}
@@ -0,0 +1,80 @@
+package com.medtrack.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Due-queue of notifications scheduled for later delivery. Rows are claimed
+ * by deleting them under {@code FOR UPDATE SKIP LOCKED}, so any number of
+ * workers on any number of instances take disjoint batches without waiting
+ * on each other, and a claim rolled back puts its rows back in the queue.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduledNotificationRepo {
+
+    public record Due(String payload, LocalDateTime dueAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createTableIfMissing() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS scheduled_notification (
+                    message_id  varchar(100) PRIMARY KEY,
+                    due_at      timestamp    NOT NULL,
+                    payload     jsonb        NOT NULL,
+                    enqueued_at timestamptz  NOT NULL DEFAULT now()
+                )""");
+        jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_scheduled_notification_due
+                ON scheduled_notification (due_at)""");
+    }
+
+    /**
+     * Queues a message; a redelivered message with the same id is ignored
+     */
+    public boolean enqueue(String messageId, LocalDateTime dueAt, String payload) {
+        return jdbcTemplate.update("""
+                INSERT INTO scheduled_notification (message_id, due_at, payload)
+                VALUES (?, ?, ?::jsonb)
+                ON CONFLICT (message_id) DO NOTHING""", messageId, Timestamp.valueOf(dueAt), payload) > 0;
+    }
+
+    /**
+     * Removes and returns up to {@code limit} messages due at {@code now},
+     * earliest first, skipping rows claimed by other workers. Must run in a
+     * transaction that commits only after the messages are handed on.
+     */
+    public List<Due> claimDue(LocalDateTime now, int limit) {
+        return jdbcTemplate.query("""
+                WITH due AS (
+                    SELECT message_id FROM scheduled_notification
+                    WHERE due_at <= ?
+                    ORDER BY due_at
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                )
+                DELETE FROM scheduled_notification s
+                USING due
+                WHERE s.message_id = due.message_id
+                RETURNING s.payload::text AS payload, s.due_at""",
+                (rs, rowNum) -> new Due(rs.getString("payload"), rs.getTimestamp("due_at").toLocalDateTime()),
+                Timestamp.valueOf(now), limit);
+    }
+
+    /**
+     * Due time of the earliest queued message, null when the queue is empty
+     */
+    public LocalDateTime nextDueAt() {
+        Timestamp next = jdbcTemplate.queryForObject("SELECT min(due_at) FROM scheduled_notification",
+                Timestamp.class);
+        return next != null ? next.toLocalDateTime() : null;
+    }
+}
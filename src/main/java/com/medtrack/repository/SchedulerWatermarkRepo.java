@@ -0,0 +1,10 @@
+package com.medtrack.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.medtrack.model.SchedulerWatermark;
+
+@Repository
+public interface SchedulerWatermarkRepo extends JpaRepository<SchedulerWatermark, String> {
+}
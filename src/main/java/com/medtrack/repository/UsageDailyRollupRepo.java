@@ -0,0 +1,54 @@
+package com.medtrack.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.medtrack.dto.MedicineUsageSummaryDto;
+import com.medtrack.model.UsageDailyRollup;
+
+@Repository
+public interface UsageDailyRollupRepo extends JpaRepository<UsageDailyRollup, UsageDailyRollup.Key> {
+
+        interface DayTotals {
+                LocalDate getDay();
+
+                Long getTaken();
+
+                Long getMissed();
+        }
+
+        // Adds one log to its day, creating the row on the first log of the day
+        @Modifying
+        @Query(value = "INSERT INTO usage_daily_rollup (user_id, health_product_id, day, taken, missed) " +
+                        "VALUES (:userId, :healthProductId, :day, :taken, :missed) " +
+                        "ON CONFLICT (user_id, health_product_id, day) DO UPDATE " +
+                        "SET taken = usage_daily_rollup.taken + EXCLUDED.taken, " +
+                        "missed = usage_daily_rollup.missed + EXCLUDED.missed", nativeQuery = true)
+        void increment(@Param("userId") Long userId,
+                        @Param("healthProductId") Long healthProductId,
+                        @Param("day") LocalDate day,
+                        @Param("taken") int taken,
+                        @Param("missed") int missed);
+
+        // Per-product totals from the given day on
+        @Query("SELECT new com.medtrack.dto.MedicineUsageSummaryDto(hp.id, hp.name, SUM(r.taken), SUM(r.missed)) " +
+                        "FROM UsageDailyRollup r JOIN HealthProduct hp ON hp.id = r.healthProductId " +
+                        "WHERE r.userId = :userId AND r.day >= :from " +
+                        "GROUP BY hp.id, hp.name")
+        List<MedicineUsageSummaryDto> summarizeFrom(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+        // Totals over all products per day in [from, until)
+        @Query("SELECT r.day AS day, SUM(r.taken) AS taken, SUM(r.missed) AS missed " +
+                        "FROM UsageDailyRollup r " +
+                        "WHERE r.userId = :userId AND r.day >= :from AND r.day < :until " +
+                        "GROUP BY r.day")
+        List<DayTotals> findDailyTotals(@Param("userId") Long userId,
+                        @Param("from") LocalDate from,
+                        @Param("until") LocalDate until);
+}
@@ -0,0 +1,172 @@
+package com.medtrack.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Multi-row writes of usage logs, their rollup increments and dose slot bits
+ * as JDBC batches, used by buffered ingestion and shared with the single-log
+ * paths.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UsageLogBatchRepo {
+
+    private static final String SEQUENCE = "medicine_usage_log_seq";
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    /**
+     * Slot bit upsert of one log, with the parameters built by
+     * {@link #markSlots}
+     */
+    public static final String MARK_SLOT = """
+            WITH slot AS (
+                SELECT 1::bigint << LEAST(63, COALESCE((
+                           SELECT m.i::int - 1
+                           FROM unnest(hp.reminder_minutes) WITH ORDINALITY AS m(minute, i)
+                           ORDER BY abs(m.minute - :minute), m.i
+                           LIMIT 1), :hour)) AS bit
+                FROM health_product hp
+                WHERE hp.id = :healthProductId
+            ), month AS (
+                SELECT array_agg(CASE WHEN g = :day THEN slot.bit ELSE 0 END ORDER BY g) AS bits
+                FROM slot, generate_series(1, 31) g
+            )
+            INSERT INTO dose_slot_month (health_product_id, month_start, user_id, taken, missed)
+            SELECT :healthProductId, :monthStart, :userId,
+                   CASE WHEN :taken THEN month.bits ELSE array_fill(0::bigint, ARRAY[31]) END,
+                   CASE WHEN :taken THEN array_fill(0::bigint, ARRAY[31]) ELSE month.bits END
+            FROM month
+            ON CONFLICT (health_product_id, month_start) DO UPDATE
+            SET taken[:day] = dose_slot_month.taken[:day] | EXCLUDED.taken[:day],
+                missed[:day] = (dose_slot_month.missed[:day] | EXCLUDED.missed[:day])
+                               & ~(dose_slot_month.taken[:day] | EXCLUDED.taken[:day])""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private volatile int sequenceIncrement;
+
+    // unused ids of the last reserved block
+    private long nextId;
+    private long blockEnd = -1;
+
+    public record LogRow(long id, long userId, long healthProductId, boolean taken, Timestamp createdAt) {
+    }
+
+    public record RollupDelta(long userId, long healthProductId, LocalDate day, int taken, int missed) {
+    }
+
+    /**
+     * Reserves ids from the entity's sequence the way Hibernate's pooled
+     * optimizer does: a sequence value v stands for the block
+     * (v - increment, v], so ids taken here never collide with ids handed out
+     * by Hibernate. Ids left in a block serve later calls.
+     */
+    public synchronized long[] reserveIds(int count) {
+        long[] ids = new long[count];
+        for (int filled = 0; filled < count; filled++) {
+            if (nextId > blockEnd) {
+                reserveBlock();
+            }
+            ids[filled] = nextId++;
+        }
+        return ids;
+    }
+
+    private void reserveBlock() {
+        int increment = sequenceIncrement();
+        Long hi = null;
+        // Hibernate treats a first value below the increment as the start of its own block
+        while (hi == null || hi < increment) {
+            hi = jdbcTemplate.queryForObject("SELECT nextval(?)", Long.class, SEQUENCE);
+        }
+        nextId = hi - increment + 1;
+        blockEnd = hi;
+    }
+
+    public void insertLogs(List<LogRow> rows) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO medicine_usage_log (id, user_id, health_product_id, is_taken, created_at)
+                VALUES (?, ?, ?, ?, ?)""", rows, rows.size(), (statement, row) -> {
+            statement.setLong(1, row.id());
+            statement.setLong(2, row.userId());
+            statement.setLong(3, row.healthProductId());
+            statement.setBoolean(4, row.taken());
+            statement.setTimestamp(5, row.createdAt());
+        });
+    }
+
+    public void incrementRollups(List<RollupDelta> deltas) {
+        // sorted keys keep concurrent batches from deadlocking on the same rows
+        List<RollupDelta> sorted = new ArrayList<>(deltas);
+        sorted.sort((a, b) -> a.userId() != b.userId() ? Long.compare(a.userId(), b.userId())
+                : a.healthProductId() != b.healthProductId() ? Long.compare(a.healthProductId(), b.healthProductId())
+                        : a.day().compareTo(b.day()));
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO usage_daily_rollup (user_id, health_product_id, day, taken, missed)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (user_id, health_product_id, day) DO UPDATE
+                SET taken = usage_daily_rollup.taken + EXCLUDED.taken,
+                    missed = usage_daily_rollup.missed + EXCLUDED.missed""", sorted, sorted.size(),
+                (statement, delta) -> {
+                    statement.setLong(1, delta.userId());
+                    statement.setLong(2, delta.healthProductId());
+                    statement.setDate(3, Date.valueOf(delta.day()));
+                    statement.setInt(4, delta.taken());
+                    statement.setInt(5, delta.missed());
+                });
+    }
+
+    /**
+     * Sets the slot bit of each log in {@code dose_slot_month}. The slot is
+     * the product's reminder time nearest to the log, or the log's hour for
+     * products without reminder times; a taken bit clears the missed bit of
+     * the same slot.
+     */
+    public void markSlots(List<LogRow> rows) {
+        // same order as the rollups, for the same reason
+        List<LogRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingLong(LogRow::healthProductId).thenComparing(LogRow::createdAt));
+
+        SqlParameterSource[] params = new SqlParameterSource[sorted.size()];
+        for (int i = 0; i < params.length; i++) {
+            LogRow row = sorted.get(i);
+            LocalDateTime time = row.createdAt().toInstant().atZone(KOLKATA_ZONE).toLocalDateTime();
+            params[i] = new MapSqlParameterSource()
+                    .addValue("healthProductId", row.healthProductId())
+                    .addValue("userId", row.userId())
+                    .addValue("monthStart", time.toLocalDate().withDayOfMonth(1))
+                    .addValue("day", time.getDayOfMonth())
+                    .addValue("minute", time.getHour() * 60 + time.getMinute())
+                    .addValue("hour", time.getHour())
+                    .addValue("taken", row.taken());
+        }
+
+        namedParameterJdbcTemplate.batchUpdate(MARK_SLOT, params);
+    }
+
+    private int sequenceIncrement() {
+        if (sequenceIncrement == 0) {
+            Long increment = jdbcTemplate.queryForObject(
+                    "SELECT increment_by FROM pg_sequences WHERE sequencename = ?", Long.class, SEQUENCE);
+            sequenceIncrement = increment != null ? increment.intValue() : 1;
+        }
+        return sequenceIncrement;
+    }
+}
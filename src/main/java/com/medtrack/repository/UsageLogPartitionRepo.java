@@ -0,0 +1,181 @@
+package com.medtrack.repository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * DDL for the monthly range partitions of {@code medicine_usage_log}. Each
+ * month is a partition named {@code medicine_usage_log_pYYYYMM} covering
+ * {@code [first day, first day of next month)} of {@code created_at}. Rows of
+ * a month without a partition land in {@code medicine_usage_log_default}
+ * instead of failing the insert, and move to their month when it is created.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UsageLogPartitionRepo {
+
+    public static final String TABLE = "medicine_usage_log";
+    public static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    private static final String LEGACY_TABLE = "medicine_usage_log_unpartitioned";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static String partitionName(YearMonth month) {
+        return TABLE + "_p" + SUFFIX.format(month);
+    }
+
+    /**
+     * The month a partition of this table covers, or null for any other name
+     */
+    public static YearMonth monthOf(String partitionName) {
+        String prefix = TABLE + "_p";
+        if (!partitionName.startsWith(prefix) || partitionName.length() != prefix.length() + 6) {
+            return null;
+        }
+        return YearMonth.parse(partitionName.substring(prefix.length()), SUFFIX);
+    }
+
+    /**
+     * Whether the table exists and is already range partitioned
+     */
+    public boolean isPartitioned() {
+        List<String> kind = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, TABLE);
+        return !kind.isEmpty() && "p".equals(kind.get(0));
+    }
+
+    public boolean exists() {
+        return relationExists(TABLE);
+    }
+
+    private boolean relationExists(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                name));
+    }
+
+    /**
+     * Serializes partition maintenance across instances for the current
+     * transaction
+     */
+    public boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('medicine_usage_log_partitions'))", Boolean.class));
+    }
+
+    /**
+     * Replaces the plain table created by Hibernate with a partitioned one,
+     * moving the rows and keeping the foreign keys. The primary key becomes
+     * (id, created_at) because a partitioned table's keys must include the
+     * partition column.
+     */
+    public int convertToPartitioned(YearMonth lastMonth) {
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("""
+                SELECT conname, pg_get_constraintdef(oid) AS definition
+                FROM pg_constraint
+                WHERE conrelid = to_regclass(?) AND contype = 'f'""", TABLE);
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY_TABLE
+                + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, created_at)");
+
+        LocalDate first = jdbcTemplate.queryForObject("SELECT min(created_at)::date FROM " + LEGACY_TABLE,
+                LocalDate.class);
+        if (first != null) {
+            for (YearMonth month = YearMonth.from(first); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+                createPartition(month);
+            }
+        }
+        createPartition(lastMonth);
+        createDefaultPartition();
+
+        int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + LEGACY_TABLE);
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + foreignKey.get("conname") + " "
+                    + foreignKey.get("definition"));
+        }
+        return moved;
+    }
+
+    /**
+     * Indexes declared on the parent, so every partition, present and future,
+     * gets its own copy
+     */
+    public void createIndexes() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_usage_log_user_created ON " + TABLE
+                + " (user_id, created_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_usage_log_product_created ON " + TABLE
+                + " (health_product_id, created_at)");
+    }
+
+    /**
+     * Creates the partition of a month if missing. Rows of the month already
+     * in the default partition are moved into it before it is attached,
+     * since Postgres refuses a partition whose rows the default still holds.
+     */
+    public void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (relationExists(partition)) {
+            return;
+        }
+        String bounds = "FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+        if (!relationExists(DEFAULT_PARTITION)) {
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + TABLE + " FOR VALUES " + bounds);
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + TABLE
+                + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at >= '"
+                + month.atDay(1) + "' AND created_at < '" + month.plusMonths(1).atDay(1) + "' RETURNING *) "
+                + "INSERT INTO " + partition + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + partition + " FOR VALUES " + bounds);
+    }
+
+    public void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE
+                + " DEFAULT");
+    }
+
+    /**
+     * Rows in the default partition, i.e. logs of months that had no
+     * partition when they were written
+     */
+    public long defaultPartitionRows() {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + DEFAULT_PARTITION, Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    public List<String> partitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                ORDER BY c.relname""", String.class, TABLE);
+    }
+
+    public void detach(String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+    }
+
+    public void drop(String partition) {
+        jdbcTemplate.execute("DROP TABLE " + partition);
+    }
+
+    public void archive(String partition, String schema) {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+        jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + schema);
+    }
+}
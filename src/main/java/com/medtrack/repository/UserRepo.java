@@ -1,8 +1,12 @@
 package com.medtrack.repository;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.medtrack.model.User;
@@ -10,5 +14,42 @@ import com.medtrack.model.User;
 @Repository
 public interface UserRepo extends JpaRepository<User, Long> {
 
+    interface UserStats {
+        Long getTotal();
+
+        Long getActive();
+
+        Long getExpired();
+
+        Long getLowStock();
+
+        Long getTaken();
+
+        Long getMissed();
+    }
+
     public Optional<User> findOneByEmail(String email);
+
+    public Optional<User> findOneByCalendarToken(String calendarToken);
+
+    // Product counts by stock and expiry state plus the dose totals since the given
+    // instant, in one statement; empty when the user does not exist
+    String FIND_STATS = "SELECT count(hp.id) AS \"total\", " +
+                    "count(hp.id) FILTER (WHERE hp.expiry_date > :today AND hp.available_quantity > 0) AS \"active\", " +
+                    "count(hp.id) FILTER (WHERE hp.expiry_date < :today) AS \"expired\", " +
+                    "count(hp.id) FILTER (WHERE hp.available_quantity <= hp.threshold_quantity " +
+                    "AND hp.expiry_date > :today) AS \"lowStock\", " +
+                    "usage.taken AS \"taken\", usage.missed AS \"missed\" " +
+                    "FROM users u " +
+                    "CROSS JOIN LATERAL (SELECT count(*) FILTER (WHERE l.is_taken) AS taken, " +
+                    "count(*) FILTER (WHERE l.is_taken IS NOT TRUE) AS missed " +
+                    "FROM medicine_usage_log l WHERE l.user_id = u.id AND l.created_at > :since) usage " +
+                    "LEFT JOIN health_product hp ON hp.user_id = u.id " +
+                    "WHERE u.id = :userId " +
+                    "GROUP BY u.id, usage.taken, usage.missed";
+
+    @Query(value = FIND_STATS, nativeQuery = true)
+    Optional<UserStats> findStats(@Param("userId") Long userId,
+            @Param("today") LocalDate today,
+            @Param("since") Timestamp since);
 }
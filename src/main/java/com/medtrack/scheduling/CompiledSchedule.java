@@ -0,0 +1,326 @@
+package com.medtrack.scheduling;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import com.medtrack.model.HealthProduct;
+import com.medtrack.model.ScheduleRule;
+import com.medtrack.utils.ReminderMinutes;
+
+/**
+ * Immutable evaluator of a product's dosing schedule.
+ *
+ * Time is handled as local epoch minutes (days since 1970-01-01 times 1440
+ * plus minute of day), so every question is integer arithmetic on a few
+ * precomputed fields and never walks a calendar:
+ * <ul>
+ * <li>daily times are a per-hour mask plus one 60-bit word per used hour, so
+ * the next time of day is two bit scans;</li>
+ * <li>weekdays are a 7-entry table of days until the next allowed day;</li>
+ * <li>intervals are a division from the anchor;</li>
+ * <li>course length and taper collapse into a single last day, and the taper
+ * dose of a day is one division.</li>
+ * </ul>
+ */
+public final class CompiledSchedule {
+
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int MINUTES_PER_DAY = 1440;
+    private static final long OPEN_END = Long.MAX_VALUE / MINUTES_PER_DAY;
+
+    // daily mode
+    private final int hourMask;
+    private final long[] hourWords;
+    private final int timesPerDay;
+    private final byte[] daysUntilAllowed;
+
+    // interval mode, 0 when daily
+    private final int intervalMinutes;
+    private final long anchorEpochMinute;
+
+    private final long startEpochDay;
+    private final long endEpochDay;
+
+    private final boolean everyDay;
+
+    private final float baseDose;
+    private final int taperStepDays;
+    private final float taperStepDose;
+
+    private CompiledSchedule(short[] minutes, ScheduleRule rule, float baseDose) {
+        this.baseDose = baseDose;
+
+        int mask = 0;
+        long[] words = new long[24];
+        for (short minute : minutes) {
+            mask |= 1 << (minute / 60);
+            words[minute / 60] |= 1L << (minute % 60);
+        }
+        this.hourMask = mask;
+        this.hourWords = new long[Integer.bitCount(mask)];
+        for (int hour = 0, i = 0; hour < 24; hour++) {
+            if ((mask & (1 << hour)) != 0) {
+                hourWords[i++] = words[hour];
+            }
+        }
+        this.timesPerDay = minutes.length;
+
+        LocalDate start = rule != null ? rule.getStartDate() : null;
+        this.startEpochDay = start != null ? start.toEpochDay() : 0;
+
+        Integer interval = rule != null ? rule.getIntervalHours() : null;
+        this.intervalMinutes = interval != null && interval > 0 ? interval * 60 : 0;
+        int anchorMinute = rule != null && rule.getAnchorMinute() != null ? rule.getAnchorMinute()
+                : minutes.length > 0 ? minutes[0] : 0;
+        this.anchorEpochMinute = startEpochDay * MINUTES_PER_DAY + anchorMinute;
+
+        int days = rule != null && rule.getDaysOfWeekMask() != null && rule.getDaysOfWeekMask() != 0
+                ? rule.getDaysOfWeekMask() & 0x7f
+                : 0x7f;
+        this.daysUntilAllowed = new byte[7];
+        for (int dow = 0; dow < 7; dow++) {
+            int ahead = 0;
+            while ((days & (1 << ((dow + ahead) % 7))) == 0) {
+                ahead++;
+            }
+            daysUntilAllowed[dow] = (byte) ahead;
+        }
+
+        Integer stepDays = rule != null ? rule.getTaperStepDays() : null;
+        Float stepDose = rule != null ? rule.getTaperStepDose() : null;
+        boolean tapered = stepDays != null && stepDays > 0 && stepDose != null && stepDose > 0;
+        this.taperStepDays = tapered ? stepDays : 0;
+        this.taperStepDose = tapered ? stepDose : 0f;
+
+        long end = OPEN_END;
+        Integer courseDays = rule != null ? rule.getCourseDays() : null;
+        if (courseDays != null && courseDays > 0) {
+            end = startEpochDay + courseDays - 1;
+        }
+        if (tapered) {
+            // last step with a dose left, e.g. 20 by 5 gives steps 20, 15, 10, 5
+            long steps = (long) Math.ceil(baseDose / taperStepDose - 1e-6);
+            end = Math.min(end, startEpochDay + steps * taperStepDays - 1);
+        }
+        this.endEpochDay = end;
+        this.everyDay = intervalMinutes == 0 && days == 0x7f && start == null && end == OPEN_END;
+    }
+
+    /**
+     * Compiles the given daily minutes and rule; without a rule the minutes
+     * repeat every day
+     */
+    public static CompiledSchedule compile(short[] minutes, ScheduleRule rule, Float baseDose) {
+        return new CompiledSchedule(minutes != null ? minutes : ReminderMinutes.NONE, rule,
+                baseDose != null ? baseDose : 0f);
+    }
+
+    public static CompiledSchedule of(HealthProduct product) {
+        return compile(product.getReminderMinutes(), product.getScheduleRule(), product.getDoseQuantity());
+    }
+
+    public static long epochMinute(LocalDateTime time) {
+        long minute = time.toLocalDate().toEpochDay() * MINUTES_PER_DAY
+                + time.getHour() * 60 + time.getMinute();
+        // a time inside a minute can only be followed by the next minute
+        return time.getSecond() != 0 || time.getNano() != 0 ? minute + 1 : minute;
+    }
+
+    public static LocalDateTime toDateTime(long epochMinute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY))
+                .atTime(LocalTime.ofSecondOfDay(Math.floorMod(epochMinute, MINUTES_PER_DAY) * 60L));
+    }
+
+    /**
+     * First occurrence at or after the given time, or null once the course
+     * has ended
+     */
+    public LocalDateTime next(LocalDateTime from) {
+        long next = nextEpochMinute(epochMinute(from));
+        return next == NONE ? null : toDateTime(next);
+    }
+
+    /**
+     * First occurrence at or after the given epoch minute, or {@link #NONE}
+     */
+    public long nextEpochMinute(long from) {
+        long t = Math.max(from, startEpochDay * MINUTES_PER_DAY);
+        long candidate;
+
+        if (intervalMinutes > 0) {
+            candidate = t <= anchorEpochMinute ? anchorEpochMinute
+                    : anchorEpochMinute + Math.ceilDiv(t - anchorEpochMinute, intervalMinutes) * intervalMinutes;
+        } else {
+            if (timesPerDay == 0) {
+                return NONE;
+            }
+            long day = Math.floorDiv(t, MINUTES_PER_DAY);
+            int ahead = daysUntilAllowed[dayOfWeek(day)];
+            int minute = ahead == 0 ? nextMinuteOfDay((int) Math.floorMod(t, MINUTES_PER_DAY)) : -1;
+
+            if (minute >= 0) {
+                candidate = day * MINUTES_PER_DAY + minute;
+            } else {
+                if (ahead == 0) {
+                    day++;
+                    ahead = daysUntilAllowed[dayOfWeek(day)];
+                }
+                candidate = (day + ahead) * MINUTES_PER_DAY + nextMinuteOfDay(0);
+            }
+        }
+
+        return Math.floorDiv(candidate, MINUTES_PER_DAY) > endEpochDay ? NONE : candidate;
+    }
+
+    /**
+     * Whether a dose falls exactly on the given minute
+     */
+    public boolean isDueAt(LocalDateTime slot) {
+        long t = epochMinute(slot);
+        long day = Math.floorDiv(t, MINUTES_PER_DAY);
+        if (day < startEpochDay || day > endEpochDay) {
+            return false;
+        }
+        if (intervalMinutes > 0) {
+            return t >= anchorEpochMinute && (t - anchorEpochMinute) % intervalMinutes == 0;
+        }
+        return daysUntilAllowed[dayOfWeek(day)] == 0 && hasMinute((int) Math.floorMod(t, MINUTES_PER_DAY));
+    }
+
+    /**
+     * Number of doses due on the given day
+     */
+    public int dosesOn(LocalDate date) {
+        long day = date.toEpochDay();
+        if (day < startEpochDay || day > endEpochDay) {
+            return 0;
+        }
+        if (intervalMinutes > 0) {
+            long dayStart = Math.max(day * MINUTES_PER_DAY, anchorEpochMinute);
+            long dayEnd = (day + 1) * MINUTES_PER_DAY - 1;
+            if (dayStart > dayEnd) {
+                return 0;
+            }
+            long first = Math.ceilDiv(dayStart - anchorEpochMinute, intervalMinutes);
+            long last = Math.floorDiv(dayEnd - anchorEpochMinute, intervalMinutes);
+            return (int) Math.max(0, last - first + 1);
+        }
+        return daysUntilAllowed[dayOfWeek(day)] == 0 ? timesPerDay : 0;
+    }
+
+    /**
+     * Dose per intake on the given day after tapering
+     */
+    public float doseOn(LocalDate date) {
+        if (taperStepDays == 0) {
+            return baseDose;
+        }
+        long steps = Math.max(0, date.toEpochDay() - startEpochDay) / taperStepDays;
+        return Math.max(0f, baseDose - steps * taperStepDose);
+    }
+
+    /**
+     * First day on which the given stock no longer covers the day's doses, or
+     * null if it lasts past the course or the horizon
+     */
+    public LocalDate runOutDate(float available, LocalDate from, int horizonDays) {
+        float remaining = available;
+        long last = Math.min(from.toEpochDay() + horizonDays, endEpochDay);
+
+        for (long day = from.toEpochDay(); day <= last; day++) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            remaining -= dosesOn(date) * doseOn(date);
+            if (remaining < 0) {
+                return date;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Every minute of day at which a dose can fall, used to place the product
+     * in the timing wheel and in the indexed reminder_minutes column. For
+     * intervals that do not divide a day this is the residue class of the
+     * anchor modulo gcd(interval, day).
+     */
+    public short[] wheelMinutes() {
+        if (intervalMinutes == 0) {
+            short[] minutes = new short[timesPerDay];
+            int i = 0;
+            for (int minute = nextMinuteOfDay(0); minute >= 0; minute = nextMinuteOfDay(minute + 1)) {
+                minutes[i++] = (short) minute;
+            }
+            return minutes;
+        }
+
+        int step = gcd(intervalMinutes, MINUTES_PER_DAY);
+        int first = (int) Math.floorMod(anchorEpochMinute, step);
+        short[] minutes = new short[(MINUTES_PER_DAY - first + step - 1) / step];
+        for (int i = 0; i < minutes.length; i++) {
+            minutes[i] = (short) (first + i * step);
+        }
+        return minutes;
+    }
+
+    public LocalDate endDate() {
+        return endEpochDay == OPEN_END ? null : LocalDate.ofEpochDay(endEpochDay);
+    }
+
+    /**
+     * Whether the schedule is just its daily times, every day, indefinitely
+     */
+    public boolean isEveryDay() {
+        return everyDay;
+    }
+
+    private boolean hasMinute(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        if ((hourMask & (1 << hour)) == 0) {
+            return false;
+        }
+        return (hourWords[rank(hour)] & (1L << (minuteOfDay % 60))) != 0;
+    }
+
+    /**
+     * Smallest reminder minute at or after the given minute of day, or -1
+     */
+    private int nextMinuteOfDay(int minuteOfDay) {
+        if (minuteOfDay >= MINUTES_PER_DAY) {
+            return -1;
+        }
+        int hour = minuteOfDay / 60;
+        if ((hourMask & (1 << hour)) != 0) {
+            long word = hourWords[rank(hour)] & (-1L << (minuteOfDay % 60));
+            if (word != 0) {
+                return hour * 60 + Long.numberOfTrailingZeros(word);
+            }
+        }
+
+        int later = hourMask & (-1 << (hour + 1));
+        if (later == 0) {
+            return -1;
+        }
+        int nextHour = Integer.numberOfTrailingZeros(later);
+        return nextHour * 60 + Long.numberOfTrailingZeros(hourWords[rank(nextHour)]);
+    }
+
+    private int rank(int hour) {
+        return Integer.bitCount(hourMask & ((1 << hour) - 1));
+    }
+
+    // Monday = 0; 1970-01-01 was a Thursday
+    private static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,108 @@
+package com.medtrack.scheduling;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.medtrack.model.SchedulerWatermark;
+import com.medtrack.repository.SchedulerWatermarkRepo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills {@code dose_slot_month} from the usage logs written before the slot
+ * bitmaps existed.
+ *
+ * Works one month at a time, each in its own transaction, and rebuilds the
+ * month's rows from the logs while holding a lock that blocks concurrent slot
+ * updates, the same way {@link UsageRollupBackfill} does for the rollup. A
+ * watermark keeps later starts from running it again.
+ */
+@Component
+@Order(2)
+@Slf4j
+@RequiredArgsConstructor
+public class DoseSlotBackfill implements ApplicationRunner {
+
+    private static final String WATERMARK = "dose-slot-backfill";
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerWatermarkRepo watermarkRepo;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (watermarkRepo.existsById(WATERMARK)) {
+            return;
+        }
+
+        Date first = jdbcTemplate.queryForObject("SELECT min(created_at)::date FROM medicine_usage_log", Date.class);
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+
+        int months = 0;
+        if (first != null) {
+            for (LocalDate month = first.toLocalDate().withDayOfMonth(1); !month.isAfter(today);
+                    month = month.plusMonths(1)) {
+                LocalDate monthStart = month;
+                Integer rows = transactionTemplate.execute(status -> backfill(monthStart));
+                months += rows != null ? rows : 0;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+        watermarkRepo.save(SchedulerWatermark.builder()
+                .name(WATERMARK)
+                .processedUntil(today.atStartOfDay())
+                .updatedAt(now)
+                .build());
+        log.info("Dose slot backfill finished: {} product-months written", months);
+    }
+
+    private int backfill(LocalDate monthStart) {
+        // conflicts with the ROW EXCLUSIVE lock taken by every slot update
+        jdbcTemplate.execute("LOCK TABLE dose_slot_month IN SHARE ROW EXCLUSIVE MODE");
+
+        return jdbcTemplate.update("""
+                WITH slots AS (
+                    SELECT l.user_id, l.health_product_id, extract(day FROM l.created_at)::int AS d, l.is_taken,
+                           1::bigint << LEAST(63, COALESCE((
+                               SELECT m.i::int - 1
+                               FROM unnest(hp.reminder_minutes) WITH ORDINALITY AS m(minute, i)
+                               ORDER BY abs(m.minute - (extract(hour FROM l.created_at) * 60
+                                                        + extract(minute FROM l.created_at))::int), m.i
+                               LIMIT 1), extract(hour FROM l.created_at)::int)) AS bit
+                    FROM medicine_usage_log l
+                    JOIN health_product hp ON hp.id = l.health_product_id
+                    WHERE l.created_at >= ? AND l.created_at < ?
+                ), days AS (
+                    SELECT user_id, health_product_id, d,
+                           coalesce(bit_or(bit) FILTER (WHERE is_taken), 0) AS taken,
+                           coalesce(bit_or(bit) FILTER (WHERE is_taken IS NOT TRUE), 0) AS missed
+                    FROM slots
+                    GROUP BY 1, 2, 3
+                ), products AS (
+                    SELECT DISTINCT user_id, health_product_id FROM days
+                )
+                INSERT INTO dose_slot_month (health_product_id, month_start, user_id, taken, missed)
+                SELECT p.health_product_id, ?, p.user_id,
+                       array_agg(coalesce(x.taken, 0) ORDER BY g),
+                       array_agg(coalesce(x.missed & ~x.taken, 0) ORDER BY g)
+                FROM products p
+                CROSS JOIN generate_series(1, 31) g
+                LEFT JOIN days x ON x.health_product_id = p.health_product_id AND x.d = g
+                GROUP BY p.health_product_id, p.user_id
+                ON CONFLICT (health_product_id, month_start) DO UPDATE
+                SET taken = EXCLUDED.taken, missed = EXCLUDED.missed""",
+                monthStart.atStartOfDay(), monthStart.plusMonths(1).atStartOfDay(), monthStart);
+    }
+}
@@ -0,0 +1,125 @@
+package com.medtrack.scheduling;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.kafka.service.NotificationProducerService;
+import com.medtrack.model.HealthProduct;
+import com.medtrack.model.SchedulerWatermark;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.SchedulerWatermarkRepo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends MEDICINE_EXPIRY_WARNING for products that reach the warning window.
+ *
+ * Runs through the day for the buckets this node owns: a product is warned about
+ * on the day its expiry date is exactly the warning period away. The last day
+ * handled is kept per bucket in a {@link SchedulerWatermark}, so days missed
+ * during downtime or while a bucket was moving between nodes are caught up on
+ * the next run. Products created or updated with an expiry already inside the
+ * window are warned about by {@code HealthProductService} directly.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExpiryNotificationScheduler {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    static final String WATERMARK_PREFIX = "expiry:";
+
+    private final HealthProductRepo healthProductRepo;
+    private final SchedulerWatermarkRepo schedulerWatermarkRepo;
+    private final NotificationProducerService notificationProducerService;
+    private final ScheduleBucketOwnership scheduleBucketOwnership;
+
+    @Value("${medtrack.expiry.max-catch-up-days:7}")
+    private int maxCatchUpDays;
+
+    /**
+     * Every 15 minutes so that a bucket taken over during the day is still
+     * handled the same day; owned buckets already done today cost one lookup
+     */
+    @Scheduled(cron = "${medtrack.expiry.cron:0 */15 9-21 * * *}", zone = "Asia/Kolkata")
+    public void run() {
+        List<Integer> buckets = scheduleBucketOwnership.ownedBuckets();
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        LocalDate earliest = today.minusDays(maxCatchUpDays);
+
+        Map<String, SchedulerWatermark> stored = schedulerWatermarkRepo
+                .findAllById(buckets.stream().map(b -> WATERMARK_PREFIX + b).toList()).stream()
+                .collect(Collectors.toMap(SchedulerWatermark::getName, Function.identity()));
+
+        for (LocalDate day = earliest; !day.isAfter(today); day = day.plusDays(1)) {
+            List<Integer> pending = new ArrayList<>();
+            for (Integer bucket : buckets) {
+                SchedulerWatermark mark = stored.get(WATERMARK_PREFIX + bucket);
+                LocalDate doneUntil = mark != null ? mark.getProcessedUntil().toLocalDate() : today.minusDays(1);
+                if (doneUntil.isBefore(day) && scheduleBucketOwnership.ownsBucket(bucket)) {
+                    pending.add(bucket);
+                }
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+
+            runDay(day, pending);
+
+            LocalDateTime processedUntil = day.atStartOfDay();
+            LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+            List<SchedulerWatermark> updated = pending.stream()
+                    .map(bucket -> {
+                        SchedulerWatermark mark = stored.computeIfAbsent(WATERMARK_PREFIX + bucket,
+                                name -> SchedulerWatermark.builder().name(name).build());
+                        mark.setProcessedUntil(processedUntil);
+                        mark.setUpdatedAt(now);
+                        return mark;
+                    })
+                    .toList();
+            schedulerWatermarkRepo.saveAll(updated);
+        }
+    }
+
+    /**
+     * Warns about every product in the given buckets whose warning day is the
+     * given day, skipping those that have expired by now
+     */
+    void runDay(LocalDate day, List<Integer> buckets) {
+        LocalDate expiryDate = day.plusDays(notificationProducerService.expiryWarningDays());
+        List<HealthProduct> expiring = healthProductRepo.findExpiringInBuckets(expiryDate,
+                scheduleBucketOwnership.bucketCount(), buckets);
+
+        int queued = 0;
+        for (HealthProduct product : expiring) {
+            if (!notificationProducerService.isWithinExpiryWarning(product.getExpiryDate())) {
+                continue;
+            }
+            try {
+                notificationProducerService.sendExpiryNotification(product);
+                queued++;
+            } catch (Exception e) {
+                log.error("Failed to queue expiry warning for product {}", product.getId(), e);
+            }
+        }
+
+        if (queued > 0) {
+            log.info("Expiry warnings for {}: {} queued across {} buckets", day, queued, buckets.size());
+        }
+    }
+}
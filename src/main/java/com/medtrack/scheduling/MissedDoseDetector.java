@@ -0,0 +1,189 @@
+package com.medtrack.scheduling;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.kafka.service.NotificationProducerService;
+import com.medtrack.model.SchedulerWatermark;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.SchedulerWatermarkRepo;
+import com.medtrack.utils.ReminderMinutes;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Emits MEDICINE_MISSED_ALERT for reminder slots that closed without a usage
+ * log.
+ *
+ * A slot at time T is closed once T + grace has passed. The dose counts as
+ * logged if any usage log for the product falls in [T - early, T + grace).
+ * Each closed minute is checked with a single set-based query over all users
+ * of the buckets this node owns, and the alerts found are queued as one batch.
+ *
+ * Progress is kept per bucket in a {@link SchedulerWatermark}, so a bucket that
+ * moves to another node resumes exactly where its previous owner stopped. The
+ * watermark advances only after Kafka has acknowledged every alert of the
+ * minute. If any of them fails the run stops there and the minute is checked
+ * again on the next run; alerts of a minute that are sent twice this way, or
+ * after a crash, carry the same correlation ids and are dropped by the
+ * consumer.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MissedDoseDetector {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    static final String WATERMARK_PREFIX = "missed-dose:";
+
+    private final HealthProductRepo healthProductRepo;
+    private final SchedulerWatermarkRepo schedulerWatermarkRepo;
+    private final NotificationProducerService notificationProducerService;
+    private final ScheduleBucketOwnership scheduleBucketOwnership;
+    private final ReminderDispatchService reminderDispatchService;
+
+    @Value("${medtrack.missed-dose.grace-minutes:30}")
+    private int graceMinutes;
+
+    @Value("${medtrack.missed-dose.early-minutes:30}")
+    private int earlyMinutes;
+
+    // Upper bound on minutes handled per run so a long outage is worked off gradually
+    @Value("${medtrack.missed-dose.max-slots-per-run:120}")
+    private int maxSlotsPerRun;
+
+    // How long a minute's alerts may take to be acknowledged before the minute is retried
+    @Value("${medtrack.missed-dose.send-timeout-seconds:30}")
+    private long sendTimeoutSeconds;
+
+    @Scheduled(cron = "30 * * * * *", zone = "Asia/Kolkata")
+    public void detect() {
+        List<Integer> buckets = scheduleBucketOwnership.ownedBuckets();
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime lastClosedSlot = LocalDateTime.now(KOLKATA_ZONE)
+                .truncatedTo(ChronoUnit.MINUTES)
+                .minusMinutes(graceMinutes);
+
+        Map<Integer, SchedulerWatermark> watermarks = loadWatermarks(buckets, lastClosedSlot);
+
+        LocalDateTime slot = watermarks.values().stream()
+                .map(SchedulerWatermark::getProcessedUntil)
+                .min(Comparator.naturalOrder())
+                .orElse(lastClosedSlot)
+                .plusMinutes(1);
+        int processed = 0;
+
+        while (!slot.isAfter(lastClosedSlot) && processed < maxSlotsPerRun) {
+            List<SchedulerWatermark> pending = new ArrayList<>();
+            List<Integer> pendingBuckets = new ArrayList<>();
+
+            for (Map.Entry<Integer, SchedulerWatermark> entry : watermarks.entrySet()) {
+                if (entry.getValue().getProcessedUntil().isBefore(slot)
+                        && scheduleBucketOwnership.ownsBucket(entry.getKey())) {
+                    pending.add(entry.getValue());
+                    pendingBuckets.add(entry.getKey());
+                }
+            }
+
+            if (!pendingBuckets.isEmpty()) {
+                if (!detectSlot(slot, pendingBuckets)) {
+                    // watermarks stay before this slot, so the next run retries it
+                    return;
+                }
+
+                LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+                for (SchedulerWatermark watermark : pending) {
+                    watermark.setProcessedUntil(slot);
+                    watermark.setUpdatedAt(now);
+                }
+                schedulerWatermarkRepo.saveAll(pending);
+            }
+
+            slot = slot.plusMinutes(1);
+            processed++;
+        }
+
+        if (!slot.isAfter(lastClosedSlot)) {
+            log.warn("Missed dose detector is behind: next slot {} (latest closed {})", slot, lastClosedSlot);
+        }
+    }
+
+    /**
+     * Checks one closed reminder minute for every user in the given buckets and
+     * sends the alerts
+     *
+     * @return whether every alert of the minute was acknowledged by Kafka
+     */
+    boolean detectSlot(LocalDateTime slot, List<Integer> buckets) {
+        List<ReminderTarget> candidates = healthProductRepo.findMissedReminderTargets(
+                ReminderMinutes.of(slot.toLocalTime()),
+                slot.toLocalDate(),
+                instant(slot),
+                instant(slot.minusMinutes(earlyMinutes)),
+                instant(slot.plusMinutes(graceMinutes)),
+                scheduleBucketOwnership.bucketCount(),
+                buckets);
+        // the index finds every product that can fall on this minute; the
+        // schedule rules decide which of them actually had a dose
+        List<ReminderTarget> missed = reminderDispatchService.applySchedules(candidates, slot);
+
+        if (missed.isEmpty()) {
+            return true;
+        }
+
+        try {
+            notificationProducerService.sendMissedDoseNotifications(missed, slot)
+                    .get(sendTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Missed dose slot {}: not all {} alerts were sent, retrying the slot next run", slot,
+                    missed.size(), e);
+            return false;
+        }
+        log.info("Missed dose slot {}: {} alerts across {} buckets", slot, missed.size(), buckets.size());
+        return true;
+    }
+
+    // created_at columns hold the host's wall clock, so Kolkata slot times are bound as instants
+    private static Timestamp instant(LocalDateTime kolkataTime) {
+        return Timestamp.from(kolkataTime.atZone(KOLKATA_ZONE).toInstant());
+    }
+
+    /**
+     * Watermarks of the given buckets; a bucket seen for the first time starts
+     * at the latest closed slot instead of alerting on history
+     */
+    private Map<Integer, SchedulerWatermark> loadWatermarks(List<Integer> buckets, LocalDateTime lastClosedSlot) {
+        Map<String, SchedulerWatermark> stored = schedulerWatermarkRepo
+                .findAllById(buckets.stream().map(b -> WATERMARK_PREFIX + b).toList()).stream()
+                .collect(Collectors.toMap(SchedulerWatermark::getName, Function.identity()));
+
+        return buckets.stream().collect(Collectors.toMap(Function.identity(),
+                bucket -> stored.getOrDefault(WATERMARK_PREFIX + bucket, SchedulerWatermark.builder()
+                        .name(WATERMARK_PREFIX + bucket)
+                        .processedUntil(lastClosedSlot.minusMinutes(1))
+                        .updatedAt(LocalDateTime.now(KOLKATA_ZONE))
+                        .build())));
+    }
+}
@@ -0,0 +1,205 @@
+package com.medtrack.scheduling;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.medtrack.events.HealthProductChangedEvent;
+import com.medtrack.kafka.service.NotificationProducerService;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.HealthProductRepo.ProductSchedule;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fires dose reminders at each product's reminder times.
+ *
+ * All reminder times are held in a {@link ReminderTimingWheel}, loaded once at
+ * startup. Changes made on this node reach it from
+ * {@link HealthProductChangedEvent}s right away; changes made on any other
+ * node are read back at the start of every tick from the products'
+ * {@code updated_at}. Every minute the slot for that minute is read from the
+ * wheel and the products in it are resolved to recipients in chunks, so a
+ * tick costs a few bulk queries no matter how many reminders share the minute.
+ *
+ * Every node keeps the full wheel, current to within a tick, but only
+ * dispatches reminders of users in the buckets it currently owns. A bucket
+ * that moves to another node therefore needs no schedule transfer. A product
+ * deleted on another node stays in the wheel but is dropped when its targets
+ * are resolved.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReminderDispatchService {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final HealthProductRepo healthProductRepo;
+    private final NotificationProducerService notificationProducerService;
+    private final ScheduleBucketOwnership scheduleBucketOwnership;
+
+    private final ReminderTimingWheel wheel = new ReminderTimingWheel();
+
+    @Value("${medtrack.reminders.fetch-batch-size:1000}")
+    private int fetchBatchSize;
+
+    // How far back a late or restarted node replays missed ticks
+    @Value("${medtrack.reminders.max-catch-up-minutes:15}")
+    private int maxCatchUpMinutes;
+
+    // Each refresh re-reads this far behind the previous one, so a change committed late
+    // or stamped by a node whose clock is behind is not missed
+    @Value("${medtrack.reminders.refresh-overlap-seconds:120}")
+    private long refreshOverlapSeconds;
+
+    private volatile LocalDateTime lastDispatchedSlot;
+    private volatile Timestamp refreshedUntil;
+
+    /**
+     * Builds the wheel from the reminder minutes stored on every product
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSchedule() {
+        long start = System.currentTimeMillis();
+        Timestamp loadedFrom = new Timestamp(start);
+
+        for (ProductSchedule schedule : healthProductRepo.findAllSchedules()) {
+            wheel.schedule(schedule.getHealthProductId(), schedule.getUserId(), CompiledSchedule.compile(
+                    schedule.getReminderMinutes(), schedule.getScheduleRule(), schedule.getDoseQuantity()));
+        }
+
+        refreshedUntil = loadedFrom;
+
+        log.info("Reminder schedule loaded: {} reminders for {} products in {}ms",
+                wheel.reminderCount(), wheel.productCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Reschedules the products created or edited on any node since the last
+     * refresh
+     */
+    void refreshSchedule() {
+        Timestamp previous = refreshedUntil;
+        if (previous == null) {
+            // not loaded yet; the load reads everything
+            return;
+        }
+
+        Timestamp started = new Timestamp(System.currentTimeMillis());
+        List<ProductSchedule> changed = healthProductRepo.findSchedulesUpdatedSince(
+                new Timestamp(previous.getTime() - refreshOverlapSeconds * 1000));
+        for (ProductSchedule schedule : changed) {
+            wheel.schedule(schedule.getHealthProductId(), schedule.getUserId(), CompiledSchedule.compile(
+                    schedule.getReminderMinutes(), schedule.getScheduleRule(), schedule.getDoseQuantity()));
+        }
+        refreshedUntil = started;
+    }
+
+    /**
+     * Applies a product change to the wheel once the change is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHealthProductChanged(HealthProductChangedEvent event) {
+        if (event.deleted()) {
+            wheel.cancel(event.healthProductId());
+        } else {
+            wheel.schedule(event.healthProductId(), event.userId(), event.schedule());
+        }
+    }
+
+    /**
+     * Picks up schedule changes from other nodes, then dispatches the current
+     * minute plus any minutes skipped since the last tick (GC pause, restart)
+     * up to the catch-up limit
+     */
+    @Scheduled(cron = "0 * * * * *", zone = "Asia/Kolkata")
+    public void tick() {
+        try {
+            refreshSchedule();
+        } catch (Exception e) {
+            log.error("Failed to refresh the reminder schedule; retrying next tick", e);
+        }
+
+        LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE).truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime earliest = now.minusMinutes(maxCatchUpMinutes);
+
+        LocalDateTime slot = lastDispatchedSlot != null ? lastDispatchedSlot.plusMinutes(1) : now;
+        if (slot.isBefore(earliest)) {
+            slot = earliest;
+        }
+
+        while (!slot.isAfter(now)) {
+            if (!wheel.hasRemindersInHour(slot.getHour())) {
+                // nothing in this hour, jump to the next one
+                LocalDateTime nextHour = slot.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                lastDispatchedSlot = nextHour.isAfter(now) ? now : nextHour.minusMinutes(1);
+                slot = nextHour;
+                continue;
+            }
+
+            try {
+                dispatch(slot);
+            } catch (Exception e) {
+                log.error("Failed to dispatch reminders for slot {}", slot, e);
+            }
+            lastDispatchedSlot = slot;
+            slot = slot.plusMinutes(1);
+        }
+    }
+
+    /**
+     * Sends every reminder due at the given slot
+     */
+    void dispatch(LocalDateTime slot) {
+        long[] due = wheel.due(slot, scheduleBucketOwnership::ownsUser);
+        if (due.length == 0) {
+            return;
+        }
+
+        int queued = 0;
+        for (int from = 0; from < due.length; from += fetchBatchSize) {
+            int to = Math.min(from + fetchBatchSize, due.length);
+            List<Long> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(due[i]);
+            }
+
+            List<ReminderTarget> targets = healthProductRepo.findReminderTargets(chunk, slot.toLocalDate());
+            queued += notificationProducerService.sendReminderNotifications(applySchedules(targets, slot), slot);
+        }
+
+        log.info("Reminder tick {}: {} due, {} queued", slot, due.length, queued);
+    }
+
+    /**
+     * Keeps the targets whose schedule has a dose at the slot and sets the
+     * tapered dose of the day where a taper applies
+     */
+    public List<ReminderTarget> applySchedules(List<ReminderTarget> targets, LocalDateTime slot) {
+        List<ReminderTarget> due = new ArrayList<>(targets.size());
+        for (ReminderTarget target : targets) {
+            if (!wheel.isScheduledAt(target.healthProductId(), slot)) {
+                continue;
+            }
+            Float dose = wheel.doseOn(target.healthProductId(), slot.toLocalDate());
+            due.add(dose != null ? target.withDoseQuantity(dose) : target);
+        }
+        return due;
+    }
+
+    public int scheduledReminderCount() {
+        return wheel.reminderCount();
+    }
+}
@@ -0,0 +1,74 @@
+package com.medtrack.scheduling;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves reminder times from the legacy {@code medicine_reminder} rows into the
+ * {@code health_product.reminder_minutes} array and makes sure the array has
+ * its GIN index.
+ *
+ * Runs before the application reports ready, so the reminder schedule is
+ * always built from migrated data. The legacy rows are kept as the way back
+ * if the conversion has to be redone; a watermark claimed in the same
+ * transaction folds them in exactly once, also with several instances
+ * starting at once.
+ */
+@Component
+@Order(0)
+@Slf4j
+@RequiredArgsConstructor
+public class ReminderScheduleMigration implements ApplicationRunner {
+
+    private static final String WATERMARK = "reminder-minutes-migration";
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        // "who is due at minute m" is answered with reminder_minutes @> ARRAY[m]
+        jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_health_product_reminder_minutes
+                ON health_product USING gin (reminder_minutes)""");
+
+        // a concurrent start waits on the key here and then finds it taken
+        LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+        int claimed = jdbcTemplate.update("""
+                INSERT INTO scheduler_watermark (name, processed_until, updated_at)
+                VALUES (?, ?, ?)
+                ON CONFLICT (name) DO NOTHING""", WATERMARK, now, now);
+        if (claimed == 0) {
+            return;
+        }
+
+        int migrated = jdbcTemplate.update("""
+                UPDATE health_product hp
+                SET reminder_minutes = m.minutes
+                FROM (
+                    SELECT health_product_id, array_agg(DISTINCT minute ORDER BY minute) AS minutes
+                    FROM (
+                        SELECT health_product_id,
+                               (extract(hour FROM time) * 60 + extract(minute FROM time))::smallint AS minute
+                        FROM medicine_reminder
+                        WHERE time IS NOT NULL
+                    ) r
+                    GROUP BY health_product_id
+                ) m
+                WHERE hp.id = m.health_product_id""");
+
+        log.info("Migrated reminder times of {} products into reminder_minutes; medicine_reminder is kept",
+                migrated);
+    }
+}
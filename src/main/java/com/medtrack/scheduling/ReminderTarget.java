@@ -0,0 +1,19 @@
+package com.medtrack.scheduling;
+
+/**
+ * Everything needed to address a reminder notification, fetched in bulk for
+ * the products due at a tick.
+ */
+public record ReminderTarget(
+        Long healthProductId,
+        String productName,
+        Float doseQuantity,
+        String unit,
+        Long userId,
+        String userEmail,
+        String userName) {
+
+    public ReminderTarget withDoseQuantity(Float doseQuantity) {
+        return new ReminderTarget(healthProductId, productName, doseQuantity, unit, userId, userEmail, userName);
+    }
+}
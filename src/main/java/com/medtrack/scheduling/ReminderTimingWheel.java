@@ -0,0 +1,185 @@
+package com.medtrack.scheduling;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+import com.medtrack.utils.ReminderMinutes;
+
+/**
+ * Two-level timing wheel of daily reminder slots keyed by minute of day.
+ *
+ * The outer wheel has one slot per hour; each hour lazily owns an inner wheel
+ * of 60 minute slots holding the ids of products due at that minute. Hours
+ * without reminders cost nothing, and finding the work for a tick is two array
+ * lookups regardless of how many reminders exist in total.
+ *
+ * A reverse index from product to its minutes makes rescheduling and
+ * cancellation proportional to the number of reminder times of that product
+ * instead of a scan of the whole schedule.
+ *
+ * Products with a {@link CompiledSchedule} rule (weekdays, intervals, course
+ * length) sit at every minute of day their rule can fall on and are checked
+ * against the rule when a slot is read.
+ */
+public class ReminderTimingWheel {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final MinuteWheel[] hours = new MinuteWheel[24];
+    private final Map<Long, ScheduledProduct> products = new HashMap<>();
+
+    // schedule is null for products due at their minutes every day
+    private record ScheduledProduct(long userId, short[] minutes, CompiledSchedule schedule) {
+    }
+
+    private static final class MinuteWheel {
+        @SuppressWarnings("unchecked")
+        private final Set<Long>[] minutes = new Set[60];
+        private int size;
+    }
+
+    /**
+     * Places a product at the given minutes, replacing any previous schedule
+     */
+    public synchronized void schedule(long productId, long userId, short[] minutesOfDay) {
+        schedule(productId, userId, minutesOfDay, null);
+    }
+
+    /**
+     * Places a product at every minute its schedule can fall on; the schedule
+     * decides at dispatch time whether a given day is due
+     */
+    public synchronized void schedule(long productId, long userId, CompiledSchedule schedule) {
+        schedule(productId, userId, schedule.wheelMinutes(), schedule.isEveryDay() ? null : schedule);
+    }
+
+    private void schedule(long productId, long userId, short[] minutesOfDay, CompiledSchedule schedule) {
+        cancel(productId);
+        if (minutesOfDay == null || minutesOfDay.length == 0) {
+            return;
+        }
+
+        for (short minute : minutesOfDay) {
+            slot(minute, true).add(productId);
+            hours[minute / 60].size++;
+        }
+        products.put(productId, new ScheduledProduct(userId, minutesOfDay.clone(), schedule));
+    }
+
+    /**
+     * Removes a product from every slot it occupies
+     *
+     * @return true if the product was scheduled
+     */
+    public synchronized boolean cancel(long productId) {
+        ScheduledProduct existing = products.remove(productId);
+        if (existing == null) {
+            return false;
+        }
+
+        for (short minute : existing.minutes()) {
+            Set<Long> slot = slot(minute, false);
+            if (slot != null && slot.remove(productId)) {
+                hours[minute / 60].size--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Snapshot of the products due at the given local minute whose owner
+     * passes the filter, honouring weekday, interval and course rules
+     */
+    public synchronized long[] due(LocalDateTime slot, LongPredicate userFilter) {
+        Set<Long> slotProducts = slot(ReminderMinutes.of(slot.toLocalTime()), false);
+        if (slotProducts == null || slotProducts.isEmpty()) {
+            return new long[0];
+        }
+        return slotProducts.stream()
+                .filter(productId -> {
+                    ScheduledProduct scheduled = products.get(productId);
+                    return userFilter.test(scheduled.userId())
+                            && (scheduled.schedule() == null || scheduled.schedule().isDueAt(slot));
+                })
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    /**
+     * Whether the product has a dose at the given local minute
+     */
+    public synchronized boolean isScheduledAt(long productId, LocalDateTime slot) {
+        ScheduledProduct scheduled = products.get(productId);
+        if (scheduled == null) {
+            return false;
+        }
+        if (scheduled.schedule() != null) {
+            return scheduled.schedule().isDueAt(slot);
+        }
+        return Arrays.binarySearch(scheduled.minutes(), ReminderMinutes.of(slot.toLocalTime())) >= 0;
+    }
+
+    /**
+     * Dose per intake on the given day for products with a taper, otherwise
+     * null
+     */
+    public synchronized Float doseOn(long productId, LocalDate date) {
+        ScheduledProduct scheduled = products.get(productId);
+        return scheduled != null && scheduled.schedule() != null ? scheduled.schedule().doseOn(date) : null;
+    }
+
+    /**
+     * Whether any reminder falls within the given hour, used to skip empty
+     * hours when catching up after a pause
+     */
+    public synchronized boolean hasRemindersInHour(int hour) {
+        MinuteWheel wheel = hours[hour];
+        return wheel != null && wheel.size > 0;
+    }
+
+    public synchronized Long userOf(long productId) {
+        ScheduledProduct scheduled = products.get(productId);
+        return scheduled != null ? scheduled.userId() : null;
+    }
+
+    public synchronized int productCount() {
+        return products.size();
+    }
+
+    public synchronized int reminderCount() {
+        int total = 0;
+        for (MinuteWheel wheel : hours) {
+            total += wheel != null ? wheel.size : 0;
+        }
+        return total;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(hours, null);
+        products.clear();
+    }
+
+    private Set<Long> slot(int minuteOfDay, boolean create) {
+        int hour = minuteOfDay / 60;
+        MinuteWheel wheel = hours[hour];
+        if (wheel == null) {
+            if (!create) {
+                return null;
+            }
+            wheel = hours[hour] = new MinuteWheel();
+        }
+
+        int minute = minuteOfDay % 60;
+        Set<Long> slot = wheel.minutes[minute];
+        if (slot == null && create) {
+            slot = wheel.minutes[minute] = new HashSet<>();
+        }
+        return slot;
+    }
+}
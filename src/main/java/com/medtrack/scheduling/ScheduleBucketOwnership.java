@@ -0,0 +1,141 @@
+package com.medtrack.scheduling;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.repository.ScheduleLeaseRepo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Splits scheduled work across application instances.
+ *
+ * Users are hashed into a fixed number of buckets and each bucket is leased to
+ * one node through the {@code schedule_bucket_lease} table. Every node sends a
+ * heartbeat, renews its leases and aims for an equal share of the buckets: a
+ * node above its share releases buckets, and a node below it claims buckets
+ * that are free or whose lease has expired. Joining and leaving nodes therefore
+ * rebalance within a couple of heartbeats.
+ *
+ * Leases last two thirds of the lease interval and are renewed every third, so
+ * a crashed node's buckets are free and claimed by the survivors within one
+ * lease interval. A node stops treating a bucket as its own as soon as its
+ * local copy of the lease runs out, even if it could not reach the database to
+ * learn that.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ScheduleBucketOwnership {
+
+    private final ScheduleLeaseRepo scheduleLeaseRepo;
+
+    @Value("${medtrack.cluster.bucket-count:64}")
+    private int bucketCount;
+
+    @Value("${medtrack.cluster.lease-interval-ms:30000}")
+    private long leaseIntervalMillis;
+
+    @Value("${medtrack.cluster.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+
+    private volatile BitSet ownedBuckets = new BitSet();
+    private volatile long ownedUntilMillis;
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : configuredNodeId;
+        scheduleLeaseRepo.createTablesIfMissing(bucketCount);
+        heartbeat();
+        log.info("Scheduler node {} started with {} of {} buckets", nodeId, ownedBuckets.cardinality(), bucketCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ownedBuckets = new BitSet();
+        try {
+            scheduleLeaseRepo.releaseAll(nodeId);
+            log.info("Scheduler node {} released its buckets", nodeId);
+        } catch (Exception e) {
+            log.warn("Scheduler node {} could not release buckets; they will expire", nodeId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "#{${medtrack.cluster.lease-interval-ms:30000} / 3}", initialDelayString = "#{${medtrack.cluster.lease-interval-ms:30000} / 3}")
+    public void heartbeat() {
+        long ttl = leaseIntervalMillis * 2 / 3;
+        long renewedAt = System.currentTimeMillis();
+
+        try {
+            scheduleLeaseRepo.heartbeat(nodeId);
+            int liveNodes = Math.max(1, scheduleLeaseRepo.countLiveNodes(ttl));
+            int fairShare = (bucketCount + liveNodes - 1) / liveNodes;
+
+            List<Integer> held = new ArrayList<>(scheduleLeaseRepo.renew(nodeId, ttl, bucketCount));
+
+            if (held.size() > fairShare) {
+                held.sort(Comparator.reverseOrder());
+                List<Integer> surplus = new ArrayList<>(held.subList(0, held.size() - fairShare));
+                scheduleLeaseRepo.release(nodeId, surplus);
+                held.removeAll(surplus);
+                log.info("Node {} released buckets {} ({} live nodes)", nodeId, surplus, liveNodes);
+            } else if (held.size() < fairShare) {
+                List<Integer> claimed = scheduleLeaseRepo.claim(nodeId, ttl, bucketCount, fairShare - held.size());
+                if (!claimed.isEmpty()) {
+                    held.addAll(claimed);
+                    log.info("Node {} claimed buckets {} ({} live nodes)", nodeId, claimed, liveNodes);
+                }
+            }
+
+            BitSet owned = new BitSet(bucketCount);
+            held.forEach(owned::set);
+            ownedBuckets = owned;
+            ownedUntilMillis = renewedAt + ttl;
+        } catch (Exception e) {
+            // keep the current set until the local lease copy runs out
+            log.error("Lease heartbeat failed for node {}", nodeId, e);
+        }
+    }
+
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    public int bucketOf(long userId) {
+        return (int) Math.floorMod(userId, (long) bucketCount);
+    }
+
+    public boolean ownsUser(long userId) {
+        return ownsBucket(bucketOf(userId));
+    }
+
+    public boolean ownsBucket(int bucket) {
+        return System.currentTimeMillis() < ownedUntilMillis && ownedBuckets.get(bucket);
+    }
+
+    /**
+     * Buckets currently held by this node, empty once the leases have lapsed
+     */
+    public List<Integer> ownedBuckets() {
+        if (System.currentTimeMillis() >= ownedUntilMillis) {
+            return List.of();
+        }
+        return ownedBuckets.stream().boxed().toList();
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,131 @@
+package com.medtrack.scheduling;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.medtrack.repository.UsageLogPartitionRepo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@code medicine_usage_log} range partitioned by month of
+ * {@code created_at}.
+ *
+ * At startup a plain table is converted once, in a single transaction. After
+ * that, partitions are created {@code months-ahead} months in advance, and
+ * partitions older than {@code retention-months} are detached and then either
+ * dropped or moved to the archive schema. Retiring a month is a catalog change
+ * rather than a DELETE, so it leaves no dead rows to vacuum. Adherence history
+ * outlives its logs in {@code usage_daily_rollup}.
+ *
+ * Every log query is bounded on {@code created_at}, so Postgres prunes it to
+ * the partitions of the range. A default partition catches logs of months
+ * that have no partition yet; maintenance moves them out when it creates
+ * their month and warns that they were there.
+ */
+@Component
+@Order(0)
+@Slf4j
+@RequiredArgsConstructor
+public class UsageLogPartitionManager implements ApplicationRunner {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final UsageLogPartitionRepo partitionRepo;
+
+    @Value("${medtrack.usage-log.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition
+    @Value("${medtrack.usage-log.retention-months:0}")
+    private int retentionMonths;
+
+    // drop or archive
+    @Value("${medtrack.usage-log.retention-action:drop}")
+    private String retentionAction;
+
+    @Value("${medtrack.usage-log.archive-schema:usage_log_archive}")
+    private String archiveSchema;
+
+    @PostConstruct
+    void validate() {
+        if (!retentionAction.equals("drop") && !retentionAction.equals("archive")) {
+            throw new IllegalStateException("medtrack.usage-log.retention-action must be drop or archive");
+        }
+        if (!archiveSchema.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("medtrack.usage-log.archive-schema is not a plain identifier");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        if (!partitionRepo.exists() || !partitionRepo.tryLock()) {
+            return;
+        }
+        YearMonth current = YearMonth.now(KOLKATA_ZONE);
+        if (!partitionRepo.isPartitioned()) {
+            int moved = partitionRepo.convertToPartitioned(current.plusMonths(monthsAhead));
+            log.info("Partitioned {} by month ({} rows moved)", UsageLogPartitionRepo.TABLE, moved);
+        }
+        partitionRepo.createIndexes();
+        maintain(current);
+    }
+
+    @Scheduled(cron = "${medtrack.usage-log.partition-cron:0 15 3 * * *}", zone = "Asia/Kolkata")
+    @Transactional
+    public void maintain() {
+        if (partitionRepo.isPartitioned() && partitionRepo.tryLock()) {
+            maintain(YearMonth.now(KOLKATA_ZONE));
+        }
+    }
+
+    /**
+     * Creates the partitions of the given range of months if missing
+     */
+    @Transactional
+    public void ensurePartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            partitionRepo.createPartition(month);
+        }
+    }
+
+    private void maintain(YearMonth current) {
+        partitionRepo.createDefaultPartition();
+        long unpartitioned = partitionRepo.defaultPartitionRows();
+        if (unpartitioned > 0) {
+            log.warn("{} usage logs are in {}; their months had no partition",
+                    unpartitioned, UsageLogPartitionRepo.DEFAULT_PARTITION);
+        }
+        ensurePartitions(current, current.plusMonths(monthsAhead));
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String partition : partitionRepo.partitions()) {
+            YearMonth month = UsageLogPartitionRepo.monthOf(partition);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            partitionRepo.detach(partition);
+            if (retentionAction.equals("archive")) {
+                partitionRepo.archive(partition, archiveSchema);
+                log.info("Archived usage log partition {} to schema {}", partition, archiveSchema);
+            } else {
+                partitionRepo.drop(partition);
+                log.info("Dropped usage log partition {}", partition);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.medtrack.scheduling;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.medtrack.model.SchedulerWatermark;
+import com.medtrack.repository.SchedulerWatermarkRepo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills {@code usage_daily_rollup} from the usage logs written before the
+ * rollup existed.
+ *
+ * Works through the log history in chunks of {@code chunk-days}, each in its
+ * own transaction. A chunk recounts its days from the logs and overwrites
+ * their rollup rows while holding a lock that blocks concurrent increments,
+ * so rows touched by {@code add()} before or during the backfill end up exact.
+ * Overwriting makes the job safe to repeat; once it has finished, a watermark
+ * keeps later starts from running it again.
+ */
+@Component
+@Order(1)
+@Slf4j
+@RequiredArgsConstructor
+public class UsageRollupBackfill implements ApplicationRunner {
+
+    private static final String WATERMARK = "usage-rollup-backfill";
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerWatermarkRepo watermarkRepo;
+
+    @Value("${medtrack.usage-rollup.backfill-chunk-days:31}")
+    private int chunkDays;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (watermarkRepo.existsById(WATERMARK)) {
+            return;
+        }
+
+        Date first = jdbcTemplate.queryForObject("SELECT min(created_at)::date FROM medicine_usage_log", Date.class);
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+
+        int days = 0;
+        if (first != null) {
+            for (LocalDate from = first.toLocalDate(); !from.isAfter(today); from = from.plusDays(chunkDays)) {
+                LocalDate chunkStart = from;
+                LocalDate chunkEnd = from.plusDays(chunkDays);
+                Integer rows = transactionTemplate.execute(status -> backfill(chunkStart, chunkEnd));
+                days += rows != null ? rows : 0;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now(KOLKATA_ZONE);
+        watermarkRepo.save(SchedulerWatermark.builder()
+                .name(WATERMARK)
+                .processedUntil(today.atStartOfDay())
+                .updatedAt(now)
+                .build());
+        log.info("Usage rollup backfill finished: {} product-days written", days);
+    }
+
+    private int backfill(LocalDate from, LocalDate until) {
+        // conflicts with the ROW EXCLUSIVE lock taken by every increment
+        jdbcTemplate.execute("LOCK TABLE usage_daily_rollup IN SHARE ROW EXCLUSIVE MODE");
+
+        return jdbcTemplate.update("""
+                INSERT INTO usage_daily_rollup (user_id, health_product_id, day, taken, missed)
+                SELECT user_id, health_product_id, created_at::date,
+                       count(*) FILTER (WHERE is_taken),
+                       count(*) FILTER (WHERE is_taken IS NOT TRUE)
+                FROM medicine_usage_log
+                WHERE created_at >= ? AND created_at < ?
+                GROUP BY 1, 2, 3
+                ON CONFLICT (user_id, health_product_id, day) DO UPDATE
+                SET taken = EXCLUDED.taken, missed = EXCLUDED.missed""",
+                from.atStartOfDay(), until.atStartOfDay());
+    }
+}
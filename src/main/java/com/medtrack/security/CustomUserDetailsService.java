@@ -4,6 +4,10 @@ import com.medtrack.model.User;
 import com.medtrack.repository.UserRepo;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -15,6 +19,10 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepo userRepo;
 
+    // Comma separated list of emails granted ROLE_ADMIN
+    @Value("${medtrack.admin.emails:}")
+    private Set<String> adminEmails;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepo.findOneByEmail(email)
@@ -23,7 +31,9 @@ public class CustomUserDetailsService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User
                 .withUsername(user.getEmail())
                 .password(user.getPassword())
-                .authorities("ROLE_USER") // or user.getRole() if you have roles
+                .authorities(adminEmails.contains(user.getEmail())
+                        ? new String[] { "ROLE_USER", "ROLE_ADMIN" }
+                        : new String[] { "ROLE_USER" })
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
@@ -0,0 +1,223 @@
+package com.medtrack.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.dto.AdherenceHeatmapDto;
+import com.medtrack.dto.AdherenceSeriesDto;
+import com.medtrack.dto.SlotAdherenceDto;
+import com.medtrack.exceptions.AuthException;
+import com.medtrack.model.DoseSlotMonth;
+import com.medtrack.repository.DoseSlotMonthRepo;
+import com.medtrack.repository.MedicineUsageLogRepo;
+import com.medtrack.repository.MedicineUsageLogRepo.HourTotals;
+import com.medtrack.repository.UsageDailyRollupRepo;
+import com.medtrack.repository.UsageDailyRollupRepo.DayTotals;
+import com.medtrack.repository.UserRepo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Adherence trends and weekday/hour heatmaps of a user.
+ *
+ * Logs are only ever written with the current time, so every day before today
+ * is final. The past part of each result is aggregated once per user, window
+ * and day and kept in memory; only today's bucket is queried on every call,
+ * which keeps a refresh after a new log to two one-day queries.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdherenceAnalyticsService {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final int HEATMAP_CELLS = 7 * 24;
+
+    private final UserRepo userRepo;
+    private final UsageDailyRollupRepo usageDailyRollupRepo;
+    private final MedicineUsageLogRepo medicineUsageLogRepo;
+    private final DoseSlotMonthRepo doseSlotMonthRepo;
+
+    @Value("${medtrack.adherence.max-days:366}")
+    private int maxDays;
+
+    @Value("${medtrack.adherence.cache-size:10000}")
+    private int cacheSize;
+
+    private record Key(long userId, int days) {
+    }
+
+    // counts of the days before asOf; index 0 is the first day of the window
+    private record PastCounts(LocalDate asOf, int[] taken, int[] missed) {
+    }
+
+    private Map<Key, PastCounts> pastSeries;
+    private Map<Key, PastCounts> pastHeatmaps;
+
+    @PostConstruct
+    void init() {
+        pastSeries = lru(cacheSize);
+        pastHeatmaps = lru(cacheSize);
+    }
+
+    /**
+     * Taken, missed and adherence per day over the last {@code days} days
+     * including today
+     */
+    public AdherenceSeriesDto dailySeries(Long userId, int days) {
+        checkRequest(userId, days);
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        LocalDate from = today.minusDays(days - 1);
+
+        PastCounts past = cached(pastSeries, new Key(userId, days), today, () -> {
+            int[] taken = new int[days - 1];
+            int[] missed = new int[days - 1];
+            for (DayTotals day : usageDailyRollupRepo.findDailyTotals(userId, from, today)) {
+                int index = (int) (day.getDay().toEpochDay() - from.toEpochDay());
+                taken[index] = day.getTaken().intValue();
+                missed[index] = day.getMissed().intValue();
+            }
+            return new PastCounts(today, taken, missed);
+        });
+
+        int[] taken = new int[days];
+        int[] missed = new int[days];
+        System.arraycopy(past.taken(), 0, taken, 0, days - 1);
+        System.arraycopy(past.missed(), 0, missed, 0, days - 1);
+        for (DayTotals day : usageDailyRollupRepo.findDailyTotals(userId, today, today.plusDays(1))) {
+            taken[days - 1] = day.getTaken().intValue();
+            missed[days - 1] = day.getMissed().intValue();
+        }
+
+        float[] adherence = new float[days];
+        for (int i = 0; i < days; i++) {
+            int total = taken[i] + missed[i];
+            adherence[i] = total == 0 ? -1f : Math.round(taken[i] * 1000f / total) / 10f;
+        }
+        return new AdherenceSeriesDto(from, taken, missed, adherence);
+    }
+
+    /**
+     * Taken and missed doses by weekday and hour over the last {@code days}
+     * days including today
+     */
+    public AdherenceHeatmapDto heatmap(Long userId, int days) {
+        checkRequest(userId, days);
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        LocalDate from = today.minusDays(days - 1);
+
+        PastCounts past = cached(pastHeatmaps, new Key(userId, days), today, () -> {
+            int[] taken = new int[HEATMAP_CELLS];
+            int[] missed = new int[HEATMAP_CELLS];
+            addCells(hourTotals(userId, from, today), taken, missed);
+            return new PastCounts(today, taken, missed);
+        });
+
+        int[] taken = past.taken().clone();
+        int[] missed = past.missed().clone();
+        addCells(hourTotals(userId, today, today.plusDays(1)), taken, missed);
+        return new AdherenceHeatmapDto(from, today, taken, missed);
+    }
+
+    // Kolkata days [from, until) as instants; the cells are Kolkata weekdays and hours
+    private List<HourTotals> hourTotals(Long userId, LocalDate from, LocalDate until) {
+        return medicineUsageLogRepo.findHourTotals(userId,
+                Timestamp.from(from.atStartOfDay(KOLKATA_ZONE).toInstant()),
+                Timestamp.from(until.atStartOfDay(KOLKATA_ZONE).toInstant()),
+                TimeZone.getDefault().getID());
+    }
+
+    /**
+     * Taken and missed dose slots per product over the last {@code days} days
+     * including today, counted with a popcount per day of the slot bitmaps
+     */
+    public List<SlotAdherenceDto> slotAdherence(Long userId, int days) {
+        checkRequest(userId, days);
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        LocalDate from = today.minusDays(days - 1);
+
+        Map<Long, int[]> counts = new LinkedHashMap<>();
+        Map<Long, long[]> todays = new LinkedHashMap<>();
+        for (DoseSlotMonth month : doseSlotMonthRepo.findByUserIdAndMonthStartBetween(userId,
+                from.withDayOfMonth(1), today.withDayOfMonth(1))) {
+            int[] count = counts.computeIfAbsent(month.getHealthProductId(), id -> new int[2]);
+            long[] taken = month.getTaken();
+            long[] missed = month.getMissed();
+
+            // days of this month inside [from, today], 0-based
+            LocalDate monthStart = month.getMonthStart();
+            int first = monthStart.isBefore(from) ? from.getDayOfMonth() - 1 : 0;
+            int last = monthStart.equals(today.withDayOfMonth(1)) ? today.getDayOfMonth() - 1 : taken.length - 1;
+            for (int day = first; day <= last && day < taken.length; day++) {
+                count[0] += Long.bitCount(taken[day]);
+                count[1] += Long.bitCount(missed[day]);
+            }
+            if (monthStart.equals(today.withDayOfMonth(1))) {
+                todays.put(month.getHealthProductId(),
+                        new long[] { taken[today.getDayOfMonth() - 1], missed[today.getDayOfMonth() - 1] });
+            }
+        }
+
+        List<SlotAdherenceDto> result = new ArrayList<>(counts.size());
+        counts.forEach((healthProductId, count) -> {
+            int total = count[0] + count[1];
+            long[] todayBits = todays.getOrDefault(healthProductId, new long[2]);
+            result.add(new SlotAdherenceDto(healthProductId, count[0], count[1],
+                    total == 0 ? -1f : Math.round(count[0] * 1000f / total) / 10f, todayBits[0], todayBits[1]));
+        });
+        return result;
+    }
+
+    private void checkRequest(Long userId, int days) {
+        if (days < 1 || days > maxDays) {
+            throw new AuthException("Days must be between 1 and %d".formatted(maxDays));
+        }
+        if (!userRepo.existsById(userId)) {
+            throw new EntityNotFoundException("User Not Found");
+        }
+    }
+
+    private static void addCells(List<HourTotals> hours, int[] taken, int[] missed) {
+        for (HourTotals hour : hours) {
+            int cell = hour.getDayOfWeek() * 24 + hour.getHour();
+            taken[cell] += hour.getTaken().intValue();
+            missed[cell] += hour.getMissed().intValue();
+        }
+    }
+
+    private static PastCounts cached(Map<Key, PastCounts> cache, Key key, LocalDate today,
+            Supplier<PastCounts> load) {
+        PastCounts past;
+        synchronized (cache) {
+            past = cache.get(key);
+        }
+        if (past != null && past.asOf().equals(today)) {
+            return past;
+        }
+        past = load.get();
+        synchronized (cache) {
+            cache.put(key, past);
+        }
+        return past;
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
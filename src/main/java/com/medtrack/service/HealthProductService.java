@@ -2,23 +2,29 @@
 package com.medtrack.service;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.medtrack.catalog.CatalogEntry;
+import com.medtrack.catalog.MedicineCatalogService;
 import com.medtrack.dto.HealthProductRequestDto;
+import com.medtrack.events.HealthProductChangedEvent;
+import com.medtrack.events.ProductStockChangedEvent;
 import com.medtrack.exceptions.AuthException;
 import com.medtrack.kafka.service.NotificationProducerService;
+import com.medtrack.mapper.HealthProductMapper;
 import com.medtrack.model.HealthProduct;
-import com.medtrack.model.MedicineReminder;
+import com.medtrack.model.ScheduleRule;
 import com.medtrack.model.User;
 import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.MedicineReminderRepo;
 import com.medtrack.repository.UserRepo;
+import com.medtrack.scheduling.CompiledSchedule;
+import com.medtrack.utils.ReminderMinutes;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -36,6 +42,10 @@ public class HealthProductService {
     private final HealthProductRepo healthProductRepository;
     private final NotificationProducerService notificationProducerService; // NEW: Kafka producer
     private final UserRepo userRepo;
+    private final MedicineCatalogService medicineCatalogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HealthProductMapper healthProductMapper;
+    private final MedicineReminderRepo medicineReminderRepo;
 
     private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
 
@@ -48,39 +58,41 @@ public class HealthProductService {
                 .orElseThrow(() -> new EntityNotFoundException("User Not Found"));
         log.info("Creating health product for user: {}", user.getEmail());
 
+        // Known medicines are stored under their catalog name so spelling variants
+        // and brand names don't end up as separate products
+        CatalogEntry catalogEntry = medicineCatalogService.resolve(dto.healthProductName()).orElse(null);
+        String name = catalogEntry != null ? catalogEntry.name() : dto.healthProductName().strip();
+        String unit = dto.unit() == null && catalogEntry != null ? catalogEntry.defaultUnit() : dto.unit();
+
+        short[] reminderMinutes = ReminderMinutes.parse(dto.reminderTimes());
+        ScheduleRule scheduleRule = healthProductMapper.toScheduleRule(dto.scheduleRule(), reminderMinutes, null,
+                LocalDate.now(KOLKATA_ZONE));
+
         // Build HealthProduct entity from DTO
         HealthProduct product = HealthProduct.builder()
-                .name(dto.healthProductName())
+                .name(name)
                 .totalQuantity(dto.totalQuantity())
                 .availableQuantity(dto.totalQuantity()) // Initially, available equals total
                 .thresholdQuantity(
                         dto.thresholdQuantity() != null ? dto.thresholdQuantity() : dto.totalQuantity() * 0.1f)
                 .doseQuantity(dto.doseQuantity())
                 .expiryDate(dto.expiryDate())
-                .unit(dto.unit())
+                .unit(unit)
+                .reminderMinutes(CompiledSchedule.compile(reminderMinutes, scheduleRule, dto.doseQuantity()).wheelMinutes())
+                .scheduleRule(scheduleRule)
                 .user(user)
                 .build();
 
-        // Map reminder times from DTO to MedicineReminder entities
-        if (dto.reminderTimes() != null && !dto.reminderTimes().isEmpty()) {
-            Set<MedicineReminder> reminders = dto.reminderTimes().stream()
-                    .map(timeStr -> {
-                        MedicineReminder reminder = new MedicineReminder();
-                        reminder.setTime(LocalTime.parse(timeStr));
-                        reminder.setHealthProduct(product);
-                        return reminder;
-                    })
-                    .collect(Collectors.toSet());
-
-            product.setMedicineReminders(reminders);
-        }
-
         HealthProduct savedProduct = healthProductRepository.save(product);
+        publishChanged(savedProduct);
 
-        // NEW: Send expiry notification to Kafka instead of old notification service
+        // Products already inside the warning window are not picked up by the
+        // daily expiry run, so warn about them now
         try {
-            notificationProducerService.sendExpiryNotification(savedProduct);
-            log.info("Expiry notification queued for product: {}", savedProduct.getName());
+            if (notificationProducerService.isWithinExpiryWarning(savedProduct.getExpiryDate())) {
+                notificationProducerService.sendExpiryNotification(savedProduct);
+                log.info("Expiry notification queued for product: {}", savedProduct.getName());
+            }
         } catch (Exception e) {
             log.error("Failed to queue expiry notification for product: {}", savedProduct.getName(), e);
             // Don't fail the entire operation if notification fails
@@ -113,30 +125,39 @@ public class HealthProductService {
         existingProduct.setExpiryDate(dto.expiryDate());
         existingProduct.setUnit(dto.unit());
 
-        // Handle reminder updates if provided
-        if (dto.reminderTimes() != null) {
-            // Clear existing reminders
-            existingProduct.getMedicineReminders().clear();
-
-            // Add new reminders
-            Set<MedicineReminder> reminders = dto.reminderTimes().stream()
-                    .map(timeStr -> {
-                        MedicineReminder reminder = new MedicineReminder();
-                        reminder.setTime(LocalTime.parse(timeStr));
-                        reminder.setHealthProduct(existingProduct);
-                        return reminder;
-                    })
-                    .collect(Collectors.toSet());
-
-            existingProduct.setMedicineReminders(reminders);
+        // Reminder times and dosing pattern are each kept unless provided; the
+        // stored minutes are recompiled from whatever results
+        if (dto.reminderTimes() != null || dto.scheduleRule() != null) {
+            ScheduleRule existingRule = existingProduct.getScheduleRule();
+            short[] reminderMinutes = dto.reminderTimes() != null ? ReminderMinutes.parse(dto.reminderTimes())
+                    : healthProductMapper.ownMinutes(existingProduct);
+
+            ScheduleRule scheduleRule;
+            if (dto.scheduleRule() != null) {
+                scheduleRule = healthProductMapper.toScheduleRule(dto.scheduleRule(), reminderMinutes, existingRule,
+                        LocalDate.now(KOLKATA_ZONE));
+            } else {
+                scheduleRule = existingRule;
+                // new times move an interval rule's anchor with them
+                if (scheduleRule != null && scheduleRule.getIntervalHours() != null && reminderMinutes.length > 0) {
+                    scheduleRule.setAnchorMinute(reminderMinutes[0]);
+                }
+            }
+
+            existingProduct.setReminderMinutes(
+                    CompiledSchedule.compile(reminderMinutes, scheduleRule, dto.doseQuantity()).wheelMinutes());
+            existingProduct.setScheduleRule(scheduleRule);
         }
 
         HealthProduct savedProduct = healthProductRepository.save(existingProduct);
+        publishChanged(savedProduct);
 
-        // NEW: Update expiry notification in Kafka
+        // A new expiry date inside the warning window is warned about right away
         try {
-            notificationProducerService.sendExpiryNotification(savedProduct);
-            log.info("Updated expiry notification queued for product: {}", savedProduct.getName());
+            if (notificationProducerService.isWithinExpiryWarning(savedProduct.getExpiryDate())) {
+                notificationProducerService.sendExpiryNotification(savedProduct);
+                log.info("Updated expiry notification queued for product: {}", savedProduct.getName());
+            }
         } catch (Exception e) {
             log.error("Failed to update expiry notification for product: {}", savedProduct.getName(), e);
         }
@@ -152,7 +173,10 @@ public class HealthProductService {
         HealthProduct product = healthProductRepository.findById(healthProductId)
                 .orElseThrow(() -> new EntityNotFoundException("Health Product not found"));
 
+        // legacy reminder rows are kept after the migration and still reference the product
+        medicineReminderRepo.deleteByHealthProductId(healthProductId);
         healthProductRepository.delete(product);
+        eventPublisher.publishEvent(HealthProductChangedEvent.deleted(healthProductId, product.getUser().getId()));
 
         // NOTE: We don't need to explicitly cancel notifications in Kafka
         // The consumer will handle non-existent products gracefully
@@ -228,15 +252,21 @@ public class HealthProductService {
         HealthProduct product = healthProductRepository.findById(healthProductId)
                 .orElseThrow(() -> new EntityNotFoundException("Health Product not found"));
 
-        if (product.getAvailableQuantity() < product.getDoseQuantity()) {
+        // a tapering schedule lowers the dose taken on later days
+        float dose = CompiledSchedule.of(product).doseOn(LocalDate.now(KOLKATA_ZONE));
+
+        if (product.getAvailableQuantity() < dose) {
             throw new AuthException("Insufficient quantity available for dose");
         }
 
         Float originalQuantity = product.getAvailableQuantity();
-        Float newQuantity = originalQuantity - product.getDoseQuantity();
+        Float newQuantity = originalQuantity - dose;
         product.setAvailableQuantity(Math.max(0f, newQuantity)); // Don't go below zero
 
         HealthProduct updatedProduct = healthProductRepository.save(product);
+        // the schedule is unchanged, so reminders and calendar feeds are left alone
+        eventPublisher.publishEvent(new ProductStockChangedEvent(updatedProduct.getId(),
+                updatedProduct.getUser().getId()));
 
         // NEW: Check for low stock or out of stock and send notifications
         try {
@@ -256,4 +286,12 @@ public class HealthProductService {
 
         return updatedProduct;
     }
-}
\ No newline at end of file
+
+    /**
+     * Lets schedule and cache listeners update from the saved state after commit
+     */
+    private void publishChanged(HealthProduct product) {
+        eventPublisher.publishEvent(new HealthProductChangedEvent(
+                product.getId(), product.getUser().getId(), CompiledSchedule.of(product), false));
+    }
+}
@@ -1,23 +1,35 @@
 package com.medtrack.service;
 
-import java.time.LocalDateTime;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.medtrack.dto.DoseEventDto;
 import com.medtrack.dto.MedicineUsageLogDto;
 import com.medtrack.dto.MedicineUsageSummaryDto;
+import com.medtrack.events.MedicineUsageLoggedEvent;
 import com.medtrack.exceptions.AuthException;
+import com.medtrack.ingestion.UsageLogWriteBuffer;
+import com.medtrack.kafka.service.NotificationProducerService;
 import com.medtrack.model.HealthProduct;
 import com.medtrack.model.MedicineUsageLog;
+import com.medtrack.model.User;
+import com.medtrack.repository.DoseEventRepo;
+import com.medtrack.repository.DoseEventRepo.DoseOutcome;
 import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.HealthProductRepo.LogTarget;
 import com.medtrack.repository.MedicineUsageLogRepo;
+import com.medtrack.repository.MedicineUsageLogRepo.ProductUsage;
+import com.medtrack.repository.UsageDailyRollupRepo;
+import com.medtrack.repository.UsageLogBatchRepo;
+import com.medtrack.repository.UsageLogBatchRepo.LogRow;
 import com.medtrack.repository.UserRepo;
+import com.medtrack.scheduling.CompiledSchedule;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -30,159 +42,169 @@ public class MedicineUsageLogService {
         private final MedicineUsageLogRepo medicineUsageLogRepo;
         private final UserRepo userRepo;
         private final HealthProductRepo healthProductRepo;
-        private final HealthProductService healthProductService;
+        private final UsageDailyRollupRepo usageDailyRollupRepo;
+        private final UsageLogWriteBuffer usageLogWriteBuffer;
+        private final UsageLogBatchRepo usageLogBatchRepo;
+        private final DoseEventRepo doseEventRepo;
+        private final NotificationProducerService notificationProducerService;
+        private final ApplicationEventPublisher eventPublisher;
+
+        private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+        /**
+         * Validates and records a usage log. With buffered ingestion the log is
+         * committed by the write buffer and the returned future completes with
+         * its batch; otherwise it is written here and the future is already
+         * complete.
+         */
+        @Transactional
+        public CompletableFuture<Void> add(MedicineUsageLogDto logDto) {
+                return add(logDto, true);
+        }
 
+        /**
+         * Validates and records a usage log. Without {@code buffered} the log
+         * is always written in the caller's transaction, for writes that must
+         * commit or roll back together with something else.
+         */
         @Transactional
-        public void add(MedicineUsageLogDto logDto) {
+        public CompletableFuture<Void> add(MedicineUsageLogDto logDto, boolean buffered) {
 
-                var user = userRepo.findById(logDto.getUserId())
+                LogTarget target = healthProductRepo.findLogTarget(logDto.getUserId(), logDto.getHealthProductId())
                                 .orElseThrow(() -> new EntityNotFoundException("User Not Found"));
-                System.out.println("User found: " + user);
-                System.out.println("Log DTO: " + logDto.getHealthProductId());
-                var healthProduct = healthProductRepo.findById(logDto.getHealthProductId())
-                                .orElseThrow(() -> new EntityNotFoundException("Product Not Found"));
-                System.out.println("Health product found: " + healthProduct);
+                if (target.getHealthProductId() == null) {
+                        throw new EntityNotFoundException("Product Not Found");
+                }
 
-                if (logDto.getIsTaken() && (healthProduct.getTotalQuantity() < healthProduct.getDoseQuantity())) {
+                if (logDto.getIsTaken() && (target.getTotalQuantity() < target.getDoseQuantity())) {
                         throw new AuthException("Insufficient dose quantity available");
                 }
 
-                System.out.println("Is taken: " + logDto.getIsTaken());
-
-                // if (logDto.getIsTaken()) {
-                //         healthProductService.recordMedicineUsage(healthProduct.getId());
-                // }
+                if (buffered && usageLogWriteBuffer.isEnabled()) {
+                        CompletableFuture<Void> committed = usageLogWriteBuffer.submit(target.getUserId(),
+                                        target.getHealthProductId(), Boolean.TRUE.equals(logDto.getIsTaken()));
+                        if (committed != null) {
+                                return committed;
+                        }
+                }
 
+                // references only set the foreign keys; neither entity is loaded
                 MedicineUsageLog medicineUsageLog = MedicineUsageLog.builder()
                                 .isTaken(logDto.getIsTaken())
-                                .user(user) // Setting the user of the log
-                                .healthProduct(healthProduct) // Setting the health product involved
+                                .user(userRepo.getReferenceById(target.getUserId()))
+                                .healthProduct(healthProductRepo.getReferenceById(target.getHealthProductId()))
                                 .build();
-
-                System.out.println("Medicine usage log created: " + medicineUsageLog);
                 medicineUsageLogRepo.save(medicineUsageLog);
-        }
-
-        public List<MedicineUsageSummaryDto> getLogForTime(Long userId, Integer days) {
 
-                userRepo.findById(userId).orElseThrow(() -> new EntityNotFoundException("User Not Found"));
-
-                ZonedDateTime kolkataTime = ZonedDateTime.now(ZoneId.of("Asia/Kolkata"));
-                ZonedDateTime dateFromKolkata = kolkataTime.minusDays(days);
-                LocalDateTime dateFrom = dateFromKolkata.toLocalDateTime();
+                // Same transaction, so the rollup and slots never disagree with the logs
+                boolean taken = Boolean.TRUE.equals(medicineUsageLog.getIsTaken());
+                usageDailyRollupRepo.increment(target.getUserId(), target.getHealthProductId(),
+                                medicineUsageLog.getCreatedAt().toInstant().atZone(KOLKATA_ZONE).toLocalDate(),
+                                taken ? 1 : 0, taken ? 0 : 1);
+                usageLogBatchRepo.markSlots(List.of(new LogRow(medicineUsageLog.getId(), target.getUserId(),
+                                target.getHealthProductId(), taken, medicineUsageLog.getCreatedAt())));
+                eventPublisher.publishEvent(new MedicineUsageLoggedEvent(medicineUsageLog.getId(),
+                                target.getUserId(), target.getHealthProductId(), taken,
+                                medicineUsageLog.getCreatedAt()));
+                return CompletableFuture.completedFuture(null);
+        }
 
-                List<MedicineUsageLog> logs = medicineUsageLogRepo.findAllByUserIdAndCreatedAtIsAfter(userId, dateFrom);
+        /**
+         * Records a dose in one statement: the usage log, the stock decrement of
+         * a taken dose, the daily rollup and the dose slot bit. A stock alert is sent only when this
+         * dose moves the stock across the threshold or to zero, so repeated doses
+         * below the threshold do not repeat the alert.
+         */
+        @Transactional
+        public DoseEventDto recordDose(MedicineUsageLogDto logDto) {
+                boolean taken = Boolean.TRUE.equals(logDto.getIsTaken());
+                long logId = usageLogBatchRepo.reserveIds(1)[0];
+                Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+
+                DoseOutcome outcome = doseEventRepo.record(logId, logDto.getUserId(), logDto.getHealthProductId(),
+                                taken, createdAt);
+                if (outcome == null) {
+                        throw new EntityNotFoundException("Product Not Found");
+                }
+                if (!outcome.logged()) {
+                        throw new AuthException("Insufficient quantity available for dose");
+                }
+                eventPublisher.publishEvent(new MedicineUsageLoggedEvent(logId, outcome.userId(),
+                                outcome.healthProductId(), taken, createdAt));
+
+                String stockAlert = null;
+                if (taken) {
+                        float threshold = outcome.thresholdQuantity() != null ? outcome.thresholdQuantity() : 0f;
+                        if (outcome.availableAfter() <= 0 && outcome.availableBefore() > 0) {
+                                stockAlert = "OUT_OF_STOCK";
+                                notificationProducerService.sendOutOfStockNotification(alertProduct(outcome));
+                        } else if (outcome.availableAfter() <= threshold && outcome.availableBefore() > threshold) {
+                                stockAlert = "LOW_STOCK";
+                                notificationProducerService.sendLowStockNotification(alertProduct(outcome));
+                        }
+                }
 
-                Map<Long, List<MedicineUsageLog>> groupedByHealthProduct = logs.stream()
-                                .collect(Collectors.groupingBy(product -> product.getHealthProduct().getId()));
+                return new DoseEventDto(logId, outcome.healthProductId(), taken, taken ? outcome.dose() : 0f,
+                                outcome.availableAfter(), stockAlert);
+        }
 
-                // Convert to DTOs
-                return groupedByHealthProduct.entrySet().stream()
-                                .map(entry -> {
-                                        Long productId = entry.getKey();
-                                        List<MedicineUsageLog> productLogs = entry.getValue();
+        // the fields the stock notifications read, taken from the dose statement
+        private static HealthProduct alertProduct(DoseOutcome outcome) {
+                return HealthProduct.builder()
+                                .id(outcome.healthProductId())
+                                .name(outcome.name())
+                                .unit(outcome.unit())
+                                .expiryDate(outcome.expiryDate())
+                                .availableQuantity(outcome.availableAfter())
+                                .thresholdQuantity(outcome.thresholdQuantity())
+                                .user(User.builder()
+                                                .id(outcome.userId())
+                                                .email(outcome.userEmail())
+                                                .fullname(outcome.userName())
+                                                .build())
+                                .build();
+        }
 
-                                        MedicineUsageSummaryDto dto = new MedicineUsageSummaryDto();
-                                        dto.setHealthProductId(productId);
-                                        dto.setHealthProductName(productLogs.get(0).getHealthProduct().getName());
+        /**
+         * Taken and missed counts per product over the last {@code days} calendar
+         * days including today, summed from the daily rollup
+         */
+        public List<MedicineUsageSummaryDto> getLogForTime(Long userId, Integer days) {
 
-                                        long takenCount = productLogs.stream().filter(MedicineUsageLog::getIsTaken)
-                                                        .count();
-                                        dto.setTakenCount(takenCount);
-                                        dto.setMissedCount(productLogs.size() - takenCount);
+                userRepo.findById(userId).orElseThrow(() -> new EntityNotFoundException("User Not Found"));
 
-                                        return dto;
-                                })
-                                .collect(Collectors.toList());
+                LocalDate from = LocalDate.now(KOLKATA_ZONE).minusDays(Math.max(days, 1) - 1);
+                return usageDailyRollupRepo.summarizeFrom(userId, from);
         }
 
+        /**
+         * Today's taken and missed counts of every product of the user. Doses
+         * scheduled for today that have not been taken count as missed.
+         */
         public List<MedicineUsageSummaryDto> getOneDay(Long userId) {
                 // Verify user exists
                 userRepo.findById(userId).orElseThrow(() -> new EntityNotFoundException("User Not Found"));
 
-                // Get today's date range
-                ZonedDateTime kolkataTime = ZonedDateTime.now(ZoneId.of("Asia/Kolkata"));
-                LocalDateTime now = kolkataTime.toLocalDateTime();
-                LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
-                LocalDateTime endOfDay = startOfDay.plusDays(1).minusNanos(1);
-
-                // Get today's logs
-                List<MedicineUsageLog> logs = medicineUsageLogRepo.findAllByUserIdAndCreatedAtBetween(userId,
-                                startOfDay,
-                                endOfDay);
-
-                // 🔧 CASE 1: No logs for today - return default data
-                if (logs.isEmpty()) {
-                        List<HealthProduct> healthProducts = healthProductRepo.findByUserId(userId);
-                        return healthProducts.stream()
-                                        .filter(healthProduct -> healthProduct != null) // Filter null products
-                                        .collect(Collectors.groupingBy(HealthProduct::getId))
-                                        .values().stream()
-                                        .map(productList -> {
-                                                HealthProduct healthProduct = productList.get(0);
-
-                                                MedicineUsageSummaryDto dto = new MedicineUsageSummaryDto();
-                                                dto.setHealthProductId(healthProduct.getId());
-                                                dto.setHealthProductName(
-                                                                healthProduct.getName() != null
-                                                                                ? healthProduct.getName()
-                                                                                : "Unknown Medicine");
-
-                                                // Safe null check for medicineReminders
-                                                long reminderCount = healthProduct.getMedicineReminders() != null
-                                                                ? healthProduct.getMedicineReminders().size()
-                                                                : 0;
-                                                dto.setMissedCount(reminderCount);
-                                                dto.setTakenCount(0L);
-
-                                                return dto;
-                                        })
-                                        .collect(Collectors.toList());
-                }
-
-                // 🔧 CASE 2: We have logs - process them safely
-
-                // First, filter out any logs with null health products or names
-                List<MedicineUsageLog> validLogs = logs.stream()
-                                .filter(log -> log != null)
-                                .filter(log -> log.getHealthProduct() != null)
-                                .filter(log -> log.getHealthProduct().getName() != null)
-                                .collect(Collectors.toList());
-
-                // If all logs are invalid, return empty list
-                if (validLogs.isEmpty()) {
-                        System.out.println("⚠️ All logs have null health products or names");
-                        return new ArrayList<>();
-                }
-
-                // Group valid logs by health product name
-                Map<String, List<MedicineUsageLog>> groupedByHealthProduct = validLogs.stream()
-                                .collect(Collectors.groupingBy(log -> log.getHealthProduct().getName()));
-
-                // Convert to DTOs
-                List<MedicineUsageSummaryDto> result = groupedByHealthProduct.values().stream()
-                                .map(productLogs -> {
-                                        MedicineUsageLog firstLog = productLogs.get(0);
-                                        HealthProduct healthProduct = firstLog.getHealthProduct();
-
-                                        MedicineUsageSummaryDto dto = new MedicineUsageSummaryDto();
-                                        dto.setHealthProductId(healthProduct.getId());
-                                        dto.setHealthProductName(healthProduct.getName());
-
-                                        long takenCount = productLogs.size();
-                                        dto.setTakenCount(takenCount);
-
-                                        // Safe null check for medicineReminders
-                                        long reminderCount = healthProduct.getMedicineReminders() != null
-                                                        ? healthProduct.getMedicineReminders().size()
-                                                        : 0;
-                                        dto.setMissedCount(Math.max(0, reminderCount - takenCount)); // Ensure
-                                                                                                     // non-negative
-
-                                        return dto;
+                LocalDate today = LocalDate.now(KOLKATA_ZONE);
+                List<ProductUsage> usage = medicineUsageLogRepo.findProductUsage(userId,
+                                Timestamp.from(today.atStartOfDay(KOLKATA_ZONE).toInstant()),
+                                Timestamp.from(today.plusDays(1).atStartOfDay(KOLKATA_ZONE).toInstant()));
+
+                return usage.stream()
+                                .map(product -> {
+                                        int scheduled = CompiledSchedule.compile(product.getReminderMinutes(),
+                                                        product.getScheduleRule(), product.getDoseQuantity())
+                                                        .dosesOn(today);
+                                        long taken = product.getTakenCount();
+
+                                        return new MedicineUsageSummaryDto(
+                                                        product.getHealthProductId(),
+                                                        product.getHealthProductName() != null
+                                                                        ? product.getHealthProductName()
+                                                                        : "Unknown Medicine",
+                                                        taken,
+                                                        Math.max(0, scheduled - taken));
                                 })
-                                .collect(Collectors.toList());
-
-                return result;
+                                .toList();
         }
-}
\ No newline at end of file
+}
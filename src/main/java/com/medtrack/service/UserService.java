@@ -1,8 +1,8 @@
 package com.medtrack.service;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,12 +16,9 @@ import com.medtrack.dto.UserRequestDto;
 import com.medtrack.dto.UserStatsDto;
 import com.medtrack.exceptions.AuthException;
 import com.medtrack.mapper.UserMapper;
-import com.medtrack.model.HealthProduct;
-import com.medtrack.model.MedicineUsageLog;
 import com.medtrack.model.User;
-import com.medtrack.repository.HealthProductRepo;
-import com.medtrack.repository.MedicineUsageLogRepo;
 import com.medtrack.repository.UserRepo;
+import com.medtrack.repository.UserRepo.UserStats;
 import com.medtrack.security.JwtUtil;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -35,8 +32,9 @@ public class UserService {
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private final JwtUtil jwtUtil;
-    private final HealthProductRepo healthProductRepo;
-    private final MedicineUsageLogRepo medicineUsageLogRepo;
+    private final UserStatsCache userStatsCache;
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
 
     public User signUp(UserRequestDto userDto) {
 
@@ -150,41 +148,28 @@ public class UserService {
     }
 
     public UserStatsDto getUserStats(Long userId) {
-        User user = userRepo.findById(userId)
+        return userStatsCache.get(userId, () -> computeUserStats(userId));
+    }
+
+    private UserStatsDto computeUserStats(Long userId) {
+        // One statement over products and the last 7 days of logs, against one Kolkata "now";
+        // the window starts at an instant, since created_at is stored in the host's zone
+        ZonedDateTime now = ZonedDateTime.now(KOLKATA_ZONE);
+        UserStats stats = userRepo.findStats(userId, now.toLocalDate(),
+                Timestamp.from(now.minusDays(7).toInstant()))
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
 
-        // Get health products stats
-        List<HealthProduct> allProducts = healthProductRepo.findByUserId(userId);
-        LocalDate currentDate = LocalDate.now();
-
-        int totalMedicines = allProducts.size();
-        int activeMedicines = (int) allProducts.stream()
-                .filter(p -> p.getExpiryDate().isAfter(currentDate) && p.getAvailableQuantity() > 0)
-                .count();
-        int expiredMedicines = (int) allProducts.stream()
-                .filter(p -> p.getExpiryDate().isBefore(currentDate))
-                .count();
-        int lowStockMedicines = (int) allProducts.stream()
-                .filter(p -> p.getAvailableQuantity() <= p.getThresholdQuantity() &&
-                        p.getExpiryDate().isAfter(currentDate))
-                .count();
-
-        // Get usage logs for adherence calculation
-        LocalDateTime weekAgo = LocalDateTime.now().minusDays(7);
-        List<MedicineUsageLog> recentLogs = medicineUsageLogRepo.findAllByUserIdAndCreatedAtIsAfter(userId, weekAgo);
-
-        long totalDosesTaken = recentLogs.stream()
-                .filter(MedicineUsageLog::getIsTaken)
-                .count();
-        long totalDosesMissed = recentLogs.size() - totalDosesTaken;
-
-        double adherenceRate = recentLogs.isEmpty() ? 0.0 : (double) totalDosesTaken / recentLogs.size() * 100;
+        long totalDosesTaken = stats.getTaken();
+        long totalDosesMissed = stats.getMissed();
+        long totalDoses = totalDosesTaken + totalDosesMissed;
+
+        double adherenceRate = totalDoses == 0 ? 0.0 : (double) totalDosesTaken / totalDoses * 100;
 
         return new UserStatsDto(
-                totalMedicines,
-                activeMedicines,
-                expiredMedicines,
-                lowStockMedicines,
+                stats.getTotal().intValue(),
+                stats.getActive().intValue(),
+                stats.getExpired().intValue(),
+                stats.getLowStock().intValue(),
                 Math.round(adherenceRate * 100.0) / 100.0,
                 totalDosesTaken,
                 totalDosesMissed);
@@ -0,0 +1,161 @@
+package com.medtrack.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.medtrack.dto.UserStatsDto;
+import com.medtrack.events.HealthProductChangedEvent;
+import com.medtrack.events.MedicineUsageLoggedEvent;
+import com.medtrack.events.ProductStockChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Dashboard stats per user, computed once and shared by every client polling
+ * the same user.
+ *
+ * An entry is dropped when one of the user's products or its stock changes
+ * or a usage log is committed, and is not used past the local day it was
+ * computed on, so expiry counts roll over at midnight. Writes made through
+ * another instance are not seen here, and the 7-day dose window slides, so
+ * entries also expire after {@code max-age-seconds}.
+ *
+ * Misses are single-flight: the first caller computes, and callers arriving
+ * while it runs wait for the same result instead of querying again. Failures
+ * are not cached.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserStatsCache {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${medtrack.user-stats.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${medtrack.user-stats.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    private record Entry(CompletableFuture<UserStatsDto> stats, LocalDate day, long startedAt) {
+    }
+
+    private Map<Long, Entry> entries;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter coalesced;
+
+    @PostConstruct
+    void init() {
+        entries = lru(cacheSize);
+        hits = result("hit");
+        misses = result("miss");
+        coalesced = result("coalesced");
+        meterRegistry.gauge("medtrack.user_stats.cache.hit_ratio", this, cache -> {
+            double served = cache.hits.count() + cache.coalesced.count();
+            double total = served + cache.misses.count();
+            return total == 0 ? 0 : served / total;
+        });
+    }
+
+    /**
+     * The cached stats of the user, or the result of {@code compute}, shared
+     * with concurrent callers for the same user
+     */
+    public UserStatsDto get(long userId, Supplier<UserStatsDto> compute) {
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        long now = System.currentTimeMillis();
+
+        Entry entry;
+        boolean leader = false;
+        synchronized (entries) {
+            entry = entries.get(userId);
+            if (entry == null || !entry.day().equals(today) || isExpired(entry, now)) {
+                entry = new Entry(new CompletableFuture<>(), today, now);
+                entries.put(userId, entry);
+                leader = true;
+            }
+        }
+
+        if (leader) {
+            misses.increment();
+            try {
+                UserStatsDto stats = compute.get();
+                entry.stats().complete(stats);
+                return stats;
+            } catch (RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(userId, entry);
+                }
+                entry.stats().completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        (entry.stats().isDone() ? hits : coalesced).increment();
+        try {
+            return entry.stats().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHealthProductChanged(HealthProductChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsageLogged(MedicineUsageLoggedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private void invalidate(Long userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    // a computation still running is never expired; waiters keep joining it
+    private boolean isExpired(Entry entry, long now) {
+        return entry.stats().isDone() && now - entry.startedAt() >= maxAgeSeconds * 1000;
+    }
+
+    private Counter result(String result) {
+        return Counter.builder("medtrack.user_stats.cache")
+                .description("User stats requests by cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
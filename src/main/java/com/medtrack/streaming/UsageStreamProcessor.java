@@ -0,0 +1,108 @@
+package com.medtrack.streaming;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+
+import com.medtrack.dto.LiveAdherenceDto;
+import com.medtrack.kafka.dto.UsageEvent;
+import com.medtrack.kafka.service.NotificationProducerService;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.scheduling.ScheduleBucketOwnership;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keyed stream processor for the usage event topic.
+ *
+ * Every instance consumes all partitions in a consumer group of its own and
+ * folds each user's events, in partition order, into a {@link UserAdherenceState}
+ * held in memory. Any instance can therefore answer live streak queries
+ * without the database. The state is not persisted: when partitions are
+ * assigned, their users' state is dropped and rebuilt by replaying the topic
+ * from {@code replay-days} ago, so streaks reach back no further than that.
+ *
+ * A run of {@code miss-alert-threshold} missed doses raises an alert. Only the
+ * node holding the user's schedule bucket sends it, and events older than
+ * {@code alert-max-age-seconds} (a replay) never do.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UsageStreamProcessor implements ConsumerSeekAware {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final ScheduleBucketOwnership scheduleBucketOwnership;
+    private final HealthProductRepo healthProductRepo;
+    private final NotificationProducerService notificationProducerService;
+
+    @Value("${medtrack.usage-events.replay-days:30}")
+    private int replayDays;
+
+    @Value("${medtrack.usage-events.miss-alert-threshold:3}")
+    private int missAlertThreshold;
+
+    @Value("${medtrack.usage-events.alert-max-age-seconds:120}")
+    private long alertMaxAgeSeconds;
+
+    private final Map<Long, UserAdherenceState> states = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        states.values().removeIf(state -> assignments.keySet().stream()
+                .anyMatch(partition -> partition.partition() == state.partition()));
+
+        long replayFrom = System.currentTimeMillis() - Duration.ofDays(replayDays).toMillis();
+        callback.seekToTimestamp(assignments.keySet(), replayFrom);
+        log.info("Replaying usage events of partitions {} from the last {} days", assignments.keySet(), replayDays);
+    }
+
+    @KafkaListener(topics = "${medtrack.usage-events.topic:medicine-usage-events}", containerFactory = "usageEventKafkaListenerContainerFactory", autoStartup = "${medtrack.usage-events.enabled:true}")
+    public void onUsageEvent(@Payload UsageEvent event, @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+        if (event.getUserId() == null || event.getOccurredAt() == null) {
+            log.warn("Skipping malformed usage event for log {}", event.getLogId());
+            return;
+        }
+
+        UserAdherenceState state = states.computeIfAbsent(event.getUserId(),
+                userId -> new UserAdherenceState(partition));
+        int misses = state.apply(Boolean.TRUE.equals(event.getTaken()), event.getOccurredAt());
+
+        if (misses == missAlertThreshold && isLive(event) && scheduleBucketOwnership.ownsUser(event.getUserId())) {
+            healthProductRepo.findById(event.getHealthProductId())
+                    .ifPresent(product -> notificationProducerService.sendMissStreakNotification(product, misses,
+                            event.getLogId()));
+        }
+    }
+
+    /**
+     * Live streaks and 7-day adherence of the user as seen on the stream; all
+     * zero for a user without events in the replayed history
+     */
+    public LiveAdherenceDto live(long userId) {
+        LocalDate today = LocalDate.now(KOLKATA_ZONE);
+        UserAdherenceState state = states.get(userId);
+        if (state == null) {
+            return new LiveAdherenceDto(userId, 0, 0, 0, 0, 0, -1f, null);
+        }
+        return state.snapshot(userId, today);
+    }
+
+    private boolean isLive(UsageEvent event) {
+        return event.getOccurredAt().isAfter(LocalDateTime.now().minusSeconds(alertMaxAgeSeconds));
+    }
+}
@@ -0,0 +1,92 @@
+package com.medtrack.streaming;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import com.medtrack.dto.LiveAdherenceDto;
+
+/**
+ * Live adherence of one user, folded from the user's usage events in order.
+ *
+ * The last seven days are kept as a ring of daily counts indexed by epoch day,
+ * so a slot is reset the first time a new day lands on it. Only the consumer
+ * thread owning the user's partition writes; queries read under the same lock.
+ */
+class UserAdherenceState {
+
+    private static final int WINDOW_DAYS = 7;
+
+    private final int partition;
+
+    private int currentStreak;
+    private int longestStreak;
+    private int consecutiveMisses;
+    private LocalDateTime lastEventAt;
+
+    private final long[] slotDay = new long[WINDOW_DAYS];
+    private final int[] taken = new int[WINDOW_DAYS];
+    private final int[] missed = new int[WINDOW_DAYS];
+
+    UserAdherenceState(int partition) {
+        this.partition = partition;
+        Arrays.fill(slotDay, Long.MIN_VALUE);
+    }
+
+    int partition() {
+        return partition;
+    }
+
+    /**
+     * Applies one event
+     *
+     * @return the consecutive misses after the event, 0 for a taken dose
+     */
+    synchronized int apply(boolean doseTaken, LocalDateTime occurredAt) {
+        if (doseTaken) {
+            currentStreak++;
+            longestStreak = Math.max(longestStreak, currentStreak);
+            consecutiveMisses = 0;
+        } else {
+            currentStreak = 0;
+            consecutiveMisses++;
+        }
+
+        long day = occurredAt.toLocalDate().toEpochDay();
+        int slot = (int) Math.floorMod(day, (long) WINDOW_DAYS);
+        if (slotDay[slot] < day) {
+            slotDay[slot] = day;
+            taken[slot] = 0;
+            missed[slot] = 0;
+        }
+        if (slotDay[slot] == day) {
+            if (doseTaken) {
+                taken[slot]++;
+            } else {
+                missed[slot]++;
+            }
+        }
+
+        if (lastEventAt == null || occurredAt.isAfter(lastEventAt)) {
+            lastEventAt = occurredAt;
+        }
+        return consecutiveMisses;
+    }
+
+    synchronized LiveAdherenceDto snapshot(long userId, LocalDate today) {
+        long first = today.toEpochDay() - (WINDOW_DAYS - 1);
+        int takenTotal = 0;
+        int missedTotal = 0;
+        for (int slot = 0; slot < WINDOW_DAYS; slot++) {
+            if (slotDay[slot] >= first && slotDay[slot] <= today.toEpochDay()) {
+                takenTotal += taken[slot];
+                missedTotal += missed[slot];
+            }
+        }
+        int total = takenTotal + missedTotal;
+        float adherence = total == 0 ? -1f : Math.round(takenTotal * 1000f / total) / 10f;
+
+        return new LiveAdherenceDto(userId, currentStreak, longestStreak, consecutiveMisses, takenTotal,
+                missedTotal, adherence, lastEventAt);
+    }
+}
@@ -0,0 +1,94 @@
+package com.medtrack.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An HTML template compiled once into its literal segments and placeholder
+ * slots, so rendering only appends: the literals as they are and the values
+ * HTML-escaped in place, without formatting or intermediate strings.
+ *
+ * Placeholders are written {@code {{name}}}; each name given to
+ * {@link #compile} is a slot, and {@link #renderInto} takes the values in
+ * that order.
+ */
+public final class EmailTemplate {
+
+    private final String[] literals;
+    private final int[] slots;
+
+    private EmailTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    /**
+     * @param source       The template text
+     * @param placeholders The placeholder names, in the order their values
+     *                     are passed to {@link #renderInto}
+     * @throws IllegalArgumentException on an unknown or unclosed placeholder
+     */
+    public static EmailTemplate compile(String source, String... placeholders) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int from = 0;
+        int open;
+        while ((open = source.indexOf("{{", from)) >= 0) {
+            int close = source.indexOf("}}", open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + open);
+            }
+            String name = source.substring(open + 2, close).strip();
+            int slot = List.of(placeholders).indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder: " + name);
+            }
+            literals.add(source.substring(from, open));
+            slots.add(slot);
+            from = close + 2;
+        }
+        literals.add(source.substring(from));
+
+        return new EmailTemplate(literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Appends the template with the values escaped into {@code out}; a null
+     * value renders as nothing
+     */
+    public void renderInto(StringBuilder out, String... values) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            appendEscaped(out, values[slots[i]]);
+        }
+        out.append(literals[slots.length]);
+    }
+
+    /**
+     * The same escaping as Spring's {@code HtmlUtils.htmlEscape} for the
+     * characters that matter in text and attribute values
+     */
+    static void appendEscaped(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String entity = switch (value.charAt(i)) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entity != null) {
+                out.append(value, start, i).append(entity);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+    }
+}
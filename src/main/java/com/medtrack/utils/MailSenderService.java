@@ -1,28 +1,43 @@
 package com.medtrack.utils;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import com.medtrack.kafka.dto.NotificationType;
 import com.medtrack.repository.HealthProductRepo;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
- * Service responsible for sending HTML email notifications related to
- * medication expiry
+ * Service responsible for sending the HTML email notifications, rendered from
+ * {@link NotificationEmailTemplates}
  */
 @Service
+@Slf4j
 @AllArgsConstructor
 public class MailSenderService {
 
     private final JavaMailSender mailSender;
     private final HealthProductRepo healthProductRepo;
+    private final SmtpTransportPool smtpTransportPool;
+    private final NotificationEmailTemplates notificationEmailTemplates;
+
+    /**
+     * One product line of a digest email
+     */
+    public record DigestItem(String productName, String detail) {
+    }
 
     /**
      * Sends an expiry notification email for a health product
@@ -42,17 +57,17 @@ public class MailSenderService {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true);
 
-            String htmlContent = getExpiryHtmlTemplate(healthProduct.getName(),
-                    healthProduct.getExpiryDate().toString());
+            String htmlContent = notificationEmailTemplates.render(NotificationType.MEDICINE_EXPIRY_WARNING,
+                    List.of(new DigestItem(healthProduct.getName(), healthProduct.getExpiryDate().toString())));
 
             helper.setTo(user.getEmail());
             helper.setSubject("Your health product is Expiring!!!!!");
             helper.setText(htmlContent, true);
 
-            mailSender.send(message);
+            smtpTransportPool.send(message);
 
         } catch (Exception e) {
-            System.out.printf("Error while sending email: %s%n", e.getMessage());
+            log.error("Error while sending expiry email for product ID {}", healthProductId, e);
         }
     }
 
@@ -64,122 +79,84 @@ public class MailSenderService {
      * @param expiryDate  The expiry date of the health product
      */
     public void sendExpiryNotification(Long productId, String productName, LocalDate expiryDate) {
+        sendNotification(productId, NotificationType.MEDICINE_EXPIRY_WARNING,
+                new DigestItem(productName, NotificationEmailTemplates.expiryDetail(expiryDate)));
+    }
+
+    /**
+     * Sends a notification email of the given type to the owner of a health
+     * product
+     * 
+     * @param productId The ID of the health product
+     * @param type      The notification type, which selects the template
+     * @param item      The product line of the email
+     */
+    public void sendNotification(Long productId, NotificationType type, DigestItem item) {
         var healthProduct = healthProductRepo.findById(productId).orElse(null);
 
         if (healthProduct == null) {
-            System.out.printf("Cannot send notification: Health product with ID %d not found%n", productId);
+            log.warn("Cannot send notification: Health product with ID {} not found", productId);
             return;
         }
 
         var user = healthProduct.getUser();
         if (user == null || user.getEmail() == null || user.getEmail().isEmpty()) {
-            System.out.printf("Cannot send notification: User or email not available for product ID %d%n", productId);
+            log.warn("Cannot send notification: User or email not available for product ID {}", productId);
             return;
         }
 
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            // Calculate days until expiry for display in email
-            long daysUntilExpiry = ChronoUnit.DAYS.between(LocalDate.now(), expiryDate);
-            String expiryInfo = daysUntilExpiry > 0
-                    ? String.format("%d days", daysUntilExpiry)
-                    : "TODAY";
-
-            String htmlContent = getExpiryHtmlTemplate(productName, expiryInfo);
-
-            helper.setTo(user.getEmail());
-            helper.setSubject("Medicine Expiry Alert: " + productName);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            System.out.printf("Expiry notification sent for product: %d - %s%n",
-                    productId, productName);
+            smtpTransportPool.send(createDigest(user.getEmail(), type, List.of(item)));
+            log.info("{} notification sent for product: {} - {}", type, productId, item.productName());
 
         } catch (MessagingException e) {
-            System.out.printf("Error while sending email for product ID %d: %s%n",
-                    productId, e.getMessage());
-            e.printStackTrace();
+            log.error("Error while sending email for product ID {}", productId, e);
         }
     }
 
     /**
-     * Generates the HTML template for the expiry notification email
-     * 
-     * @param medicineName The name of the medicine
-     * @param expiryInfo   The expiry information (e.g., "2 days", "TODAY")
-     * @return The formatted HTML content
+     * Builds one email that lists notifications of one type for the same
+     * recipient
+     *
+     * @param to    The recipient's email address
+     * @param type  The notification type, which selects the template
+     * @param items The products to list, in order
+     * @return The message, ready for {@link #sendAll(List)}
+     */
+    public MimeMessage createDigest(String to, NotificationType type, List<DigestItem> items)
+            throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setTo(to);
+        helper.setSubject(notificationEmailTemplates.subject(type, items));
+        helper.setText(notificationEmailTemplates.render(type, items), true);
+        return message;
+    }
+
+    /**
+     * Sends the messages over a single pooled SMTP connection. A message that
+     * fails does not stop the others.
+     *
+     * @param messages The messages to send
+     * @return The messages that could not be sent, with the reason; empty if
+     *         all were sent
      */
-    private String getExpiryHtmlTemplate(String name, String date) {
-        return """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <title>Medicine Expiry Reminder</title>
-                    <style>
-                        body {
-                            font-family: Arial, sans-serif;
-                            background-color: #f4f4f4;
-                            margin: 0;
-                            padding: 0;
-                        }
-                        .email-container {
-                            max-width: 600px;
-                            margin: 20px auto;
-                            background-color: #ffffff;
-                            padding: 20px;
-                            border-radius: 10px;
-                            box-shadow: 0 0 10px rgba(0, 0, 0, 0.1);
-                            text-align: center;
-                        }
-                        .header {
-                            background-color: #28a745;
-                            color: white;
-                            padding: 15px;
-                            font-size: 20px;
-                            font-weight: bold;
-                            border-radius: 10px 10px 0 0;
-                        }
-                        .content {
-                            padding: 20px;
-                            font-size: 16px;
-                            color: #333;
-                        }
-                        .medicine-name {
-                            font-size: 22px;
-                            font-weight: bold;
-                            color: #d9534f;
-                        }
-                        .expiry-days {
-                            font-size: 18px;
-                            color: #ff9800;
-                            font-weight: bold;
-                        }
-                        .footer {
-                            margin-top: 20px;
-                            font-size: 14px;
-                            color: #777;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="email-container">
-                        <div class="header">Medicine Expiry Alert</div>
-                        <div class="content">
-                            <p>Hello,</p>
-                            <p>Your medicine <span class="medicine-name">%s</span> is going to expire in <span class="expiry-days">%s</span>.</p>
-                            <p>Please ensure you use it before the expiration date or replace it as needed.</p>
-                        </div>
-                        <div class="footer">
-                            <p>Stay healthy and take care!</p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-                """
-                .formatted(name, date);
+    public Map<MimeMessage, Exception> sendAll(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failed = new LinkedHashMap<>();
+        if (messages.isEmpty()) {
+            return failed;
+        }
+        try {
+            smtpTransportPool.sendAll(messages);
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                // the connection itself failed, so nothing was sent
+                messages.forEach(message -> failed.put(message, e));
+            }
+            e.getFailedMessages().forEach((message, cause) -> failed.put((MimeMessage) message, cause));
+        } catch (MailException e) {
+            messages.forEach(message -> failed.put(message, e));
+        }
+        return failed;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package com.medtrack.utils;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.medtrack.kafka.dto.NotificationMessage;
+import com.medtrack.kafka.dto.NotificationType;
+import com.medtrack.utils.MailSenderService.DigestItem;
+
+/**
+ * The HTML body and subject of every notification type, compiled once at
+ * startup. An email is the type's header, one row per product and the
+ * footer; only the product names and details are filled in per send, escaped
+ * into a buffer that each thread reuses.
+ */
+@Component
+public class NotificationEmailTemplates {
+
+    // emails are a few KB; a buffer grown past this by an unusual digest is not kept
+    private static final int MAX_KEPT_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private record Compiled(String subjectPrefix, String header, EmailTemplate row, String footer) {
+    }
+
+    private final Map<NotificationType, Compiled> templates = new EnumMap<>(NotificationType.class);
+
+    public NotificationEmailTemplates() {
+        add(NotificationType.MEDICINE_EXPIRY_WARNING, "Medicine Expiry Alert", "#28a745",
+                """
+                        <p>Your medicine <span class="medicine-name">{{name}}</span> is going to expire in <span class="detail">{{detail}}</span>.</p>""",
+                "Please ensure you use it before the expiration date or replace it as needed.");
+        add(NotificationType.LOW_STOCK_ALERT, "Low Stock Alert", "#ff9800",
+                """
+                        <p><span class="medicine-name">{{name}}</span>: <span class="detail">{{detail}}</span></p>""",
+                "Please restock soon so you don't run out.");
+        add(NotificationType.OUT_OF_STOCK_ALERT, "Out of Stock Alert", "#d9534f",
+                """
+                        <p><span class="medicine-name">{{name}}</span>: <span class="detail">{{detail}}</span></p>""",
+                "Please reorder immediately!");
+        add(NotificationType.MEDICINE_TAKEN_REMINDER, "Medicine Reminder", "#007bff",
+                """
+                        <p>Time to take <span class="medicine-name">{{name}}</span>: <span class="detail">{{detail}}</span></p>""",
+                "Taking your doses on time keeps your treatment on track.");
+        add(NotificationType.MEDICINE_MISSED_ALERT, "Missed Dose Alert", "#d9534f",
+                """
+                        <p>You missed <span class="medicine-name">{{name}}</span>: <span class="detail">{{detail}}</span></p>""",
+                "If you have already taken it, please log the dose in MedTrack.");
+    }
+
+    /**
+     * The product line of a notification: the time left for an expiry
+     * warning, otherwise the message's additional info
+     */
+    public static DigestItem item(NotificationMessage message) {
+        String detail = message.getType() == NotificationType.MEDICINE_EXPIRY_WARNING && message.getExpiryDate() != null
+                ? expiryDetail(message.getExpiryDate())
+                : message.getAdditionalInfo();
+        return new DigestItem(message.getProductName(), detail != null ? detail : "");
+    }
+
+    /**
+     * The time left until the expiry date, e.g. "3 days" or "TODAY"
+     */
+    public static String expiryDetail(LocalDate expiryDate) {
+        long daysUntilExpiry = ChronoUnit.DAYS.between(LocalDate.now(), expiryDate);
+        return daysUntilExpiry > 0 ? daysUntilExpiry + " days" : "TODAY";
+    }
+
+    /**
+     * The subject line: the product's name for one item, the count for more
+     */
+    public String subject(NotificationType type, List<DigestItem> items) {
+        String prefix = templates.get(type).subjectPrefix();
+        return items.size() == 1
+                ? prefix + items.get(0).productName()
+                : prefix + items.size() + " medicines";
+    }
+
+    /**
+     * The HTML body listing the items
+     */
+    public String render(NotificationType type, List<DigestItem> items) {
+        Compiled compiled = templates.get(type);
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+
+        out.append(compiled.header());
+        for (DigestItem item : items) {
+            compiled.row().renderInto(out, item.productName(), item.detail());
+        }
+        out.append(compiled.footer());
+
+        String html = out.toString();
+        if (out.capacity() > MAX_KEPT_BUFFER) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    private void add(NotificationType type, String title, String color, String row, String outro) {
+        String page = LAYOUT.replace("$TITLE", title).replace("$COLOR", color).replace("$OUTRO", outro);
+        int rows = page.indexOf("$ROWS\n");
+        templates.put(type, new Compiled(title + ": ", page.substring(0, rows),
+                EmailTemplate.compile(ROW_INDENT + row + "\n", "name", "detail"),
+                page.substring(rows + "$ROWS\n".length())));
+    }
+
+    private static final String ROW_INDENT = " ".repeat(12);
+
+    // $-markers are filled in per type at startup, {{...}} per send
+    private static final String LAYOUT = """
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                <title>$TITLE</title>
+                <style>
+                    body {
+                        font-family: Arial, sans-serif;
+                        background-color: #f4f4f4;
+                        margin: 0;
+                        padding: 0;
+                    }
+                    .email-container {
+                        max-width: 600px;
+                        margin: 20px auto;
+                        background-color: #ffffff;
+                        padding: 20px;
+                        border-radius: 10px;
+                        box-shadow: 0 0 10px rgba(0, 0, 0, 0.1);
+                        text-align: center;
+                    }
+                    .header {
+                        background-color: $COLOR;
+                        color: white;
+                        padding: 15px;
+                        font-size: 20px;
+                        font-weight: bold;
+                        border-radius: 10px 10px 0 0;
+                    }
+                    .content {
+                        padding: 20px;
+                        font-size: 16px;
+                        color: #333;
+                    }
+                    .medicine-name {
+                        font-size: 22px;
+                        font-weight: bold;
+                        color: #d9534f;
+                    }
+                    .detail {
+                        font-size: 18px;
+                        color: #ff9800;
+                        font-weight: bold;
+                    }
+                    .footer {
+                        margin-top: 20px;
+                        font-size: 14px;
+                        color: #777;
+                    }
+                </style>
+            </head>
+            <body>
+                <div class="email-container">
+                    <div class="header">$TITLE</div>
+                    <div class="content">
+                        <p>Hello,</p>
+            $ROWS
+                        <p>$OUTRO</p>
+                    </div>
+                    <div class="footer">
+                        <p>Stay healthy and take care!</p>
+                    </div>
+                </div>
+            </body>
+            </html>
+            """;
+}
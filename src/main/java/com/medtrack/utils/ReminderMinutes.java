@@ -0,0 +1,88 @@
+package com.medtrack.utils;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Helpers for the compact reminder schedule stored on a product: a sorted,
+ * duplicate-free array of minutes since midnight (0..1439).
+ */
+public final class ReminderMinutes {
+
+    public static final short[] NONE = new short[0];
+
+    private static final DateTimeFormatter HH_MM = DateTimeFormatter.ofPattern("HH:mm");
+
+    private ReminderMinutes() {
+    }
+
+    public static short of(LocalTime time) {
+        return (short) (time.getHour() * 60 + time.getMinute());
+    }
+
+    public static LocalTime toTime(short minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    /**
+     * Sorted distinct minutes of the given times
+     */
+    public static short[] of(Collection<LocalTime> times) {
+        if (times == null || times.isEmpty()) {
+            return NONE;
+        }
+        return normalize(times.stream().mapToInt(ReminderMinutes::of).toArray());
+    }
+
+    /**
+     * Parses "HH:mm" strings as sent by clients
+     */
+    public static short[] parse(Collection<String> times) {
+        if (times == null || times.isEmpty()) {
+            return NONE;
+        }
+        return normalize(times.stream().mapToInt(time -> of(LocalTime.parse(time))).toArray());
+    }
+
+    /**
+     * Formats as "HH:mm" strings in ascending order
+     */
+    public static List<String> format(short[] minutes) {
+        if (minutes == null) {
+            return List.of();
+        }
+        List<String> times = new ArrayList<>(minutes.length);
+        for (short minute : minutes) {
+            times.add(toTime(minute).format(HH_MM));
+        }
+        return times;
+    }
+
+    public static List<LocalTime> toTimes(short[] minutes) {
+        if (minutes == null) {
+            return List.of();
+        }
+        List<LocalTime> times = new ArrayList<>(minutes.length);
+        for (short minute : minutes) {
+            times.add(toTime(minute));
+        }
+        return times;
+    }
+
+    public static int count(short[] minutes) {
+        return minutes != null ? minutes.length : 0;
+    }
+
+    private static short[] normalize(int[] values) {
+        int[] sorted = Arrays.stream(values).distinct().sorted().toArray();
+        short[] minutes = new short[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            minutes[i] = (short) sorted[i];
+        }
+        return minutes;
+    }
+}
@@ -0,0 +1,246 @@
+package com.medtrack.utils;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Connected SMTP transports shared by all senders, so an email costs the
+ * mail commands only, not a new connection, TLS handshake and AUTH.
+ *
+ * At most {@code max-size} transports exist; a sender borrows one, waiting
+ * up to {@code borrow-timeout-ms} when all are in use, so concurrent senders
+ * each get their own connection. Idle transports are reused most recent
+ * first, checked with a NOOP when they have been idle longer than
+ * {@code validate-after-ms}, and closed after {@code idle-timeout-ms}. A
+ * transport is also closed after {@code max-messages-per-connection}
+ * messages, since relays limit the messages per session.
+ *
+ * Falls back to {@link JavaMailSender#send} per message when the mail sender
+ * is not a {@link JavaMailSenderImpl} or when {@code enabled} is false.
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    // a connection slot; reconnecting replaces the transport in place
+    private static final class Pooled {
+        Transport transport;
+        int sent;
+        boolean broken;
+        long lastUsedNanos;
+    }
+
+    private final JavaMailSender mailSender;
+    private final JavaMailSenderImpl smtp;
+    private final int maxMessagesPerConnection;
+    private final long borrowTimeoutMillis;
+    private final long validateAfterNanos;
+    private final long idleTimeoutNanos;
+
+    // head is the most recently used
+    private final Deque<Pooled> idle = new ConcurrentLinkedDeque<>();
+    private final Semaphore permits;
+
+    private final Counter connectionsOpened;
+
+    public SmtpTransportPool(JavaMailSender mailSender, MeterRegistry meterRegistry,
+            @Value("${medtrack.mail.pool.enabled:true}") boolean enabled,
+            @Value("${medtrack.mail.pool.max-size:4}") int maxSize,
+            @Value("${medtrack.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+            @Value("${medtrack.mail.pool.borrow-timeout-ms:10000}") long borrowTimeoutMillis,
+            @Value("${medtrack.mail.pool.validate-after-ms:2000}") long validateAfterMillis,
+            @Value("${medtrack.mail.pool.idle-timeout-ms:30000}") long idleTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.smtp = enabled && mailSender instanceof JavaMailSenderImpl impl ? impl : null;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.permits = new Semaphore(maxSize, true);
+
+        connectionsOpened = Counter.builder("medtrack.mail.pool.connections.opened")
+                .description("SMTP connections opened by the transport pool")
+                .register(meterRegistry);
+        meterRegistry.gauge("medtrack.mail.pool.idle", idle, Deque::size);
+        meterRegistry.gauge("medtrack.mail.pool.active", permits, p -> maxSize - p.availablePermits());
+    }
+
+    /**
+     * Sends one message over a pooled connection
+     */
+    public void send(MimeMessage message) {
+        sendAll(List.of(message));
+    }
+
+    /**
+     * Sends the messages in order over one pooled connection, reconnecting
+     * when the connection reaches its message cap or turns out to be stale.
+     * A message that fails does not stop the others.
+     *
+     * @throws MailSendException listing the messages that could not be sent
+     */
+    public void sendAll(List<MimeMessage> messages) {
+        if (smtp == null) {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+            return;
+        }
+
+        Map<Object, Exception> failed = new LinkedHashMap<>();
+        Pooled pooled;
+        try {
+            pooled = borrow();
+        } catch (MessagingException e) {
+            messages.forEach(message -> failed.put(message, e));
+            throw new MailSendException(failed);
+        }
+
+        try {
+            for (MimeMessage message : messages) {
+                try {
+                    sendOne(pooled, message);
+                } catch (MessagingException e) {
+                    failed.put(message, e);
+                }
+            }
+        } finally {
+            release(pooled);
+        }
+
+        if (!failed.isEmpty()) {
+            throw new MailSendException(failed);
+        }
+    }
+
+    /**
+     * Closes transports that have been idle longer than
+     * {@code idle-timeout-ms}
+     */
+    @Scheduled(fixedDelayString = "${medtrack.mail.pool.evict-interval-ms:10000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Iterator<Pooled> it = idle.descendingIterator(); it.hasNext();) {
+            Pooled pooled = it.next();
+            if (now - pooled.lastUsedNanos > idleTimeoutNanos && idle.remove(pooled)) {
+                close(pooled);
+            }
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        Pooled pooled;
+        while ((pooled = idle.poll()) != null) {
+            close(pooled);
+        }
+    }
+
+    private void sendOne(Pooled pooled, MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+
+        if (pooled.broken || pooled.sent >= maxMessagesPerConnection) {
+            reconnect(pooled);
+        }
+        try {
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+        } catch (SendFailedException e) {
+            // rejected recipients; the connection is fine
+            throw e;
+        } catch (MessagingException | IllegalStateException e) {
+            // the server may have dropped a connection that looked healthy; one fresh attempt
+            log.debug("SMTP connection failed, reconnecting: {}", e.getMessage());
+            reconnect(pooled);
+            pooled.broken = true;
+            pooled.transport.sendMessage(message, message.getAllRecipients());
+            pooled.broken = false;
+        }
+        pooled.sent++;
+    }
+
+    private Pooled borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("No SMTP connection available within " + borrowTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+
+        try {
+            Pooled pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                long idleNanos = System.nanoTime() - pooled.lastUsedNanos;
+                // isConnected() on an SMTP transport sends a NOOP
+                if (idleNanos <= idleTimeoutNanos
+                        && (idleNanos <= validateAfterNanos || pooled.transport.isConnected())) {
+                    return pooled;
+                }
+                close(pooled);
+            }
+            pooled = new Pooled();
+            reconnect(pooled);
+            return pooled;
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(Pooled pooled) {
+        if (pooled.broken || pooled.sent >= maxMessagesPerConnection) {
+            close(pooled);
+        } else {
+            pooled.lastUsedNanos = System.nanoTime();
+            idle.offerFirst(pooled);
+        }
+        permits.release();
+    }
+
+    // stays broken if the new connection fails, so the next send tries again
+    private void reconnect(Pooled pooled) throws MessagingException {
+        close(pooled);
+        pooled.broken = true;
+        pooled.transport = smtp.getSession().getTransport(smtp.getProtocol());
+        pooled.transport.connect(smtp.getHost(), smtp.getPort(), smtp.getUsername(), smtp.getPassword());
+        connectionsOpened.increment();
+        pooled.broken = false;
+        pooled.sent = 0;
+    }
+
+    private static void close(Pooled pooled) {
+        if (pooled.transport == null) {
+            return;
+        }
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+}
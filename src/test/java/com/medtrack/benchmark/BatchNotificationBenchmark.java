@@ -0,0 +1,141 @@
+package com.medtrack.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.medtrack.kafka.dto.NotificationType;
+import com.medtrack.utils.MailSenderService;
+import com.medtrack.utils.MailSenderService.DigestItem;
+import com.medtrack.utils.NotificationEmailTemplates;
+import com.medtrack.utils.SmtpTransportPool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Sending {@code notifications} expiry emails for {@code recipients} users to
+ * a {@link FakeSmtpServer} that answers every command after
+ * {@code roundTripMicros}, through the SMTP transport pool.
+ *
+ * {@code perRecord} is the record listener: one email per notification.
+ * {@code batched} is the batch listener: the notifications arrive in polls of
+ * {@code batchSize}, each poll is grouped by recipient into digests and sent
+ * with {@link MailSenderService#sendAll(List)}. Notifications per second is
+ * {@code notifications} divided by the score; {@code perRecord} does not
+ * depend on {@code batchSize}.
+ *
+ * Needs nothing but the JVM. Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=com.medtrack.benchmark.BatchNotificationBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchNotificationBenchmark {
+
+    private record Notification(String email, String productName, String detail) {
+    }
+
+    @Param("500")
+    private int notifications;
+
+    @Param("100")
+    private int recipients;
+
+    @Param({ "10", "50", "200" })
+    private int batchSize;
+
+    @Param({ "0", "200" })
+    private int roundTripMicros;
+
+    private FakeSmtpServer server;
+    private MailSenderService mailSenderService;
+    private List<Notification> pending;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new FakeSmtpServer(roundTripMicros, 0);
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.port());
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, new SimpleMeterRegistry(), true, 1, 100,
+                10_000, 2_000, 30_000);
+        mailSenderService = new MailSenderService(mailSender, null, pool, new NotificationEmailTemplates());
+
+        pending = new ArrayList<>(notifications);
+        for (int i = 0; i < notifications; i++) {
+            pending.add(new Notification("user" + (i % recipients) + "@example.com", "Medicine " + i,
+                    (1 + i % 7) + " days"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Benchmark
+    public int perRecord() throws MessagingException {
+        int failed = 0;
+        for (Notification notification : pending) {
+            MimeMessage mail = mailSenderService.createDigest(notification.email(),
+                    NotificationType.MEDICINE_EXPIRY_WARNING,
+                    List.of(new DigestItem(notification.productName(), notification.detail())));
+            failed += mailSenderService.sendAll(List.of(mail)).size();
+        }
+        return failed;
+    }
+
+    @Benchmark
+    public int batched() throws MessagingException {
+        int failed = 0;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            Map<String, List<DigestItem>> groups = new LinkedHashMap<>();
+            for (Notification notification : pending.subList(from, Math.min(from + batchSize, pending.size()))) {
+                groups.computeIfAbsent(notification.email(), email -> new ArrayList<>())
+                        .add(new DigestItem(notification.productName(), notification.detail()));
+            }
+
+            List<MimeMessage> mails = new ArrayList<>(groups.size());
+            for (Map.Entry<String, List<DigestItem>> group : groups.entrySet()) {
+                mails.add(mailSenderService.createDigest(group.getKey(), NotificationType.MEDICINE_EXPIRY_WARNING,
+                        group.getValue()));
+            }
+            failed += mailSenderService.sendAll(mails).size();
+        }
+        return failed;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BatchNotificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
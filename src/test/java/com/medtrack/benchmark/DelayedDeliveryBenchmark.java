@@ -0,0 +1,230 @@
+package com.medtrack.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The due-queue of {@code ScheduledNotificationRepo} with one million pending
+ * scheduled notifications spread over a day starting an hour from now.
+ *
+ * {@code drainDue} queues {@code dueMessages} messages that are already due
+ * and measures how long {@code workers} concurrent claimers take to drain
+ * them with {@code FOR UPDATE SKIP LOCKED}; messages per second is
+ * {@code dueMessages} divided by the score. {@code claimNothingDue} and
+ * {@code nextDueAt} are the statements of an idle worker's poll, so their
+ * latency plus the wake-up is the delivery-time precision.
+ *
+ * Uses an unlogged table in the Postgres database given by
+ * {@code -Dbench.url}, {@code -Dbench.user} and {@code -Dbench.password},
+ * dropped afterwards. Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=com.medtrack.benchmark.DelayedDeliveryBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DelayedDeliveryBenchmark {
+
+    private static final String CLAIM = """
+            WITH due AS (
+                SELECT message_id FROM bench_scheduled_notification
+                WHERE due_at <= ?
+                ORDER BY due_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            DELETE FROM bench_scheduled_notification s
+            USING due
+            WHERE s.message_id = due.message_id
+            RETURNING s.payload::text""";
+
+    @Param("1000000")
+    private int pending;
+
+    @Param("100000")
+    private int dueMessages;
+
+    @Param({ "1", "4" })
+    private int workers;
+
+    @Param("200")
+    private int batchSize;
+
+    /**
+     * Messages already due, queued again before every drain
+     */
+    @State(Scope.Benchmark)
+    public static class DueMessages {
+
+        @Setup(Level.Invocation)
+        public void queue(DelayedDeliveryBenchmark benchmark) throws SQLException {
+            try (Statement statement = benchmark.admin.createStatement()) {
+                statement.execute("""
+                        INSERT INTO bench_scheduled_notification (message_id, due_at, payload)
+                        SELECT 'due-' || n || '-' || clock_timestamp(), localtimestamp - make_interval(secs => n % 60),
+                               jsonb_build_object('messageId', 'due-' || n, 'type', 'MEDICINE_TAKEN_REMINDER',
+                                                  'healthProductId', n, 'productName', 'Medicine ' || n)
+                        FROM generate_series(1, %d) n""".formatted(benchmark.dueMessages));
+            }
+        }
+    }
+
+    private Connection admin;
+    private List<Connection> connections;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        admin = connect();
+        admin.setAutoCommit(true);
+        try (Statement statement = admin.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_scheduled_notification");
+            statement.execute("""
+                    CREATE UNLOGGED TABLE bench_scheduled_notification (
+                        message_id  varchar(100) PRIMARY KEY,
+                        due_at      timestamp    NOT NULL,
+                        payload     jsonb        NOT NULL,
+                        enqueued_at timestamptz  NOT NULL DEFAULT now())""");
+            statement.execute("CREATE INDEX ON bench_scheduled_notification (due_at)");
+            statement.execute("""
+                    INSERT INTO bench_scheduled_notification (message_id, due_at, payload)
+                    SELECT 'pending-' || n, localtimestamp + make_interval(secs => 3600 + n * 86400.0 / %d),
+                           jsonb_build_object('messageId', 'pending-' || n, 'type', 'MEDICINE_TAKEN_REMINDER',
+                                              'healthProductId', n, 'productName', 'Medicine ' || n)
+                    FROM generate_series(1, %d) n""".formatted(pending, pending));
+            statement.execute("ANALYZE bench_scheduled_notification");
+        }
+
+        connections = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            Connection connection = connect();
+            connection.setAutoCommit(false);
+            connections.add(connection);
+        }
+        executor = Executors.newFixedThreadPool(workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        executor.shutdownNow();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        try (Statement statement = admin.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_scheduled_notification");
+        }
+        admin.close();
+    }
+
+    /**
+     * Time for the workers to claim every due message, batch by batch
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int drainDue(DueMessages due) throws Exception {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (Connection connection : connections) {
+            results.add(executor.submit(() -> {
+                int claimed = 0;
+                int batch;
+                do {
+                    batch = claim(connection, LocalDateTime.now());
+                    claimed += batch;
+                } while (batch > 0);
+                return claimed;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        return total;
+    }
+
+    /**
+     * An idle poll: nothing is due among the pending messages
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int claimNothingDue() throws SQLException {
+        return claim(connections.get(0), LocalDateTime.now().minusHours(1));
+    }
+
+    /**
+     * The lookup an idle worker sleeps on
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Timestamp nextDueAt() throws SQLException {
+        Connection connection = connections.get(0);
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("SELECT min(due_at) FROM bench_scheduled_notification")) {
+            rows.next();
+            Timestamp next = rows.getTimestamp(1);
+            connection.commit();
+            return next;
+        }
+    }
+
+    private int claim(Connection connection, LocalDateTime now) throws SQLException {
+        int claimed = 0;
+        try (PreparedStatement statement = connection.prepareStatement(CLAIM)) {
+            statement.setTimestamp(1, Timestamp.valueOf(now));
+            statement.setInt(2, batchSize);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    rows.getString(1);
+                    claimed++;
+                }
+            }
+        }
+        connection.commit();
+        return claimed;
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/medtrack"),
+                System.getProperty("bench.user", "postgres"),
+                System.getProperty("bench.password", "postgres"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DelayedDeliveryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
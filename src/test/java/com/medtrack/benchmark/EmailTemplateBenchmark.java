@@ -0,0 +1,161 @@
+package com.medtrack.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.medtrack.kafka.dto.NotificationType;
+import com.medtrack.utils.MailSenderService.DigestItem;
+import com.medtrack.utils.NotificationEmailTemplates;
+
+/**
+ * Render cost of one notification email body and subject.
+ *
+ * {@code formatted} is the former expiry template: {@code String.formatted}
+ * over the whole text block per email. {@code compiled} renders the same
+ * email with {@link NotificationEmailTemplates}, and {@code compiledDigest}
+ * a digest of {@code digestItems} products. Product names contain characters
+ * that need escaping, which the former template did not do.
+ *
+ * Runs with the GC profiler; {@code gc.alloc.rate.norm} is the allocation
+ * per email. Needs nothing but the JVM. Run with {@code mvn test-compile
+ * exec:java -Dexec.mainClass=com.medtrack.benchmark.EmailTemplateBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private static final String FORMATTED_TEMPLATE = """
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <meta name="viewport" content="width=device-width, initial-scale=1.0">
+                <title>Medicine Expiry Reminder</title>
+                <style>
+                    body {
+                        font-family: Arial, sans-serif;
+                        background-color: #f4f4f4;
+                        margin: 0;
+                        padding: 0;
+                    }
+                    .email-container {
+                        max-width: 600px;
+                        margin: 20px auto;
+                        background-color: #ffffff;
+                        padding: 20px;
+                        border-radius: 10px;
+                        box-shadow: 0 0 10px rgba(0, 0, 0, 0.1);
+                        text-align: center;
+                    }
+                    .header {
+                        background-color: #28a745;
+                        color: white;
+                        padding: 15px;
+                        font-size: 20px;
+                        font-weight: bold;
+                        border-radius: 10px 10px 0 0;
+                    }
+                    .content {
+                        padding: 20px;
+                        font-size: 16px;
+                        color: #333;
+                    }
+                    .medicine-name {
+                        font-size: 22px;
+                        font-weight: bold;
+                        color: #d9534f;
+                    }
+                    .expiry-days {
+                        font-size: 18px;
+                        color: #ff9800;
+                        font-weight: bold;
+                    }
+                    .footer {
+                        margin-top: 20px;
+                        font-size: 14px;
+                        color: #777;
+                    }
+                </style>
+            </head>
+            <body>
+                <div class="email-container">
+                    <div class="header">Medicine Expiry Alert</div>
+                    <div class="content">
+                        <p>Hello,</p>
+                        <p>Your medicine <span class="medicine-name">%s</span> is going to expire in <span class="expiry-days">%s</span>.</p>
+                        <p>Please ensure you use it before the expiration date or replace it as needed.</p>
+                    </div>
+                    <div class="footer">
+                        <p>Stay healthy and take care!</p>
+                    </div>
+                </div>
+            </body>
+            </html>
+            """;
+
+    @Param("10")
+    private int digestItems;
+
+    private NotificationEmailTemplates templates;
+    private DigestItem single;
+    private List<DigestItem> digest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        templates = new NotificationEmailTemplates();
+        single = new DigestItem("Paracetamol 500mg <tablets> & syrup", "3 days");
+        digest = new ArrayList<>(digestItems);
+        for (int i = 0; i < digestItems; i++) {
+            digest.add(new DigestItem("Medicine " + i + " <tablets> & syrup", (1 + i % 7) + " days"));
+        }
+    }
+
+    @Benchmark
+    public String formatted() {
+        String subject = "Medicine Expiry Alert: " + single.productName();
+        return FORMATTED_TEMPLATE.formatted(single.productName(), single.detail()) + subject;
+    }
+
+    @Benchmark
+    public String compiled() {
+        List<DigestItem> items = List.of(single);
+        String subject = templates.subject(NotificationType.MEDICINE_EXPIRY_WARNING, items);
+        return templates.render(NotificationType.MEDICINE_EXPIRY_WARNING, items) + subject;
+    }
+
+    @Benchmark
+    public String compiledDigest() {
+        String subject = templates.subject(NotificationType.MEDICINE_EXPIRY_WARNING, digest);
+        return templates.render(NotificationType.MEDICINE_EXPIRY_WARNING, digest) + subject;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.medtrack.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An SMTP server on localhost for the mail benchmarks that accepts and
+ * discards any mail: just enough of the protocol for JavaMail. Every reply
+ * waits {@code roundTripMicros}, standing in for the network to a real
+ * relay, and the greeting of a new connection waits {@code connectMicros}
+ * more, standing in for the TLS handshake and AUTH.
+ */
+final class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket socket;
+    private final ExecutorService sessions = Executors.newCachedThreadPool();
+    private final long replyDelayNanos;
+    private final long connectDelayNanos;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    FakeSmtpServer(int roundTripMicros, int connectMicros) throws IOException {
+        this.socket = new ServerSocket(0);
+        this.replyDelayNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        this.connectDelayNanos = TimeUnit.MICROSECONDS.toNanos(connectMicros);
+        sessions.execute(this::acceptLoop);
+    }
+
+    int port() {
+        return socket.getLocalPort();
+    }
+
+    // connections accepted so far
+    int connections() {
+        return connections.get();
+    }
+
+    private void acceptLoop() {
+        while (!socket.isClosed()) {
+            try {
+                Socket client = socket.accept();
+                connections.incrementAndGet();
+                sessions.execute(() -> session(client));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket client) {
+        try (client;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = client.getOutputStream()) {
+            if (connectDelayNanos > 0) {
+                LockSupport.parkNanos(connectDelayNanos);
+            }
+            reply(out, "220 localhost fake SMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250 8BITMIME");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // message body is discarded
+                        }
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private void reply(OutputStream out, String response) throws IOException {
+        if (replyDelayNanos > 0) {
+            LockSupport.parkNanos(replyDelayNanos);
+        }
+        out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        sessions.shutdownNow();
+    }
+}
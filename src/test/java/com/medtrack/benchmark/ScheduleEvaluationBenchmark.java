@@ -0,0 +1,119 @@
+package com.medtrack.benchmark;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.medtrack.model.ScheduleRule;
+import com.medtrack.scheduling.CompiledSchedule;
+
+/**
+ * Next-occurrence evaluation over a million compiled schedules with a mix of
+ * daily times, weekdays, intervals, courses and tapers.
+ *
+ * Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=com.medtrack.benchmark.ScheduleEvaluationBenchmark
+ * -Dexec.classpathScope=test} or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ScheduleEvaluationBenchmark {
+
+    private static final int QUERIES = 1 << 16;
+
+    @Param("1000000")
+    private int schedules;
+
+    private CompiledSchedule[] compiled;
+    private int[] scheduleIndex;
+    private long[] queryMinutes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate today = LocalDate.of(2025, 1, 15);
+
+        compiled = new CompiledSchedule[schedules];
+        for (int i = 0; i < schedules; i++) {
+            compiled[i] = randomSchedule(random, today);
+        }
+
+        long base = today.toEpochDay() * 1440;
+        scheduleIndex = new int[QUERIES];
+        queryMinutes = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            scheduleIndex[i] = random.nextInt(schedules);
+            queryMinutes[i] = base + random.nextLong(60L * 1440);
+        }
+    }
+
+    @Benchmark
+    public long nextOccurrence() {
+        int i = cursor++ & (QUERIES - 1);
+        return compiled[scheduleIndex[i]].nextEpochMinute(queryMinutes[i]);
+    }
+
+    @Benchmark
+    public void nextOccurrenceAllSchedules(Blackhole blackhole) {
+        long from = queryMinutes[cursor++ & (QUERIES - 1)];
+        for (CompiledSchedule schedule : compiled) {
+            blackhole.consume(schedule.nextEpochMinute(from));
+        }
+    }
+
+    private static CompiledSchedule randomSchedule(SplittableRandom random, LocalDate today) {
+        int timesPerDay = 1 + random.nextInt(4);
+        short[] minutes = new short[timesPerDay];
+        int minute = random.nextInt(360);
+        for (int t = 0; t < timesPerDay; t++) {
+            minutes[t] = (short) minute;
+            minute += 1 + random.nextInt(1440 / timesPerDay - 1);
+            if (minute >= 1440) {
+                minutes = Arrays.copyOf(minutes, t + 1);
+                break;
+            }
+        }
+
+        LocalDate start = today.minusDays(random.nextInt(30));
+        ScheduleRule rule = switch (random.nextInt(5)) {
+            case 0 -> null;
+            case 1 -> ScheduleRule.builder().startDate(start)
+                    .daysOfWeekMask((short) (1 + random.nextInt(127))).build();
+            case 2 -> ScheduleRule.builder().startDate(start)
+                    .intervalHours(4 + random.nextInt(33)).anchorMinute(minutes[0]).build();
+            case 3 -> ScheduleRule.builder().startDate(start).courseDays(5 + random.nextInt(60)).build();
+            default -> ScheduleRule.builder().startDate(start).taperStepDays(1 + random.nextInt(7))
+                    .taperStepDose(5f).build();
+        };
+        return CompiledSchedule.compile(minutes, rule, 40f);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ScheduleEvaluationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
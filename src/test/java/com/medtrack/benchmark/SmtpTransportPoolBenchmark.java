@@ -0,0 +1,114 @@
+package com.medtrack.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.medtrack.kafka.dto.NotificationType;
+import com.medtrack.utils.MailSenderService;
+import com.medtrack.utils.MailSenderService.DigestItem;
+import com.medtrack.utils.NotificationEmailTemplates;
+import com.medtrack.utils.SmtpTransportPool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Emails per second sent by four consumer threads to a
+ * {@link FakeSmtpServer} whose replies take {@code roundTripMicros} and whose
+ * new connections take {@code connectMicros} more for TLS and AUTH.
+ *
+ * {@code unpooled} is {@link JavaMailSenderImpl#send} per email, a new
+ * connection each time. {@code pooled} sends through an
+ * {@link SmtpTransportPool} of {@code poolSize} connections capped at
+ * {@code maxMessagesPerConnection}. The score is for all threads; divide by
+ * four for one consumer thread.
+ *
+ * Needs nothing but the JVM. Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=com.medtrack.benchmark.SmtpTransportPoolBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SmtpTransportPoolBenchmark {
+
+    @Param("200")
+    private int roundTripMicros;
+
+    @Param({ "0", "20000" })
+    private int connectMicros;
+
+    @Param({ "1", "4" })
+    private int poolSize;
+
+    @Param("100")
+    private int maxMessagesPerConnection;
+
+    private FakeSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool pool;
+    private MailSenderService mailSenderService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new FakeSmtpServer(roundTripMicros, connectMicros);
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.port());
+        pool = new SmtpTransportPool(mailSender, new SimpleMeterRegistry(), true, poolSize,
+                maxMessagesPerConnection, 10_000, 2_000, 30_000);
+        mailSenderService = new MailSenderService(mailSender, null, pool, new NotificationEmailTemplates());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Benchmark
+    public void unpooled() throws MessagingException {
+        mailSender.send(email());
+    }
+
+    @Benchmark
+    public void pooled() throws MessagingException {
+        pool.send(email());
+    }
+
+    private MimeMessage email() throws MessagingException {
+        return mailSenderService.createDigest("user@example.com", NotificationType.MEDICINE_EXPIRY_WARNING,
+                List.of(new DigestItem("Paracetamol", "3 days")));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SmtpTransportPoolBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
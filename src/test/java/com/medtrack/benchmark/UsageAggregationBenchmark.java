@@ -0,0 +1,209 @@
+package com.medtrack.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Usage statistics of one user with a year of history, computed the old way
+ * (every log row of the range is fetched with its product and counted in
+ * Java) and with the GROUP BY queries of the repositories.
+ *
+ * Seeds temporary copies of {@code health_product} and
+ * {@code medicine_usage_log} in a Postgres database given by
+ * {@code -Dbench.url}, {@code -Dbench.user} and {@code -Dbench.password}.
+ * Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=com.medtrack.benchmark.UsageAggregationBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsageAggregationBenchmark {
+
+    private static final long USER_ID = 1;
+
+    @Param({ "7", "365" })
+    private int days;
+
+    @Param("10")
+    private int products;
+
+    private Connection connection;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/medtrack"),
+                System.getProperty("bench.user", "postgres"),
+                System.getProperty("bench.password", "postgres"));
+        today = LocalDate.now();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TEMP TABLE health_product (
+                        id bigint PRIMARY KEY, user_id bigint NOT NULL, name varchar(255),
+                        available_quantity real, dose_quantity real, unit varchar(50),
+                        reminder_minutes smallint[] NOT NULL)""");
+            statement.execute("""
+                    CREATE TEMP TABLE medicine_usage_log (
+                        id bigserial PRIMARY KEY, user_id bigint NOT NULL, health_product_id bigint NOT NULL,
+                        is_taken boolean, created_at timestamp NOT NULL)""");
+
+            // 1000 users with the given number of products, three doses a day each
+            statement.execute("""
+                    INSERT INTO health_product
+                    SELECT p, (p - 1) / %d + 1, 'Medicine ' || p, 100, 1, 'tablet', '{480,840,1260}'
+                    FROM generate_series(1, 1000 * %d) p""".formatted(products, products));
+            // a year of logs for every product, about one in ten doses missed
+            statement.execute("""
+                    INSERT INTO medicine_usage_log (user_id, health_product_id, is_taken, created_at)
+                    SELECT hp.user_id, hp.id, random() > 0.1,
+                           current_date - d + make_interval(mins => m)
+                    FROM health_product hp, generate_series(0, 364) d, unnest(hp.reminder_minutes) m""");
+            statement.execute("""
+                    CREATE INDEX ON medicine_usage_log (user_id, created_at)""");
+            statement.execute("ANALYZE health_product");
+            statement.execute("ANALYZE medicine_usage_log");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Range summary before: fetch every log with its product, group by id
+     */
+    @Benchmark
+    public Map<Long, long[]> rangeEntityRows() throws SQLException {
+        Map<Long, long[]> counts = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT l.id, l.user_id, l.is_taken, l.created_at, hp.id, hp.user_id, hp.name,
+                       hp.available_quantity, hp.dose_quantity, hp.unit, hp.reminder_minutes
+                FROM medicine_usage_log l JOIN health_product hp ON hp.id = l.health_product_id
+                WHERE l.user_id = ? AND l.created_at > ?""")) {
+            statement.setLong(1, USER_ID);
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().minusDays(days)));
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    rows.getArray(11).getArray();
+                    long[] count = counts.computeIfAbsent(rows.getLong(5), id -> new long[2]);
+                    count[rows.getBoolean(3) ? 0 : 1]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Range summary after: one row per product from GROUP BY
+     */
+    @Benchmark
+    public List<long[]> rangeGroupBy() throws SQLException {
+        List<long[]> counts = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT hp.id, hp.name, count(*) FILTER (WHERE l.is_taken), count(*) FILTER (WHERE l.is_taken IS NOT TRUE)
+                FROM medicine_usage_log l JOIN health_product hp ON hp.id = l.health_product_id
+                WHERE l.user_id = ? AND l.created_at > ?
+                GROUP BY hp.id""")) {
+            statement.setLong(1, USER_ID);
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().minusDays(days)));
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    rows.getString(2);
+                    counts.add(new long[] { rows.getLong(1), rows.getLong(3), rows.getLong(4) });
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Today before: today's logs with their products, grouped in Java
+     */
+    @Benchmark
+    public Map<String, Integer> oneDayEntityRows() throws SQLException {
+        Map<String, Integer> taken = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT l.id, l.is_taken, hp.id, hp.name, hp.reminder_minutes
+                FROM medicine_usage_log l JOIN health_product hp ON hp.id = l.health_product_id
+                WHERE l.user_id = ? AND l.created_at BETWEEN ? AND ?""")) {
+            statement.setLong(1, USER_ID);
+            statement.setTimestamp(2, Timestamp.valueOf(today.atStartOfDay()));
+            statement.setTimestamp(3, Timestamp.valueOf(today.plusDays(1).atStartOfDay().minusNanos(1)));
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    rows.getArray(5).getArray();
+                    taken.merge(rows.getString(4), 1, Integer::sum);
+                }
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Today after: every product with its taken count in one query
+     */
+    @Benchmark
+    public List<long[]> oneDayGroupBy() throws SQLException {
+        List<long[]> counts = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT hp.id, hp.name, hp.reminder_minutes, count(l.id) FILTER (WHERE l.is_taken)
+                FROM health_product hp LEFT JOIN medicine_usage_log l ON l.health_product_id = hp.id
+                    AND l.created_at >= ? AND l.created_at < ?
+                WHERE hp.user_id = ?
+                GROUP BY hp.id""")) {
+            statement.setTimestamp(1, Timestamp.valueOf(today.atStartOfDay()));
+            statement.setTimestamp(2, Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+            statement.setLong(3, USER_ID);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    rows.getString(2);
+                    int scheduled = ((Short[]) rows.getArray(3).getArray()).length;
+                    counts.add(new long[] { rows.getLong(1), rows.getLong(4), scheduled });
+                }
+            }
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UsageAggregationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.medtrack.kafka.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.medtrack.kafka.dto.NotificationMessage;
+import com.medtrack.kafka.dto.NotificationType;
+import com.medtrack.utils.MailSenderService;
+
+/**
+ * Reminder slots are Asia/Kolkata times; on a host running in UTC a due
+ * reminder is still sent right away and a future one still waits.
+ */
+class NotificationConsumerServiceTimeZoneTests {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private TimeZone hostZone;
+    private MailSenderService mailSenderService;
+    private DelayedNotificationService delayedNotificationService;
+    private NotificationConsumerService consumer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void runInUtc() {
+        hostZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+
+        mailSenderService = mock(MailSenderService.class);
+        delayedNotificationService = mock(DelayedNotificationService.class);
+        consumer = new NotificationConsumerService(mailSenderService, mock(KafkaTemplate.class),
+                delayedNotificationService, mock(NotificationRetryService.class));
+        ReflectionTestUtils.setField(consumer, "dedupeSize", 100);
+        consumer.init();
+    }
+
+    @AfterEach
+    void restoreZone() {
+        TimeZone.setDefault(hostZone);
+    }
+
+    @Test
+    void dueReminderIsSentAtOnce() {
+        NotificationMessage message = reminder(LocalDateTime.now(KOLKATA_ZONE).minusMinutes(1));
+
+        consumer.processNotification(message, "medicine-notification", 0, 0L, mock(Acknowledgment.class));
+
+        verify(delayedNotificationService, never()).schedule(any());
+        verify(mailSenderService).sendNotification(eq(message.getHealthProductId()),
+                eq(NotificationType.MEDICINE_TAKEN_REMINDER), any());
+    }
+
+    @Test
+    void futureReminderWaitsInTheDueQueue() {
+        NotificationMessage message = reminder(LocalDateTime.now(KOLKATA_ZONE).plusMinutes(10));
+
+        consumer.processNotification(message, "medicine-notification", 0, 0L, mock(Acknowledgment.class));
+
+        verify(delayedNotificationService).schedule(message);
+        verify(mailSenderService, never()).sendNotification(any(), any(), any());
+    }
+
+    private static NotificationMessage reminder(LocalDateTime slot) {
+        return NotificationMessage.builder()
+                .messageId(UUID.randomUUID().toString())
+                .correlationId("reminder-1-" + slot)
+                .type(NotificationType.MEDICINE_TAKEN_REMINDER)
+                .healthProductId(1L)
+                .userId(1L)
+                .productName("Paracetamol 500mg")
+                .userEmail("tz@medtrack.test")
+                .scheduledAt(slot)
+                .createdAt(LocalDateTime.now(KOLKATA_ZONE))
+                .retryCount(0)
+                .build();
+    }
+}
@@ -0,0 +1,230 @@
+package com.medtrack.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.medtrack.model.HealthProduct;
+import com.medtrack.model.User;
+import com.medtrack.repository.DoseEventRepo;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.MedicineUsageLogRepo;
+import com.medtrack.repository.UsageLogBatchRepo;
+import com.medtrack.repository.UsageLogBatchRepo.LogRow;
+import com.medtrack.repository.UsageLogPartitionRepo;
+import com.medtrack.repository.UserRepo;
+
+/**
+ * Checks that the usage log is partitioned and that the statements the
+ * repositories actually run are pruned to the partitions of their time range.
+ * Native and JDBC statements are explained from the constants the
+ * repositories use; JPQL is explained as Hibernate rendered it.
+ */
+@SpringBootTest
+class UsageLogPartitionPlanTests {
+
+    private static final ZoneId KOLKATA_ZONE = ZoneId.of("Asia/Kolkata");
+
+    @TestConfiguration
+    static class SqlCapture {
+
+        static final List<String> CAPTURED = new CopyOnWriteArrayList<>();
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspector() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                    (StatementInspector) sql -> {
+                        CAPTURED.add(sql);
+                        return sql;
+                    });
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private UsageLogPartitionManager partitionManager;
+
+    @Autowired
+    private UsageLogPartitionRepo partitionRepo;
+
+    @Autowired
+    private MedicineUsageLogRepo usageLogRepo;
+
+    @Autowired
+    private UsageLogBatchRepo usageLogBatchRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private HealthProductRepo healthProductRepo;
+
+    private YearMonth current;
+
+    @BeforeEach
+    void createHistory() {
+        current = YearMonth.now(KOLKATA_ZONE);
+        partitionManager.ensurePartitions(current.minusMonths(6), current);
+    }
+
+    @Test
+    void tableIsPartitionedWithUserIndex() {
+        assertTrue(partitionRepo.isPartitioned());
+        assertTrue(partitionRepo.partitions().contains(UsageLogPartitionRepo.partitionName(current.plusMonths(1))));
+
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = ?", String.class,
+                UsageLogPartitionRepo.partitionName(current));
+        assertTrue(indexes.stream().anyMatch(name -> name.contains("user_id_created_at")), indexes.toString());
+    }
+
+    @Test
+    void statsAreCountedFromRecentPartitions() {
+        String plan = explain(UserRepo.FIND_STATS, new MapSqlParameterSource()
+                .addValue("userId", 1L)
+                .addValue("today", current.atDay(2))
+                .addValue("since", instant(current.atDay(2))));
+
+        assertScans(plan, current);
+        assertSkipsAllBut(plan, current);
+    }
+
+    @Test
+    void hourTotalsArePrunedToTheirRange() {
+        YearMonth month = current.minusMonths(3);
+        String plan = explain(MedicineUsageLogRepo.FIND_HOUR_TOTALS, new MapSqlParameterSource()
+                .addValue("userId", 1L)
+                .addValue("from", instant(month.atDay(2)))
+                .addValue("until", instant(month.atDay(9)))
+                .addValue("hostZone", TimeZone.getDefault().getID()));
+
+        assertScans(plan, month);
+        assertSkipsAllBut(plan, month);
+    }
+
+    @Test
+    void productUsageIsPrunedToOneMonth() {
+        YearMonth month = current.minusMonths(3);
+        Timestamp start = instant(month.atDay(2));
+        Timestamp end = instant(month.atDay(3));
+        SqlCapture.CAPTURED.clear();
+        usageLogRepo.findProductUsage(1L, start, end);
+
+        String sql = SqlCapture.CAPTURED.stream().filter(statement -> statement.contains("medicine_usage_log"))
+                .reduce((first, second) -> second).orElseThrow();
+        // the window is bound in the join, ahead of the user in the WHERE clause
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, start, end, 1L));
+
+        assertScans(plan, month);
+        assertSkipsAllBut(plan, month);
+    }
+
+    @Test
+    void dosesReadNoLogPartition() {
+        LocalDate day = current.atDay(2);
+        String record = explain(DoseEventRepo.RECORD, new MapSqlParameterSource()
+                .addValue("logId", 1L)
+                .addValue("userId", 1L)
+                .addValue("healthProductId", 1L)
+                .addValue("taken", true)
+                .addValue("createdAt", instant(day))
+                .addValue("day", day)
+                .addValue("monthStart", current.atDay(1))
+                .addValue("dayOfMonth", 2)
+                .addValue("minute", 0)
+                .addValue("hour", 0));
+        String markSlot = explain(UsageLogBatchRepo.MARK_SLOT, new MapSqlParameterSource()
+                .addValue("healthProductId", 1L)
+                .addValue("userId", 1L)
+                .addValue("monthStart", current.atDay(1))
+                .addValue("day", 2)
+                .addValue("minute", 9 * 60)
+                .addValue("hour", 9)
+                .addValue("taken", true));
+
+        for (String plan : List.of(record, markSlot)) {
+            for (YearMonth month = current.minusMonths(6); !month.isAfter(current); month = month.plusMonths(1)) {
+                assertFalse(plan.contains(UsageLogPartitionRepo.partitionName(month)), plan);
+            }
+        }
+    }
+
+    @Test
+    void logsOfMissingMonthsWaitInTheDefaultPartition() {
+        YearMonth far = current.plusYears(5);
+        String partition = UsageLogPartitionRepo.partitionName(far);
+        assertTrue(partitionRepo.partitions().contains(UsageLogPartitionRepo.DEFAULT_PARTITION));
+
+        User user = userRepo.save(User.builder().fullname("Partition Test")
+                .email("partition-" + System.nanoTime() + "@medtrack.test").password("x").build());
+        HealthProduct product = healthProductRepo.save(HealthProduct.builder().name("Atorvastatin 10mg")
+                .totalQuantity(30f).availableQuantity(30f).thresholdQuantity(3f).doseQuantity(1f).unit("tablets")
+                .expiryDate(LocalDate.now().plusYears(1)).user(user).build());
+        try {
+            usageLogBatchRepo.insertLogs(List.of(new LogRow(usageLogBatchRepo.reserveIds(1)[0], user.getId(),
+                    product.getId(), true, instant(far.atDay(2)))));
+            assertEquals(1, countLogs(UsageLogPartitionRepo.DEFAULT_PARTITION, product.getId()));
+
+            partitionManager.ensurePartitions(far, far);
+
+            assertEquals(1, countLogs(partition, product.getId()));
+            assertEquals(0, countLogs(UsageLogPartitionRepo.DEFAULT_PARTITION, product.getId()));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+            jdbcTemplate.update("DELETE FROM medicine_usage_log WHERE health_product_id = ?", product.getId());
+            healthProductRepo.delete(product);
+            userRepo.delete(user);
+        }
+    }
+
+    private int countLogs(String table, long healthProductId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE health_product_id = ?",
+                Integer.class, healthProductId);
+    }
+
+    private static Timestamp instant(LocalDate kolkataDate) {
+        return Timestamp.from(kolkataDate.atStartOfDay(KOLKATA_ZONE).toInstant());
+    }
+
+    private void assertSkipsAllBut(String plan, YearMonth month) {
+        for (YearMonth other = current.minusMonths(6); !other.isAfter(current); other = other.plusMonths(1)) {
+            if (!other.equals(month)) {
+                assertFalse(plan.contains(UsageLogPartitionRepo.partitionName(other)), plan);
+            }
+        }
+    }
+
+    private String explain(String sql, MapSqlParameterSource parameters) {
+        return String.join("\n", namedParameterJdbcTemplate.queryForList("EXPLAIN " + sql, parameters, String.class));
+    }
+
+    private static void assertScans(String plan, YearMonth month) {
+        assertTrue(plan.contains(UsageLogPartitionRepo.partitionName(month)), plan);
+    }
+}
@@ -0,0 +1,77 @@
+package com.medtrack.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.medtrack.model.HealthProduct;
+import com.medtrack.model.MedicineReminder;
+import com.medtrack.model.User;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.MedicineReminderRepo;
+import com.medtrack.repository.UserRepo;
+
+/**
+ * A product created before the reminder migration still has legacy
+ * {@code medicine_reminder} rows, and deleting it removes them with it.
+ */
+@SpringBootTest
+class HealthProductServiceDeleteTests {
+
+    @Autowired
+    private HealthProductService healthProductService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private HealthProductRepo healthProductRepo;
+
+    @Autowired
+    private MedicineReminderRepo medicineReminderRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private HealthProduct product;
+
+    @BeforeEach
+    void createLegacyProduct() {
+        user = userRepo.save(User.builder().fullname("Delete Test")
+                .email("delete-" + System.nanoTime() + "@medtrack.test").password("x").build());
+        product = healthProductRepo.save(HealthProduct.builder().name("Metformin 500mg").totalQuantity(60f)
+                .availableQuantity(60f).thresholdQuantity(6f).doseQuantity(1f).unit("tablets")
+                .expiryDate(LocalDate.now().plusYears(1)).user(user).build());
+
+        MedicineReminder reminder = new MedicineReminder();
+        reminder.setHealthProduct(product);
+        reminder.setTime(LocalTime.of(8, 0));
+        medicineReminderRepo.save(reminder);
+    }
+
+    @AfterEach
+    void deleteUser() {
+        jdbcTemplate.update("DELETE FROM medicine_reminder WHERE health_product_id = ?", product.getId());
+        healthProductRepo.findById(product.getId()).ifPresent(healthProductRepo::delete);
+        userRepo.deleteById(user.getId());
+    }
+
+    @Test
+    void deletingAProductRemovesItsLegacyReminders() {
+        healthProductService.deleteHealthProduct(product.getId());
+
+        assertFalse(healthProductRepo.existsById(product.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM medicine_reminder WHERE health_product_id = ?", Integer.class, product.getId()));
+    }
+}
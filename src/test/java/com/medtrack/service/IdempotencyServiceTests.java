@@ -0,0 +1,118 @@
+package com.medtrack.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+
+import com.medtrack.exceptions.AuthException;
+import com.medtrack.idempotency.IdempotencyService;
+
+/**
+ * A key runs its write once: repeats replay the stored response, a
+ * concurrent repeat waits for the first and replays it, a rolled back write
+ * leaves the key free, and a repeat with another body is rejected.
+ */
+@SpringBootTest
+class IdempotencyServiceTests {
+
+    private static final String REPLAYED = IdempotencyService.HEADER + "-Replayed";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @Test
+    void repeatReplaysTheFirstResponse() {
+        String key = UUID.randomUUID().toString();
+
+        ResponseEntity<String> first = execute(key, Map.of("dose", 1), () -> ResponseEntity.ok("written"));
+        ResponseEntity<String> repeat = execute(key, Map.of("dose", 1), () -> ResponseEntity.ok("again"));
+
+        assertEquals(1, writes.get());
+        assertNull(first.getHeaders().getFirst(REPLAYED));
+        assertEquals("written", repeat.getBody());
+        assertEquals("true", repeat.getHeaders().getFirst(REPLAYED));
+    }
+
+    @Test
+    void repeatWithAnotherBodyIsRejected() {
+        String key = UUID.randomUUID().toString();
+        execute(key, Map.of("dose", 1), () -> ResponseEntity.ok("written"));
+
+        assertThrows(AuthException.class,
+                () -> execute(key, Map.of("dose", 2), () -> ResponseEntity.ok("other")));
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    void rolledBackWriteFreesTheKey() {
+        String key = UUID.randomUUID().toString();
+
+        assertThrows(IllegalStateException.class, () -> execute(key, Map.of("dose", 1), () -> {
+            throw new IllegalStateException("write failed");
+        }));
+        ResponseEntity<String> retry = execute(key, Map.of("dose", 1), () -> ResponseEntity.ok("written"));
+
+        assertEquals(2, writes.get());
+        assertEquals("written", retry.getBody());
+        assertNull(retry.getHeaders().getFirst(REPLAYED));
+    }
+
+    @Test
+    void concurrentClaimWaitsAndReplays() throws Exception {
+        String key = UUID.randomUUID().toString();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<String>> first = CompletableFuture.supplyAsync(
+                () -> execute(key, Map.of("dose", 1), () -> {
+                    writing.countDown();
+                    await(release);
+                    return ResponseEntity.ok("written");
+                }));
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        // blocks on the first claim's uncommitted row
+        CompletableFuture<ResponseEntity<String>> second = CompletableFuture.supplyAsync(
+                () -> execute(key, Map.of("dose", 1), () -> ResponseEntity.ok("again")));
+        Thread.sleep(200);
+        release.countDown();
+
+        ResponseEntity<String> replayed = second.get(10, TimeUnit.SECONDS);
+        assertEquals("written", first.get(10, TimeUnit.SECONDS).getBody());
+        assertEquals("written", replayed.getBody());
+        assertEquals("true", replayed.getHeaders().getFirst(REPLAYED));
+        assertEquals(1, writes.get());
+    }
+
+    private ResponseEntity<String> execute(String key, Object request,
+            Supplier<ResponseEntity<String>> write) {
+        return idempotencyService.execute("idempotency-test", key, request, String.class, () -> {
+            writes.incrementAndGet();
+            return write.get();
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.medtrack.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.medtrack.dto.MedicineUsageLogDto;
+import com.medtrack.model.HealthProduct;
+import com.medtrack.model.User;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.UserRepo;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Counts the JDBC statements of logging a dose: one SELECT that validates user
+ * and ownership, the log INSERT, the rollup upsert and the dose slot upsert,
+ * without loading the user or product entities.
+ *
+ * Statements are counted where they are prepared on the DataSource, so
+ * Hibernate and JdbcTemplate statements are counted alike.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "medtrack.usage-log.ingest.mode=direct" })
+class MedicineUsageLogServiceStatementTests {
+
+    @Autowired
+    private MedicineUsageLogService medicineUsageLogService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private HealthProductRepo healthProductRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AtomicInteger preparedStatements;
+
+    @TestConfiguration
+    static class StatementCounting {
+
+        @Bean
+        AtomicInteger preparedStatements() {
+            return new AtomicInteger();
+        }
+
+        @Bean
+        static BeanPostProcessor countingDataSource(AtomicInteger preparedStatements) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return counting(super.getConnection(), preparedStatements);
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection counting(Connection connection, AtomicInteger preparedStatements) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement") || method.getName().equals("prepareCall")
+                                || method.getName().equals("createStatement")) {
+                            preparedStatements.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    private User user;
+    private User otherUser;
+    private HealthProduct product;
+
+    @BeforeEach
+    void createProduct() {
+        user = userRepo.save(User.builder().fullname("Statement Test")
+                .email("statements-" + System.nanoTime() + "@medtrack.test").password("x").build());
+        otherUser = userRepo.save(User.builder().fullname("Other User")
+                .email("statements-other-" + System.nanoTime() + "@medtrack.test").password("x").build());
+        product = healthProductRepo.save(HealthProduct.builder().name("Paracetamol 500mg").totalQuantity(100f)
+                .availableQuantity(100f).thresholdQuantity(10f).doseQuantity(1f).unit("tablets")
+                .expiryDate(LocalDate.now().plusYears(1)).user(user).build());
+    }
+
+    @AfterEach
+    void deleteProduct() {
+        jdbcTemplate.update("DELETE FROM medicine_usage_log WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM usage_daily_rollup WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM dose_slot_month WHERE user_id = ?", user.getId());
+        healthProductRepo.deleteById(product.getId());
+        userRepo.deleteById(user.getId());
+        userRepo.deleteById(otherUser.getId());
+    }
+
+    @Test
+    void logIsOneSelectOneInsertAndTwoUpserts() {
+        // the first log may also allocate a block of ids from the sequence
+        medicineUsageLogService.add(log(user.getId(), true));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        preparedStatements.set(0);
+
+        medicineUsageLogService.add(log(user.getId(), true));
+
+        assertEquals(0, statistics.getEntityLoadCount(), "no entity may be loaded");
+        assertEquals(1, statistics.getEntityInsertCount());
+        // validation SELECT, log INSERT, rollup upsert, dose slot upsert
+        assertEquals(4, preparedStatements.get());
+    }
+
+    @Test
+    void productOfAnotherUserIsRejected() {
+        assertThrows(EntityNotFoundException.class,
+                () -> medicineUsageLogService.add(log(otherUser.getId(), true)));
+    }
+
+    private MedicineUsageLogDto log(Long userId, boolean taken) {
+        return new MedicineUsageLogDto(userId, product.getId(), taken);
+    }
+}
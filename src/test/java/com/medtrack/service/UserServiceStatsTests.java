@@ -0,0 +1,122 @@
+package com.medtrack.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.medtrack.dto.MedicineUsageLogDto;
+import com.medtrack.dto.UserStatsDto;
+import com.medtrack.model.HealthProduct;
+import com.medtrack.model.User;
+import com.medtrack.repository.HealthProductRepo;
+import com.medtrack.repository.UserRepo;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * The dashboard stats are one statement without entity loads, count the same
+ * as the product and log rows they summarize, and are cached until a write.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "medtrack.usage-log.ingest.mode=direct" })
+class UserServiceStatsTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MedicineUsageLogService medicineUsageLogService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private HealthProductRepo healthProductRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private HealthProduct active;
+    private HealthProduct expired;
+
+    @BeforeEach
+    void createProducts() {
+        user = userRepo.save(User.builder().fullname("Stats Test")
+                .email("stats-" + System.nanoTime() + "@medtrack.test").password("x").build());
+        active = healthProductRepo.save(HealthProduct.builder().name("Paracetamol 500mg").totalQuantity(100f)
+                .availableQuantity(5f).thresholdQuantity(10f).doseQuantity(1f).unit("tablets")
+                .expiryDate(LocalDate.now().plusYears(1)).user(user).build());
+        expired = healthProductRepo.save(HealthProduct.builder().name("Cough Syrup").totalQuantity(100f)
+                .availableQuantity(50f).thresholdQuantity(10f).doseQuantity(5f).unit("ml")
+                .expiryDate(LocalDate.now().minusDays(30)).user(user).build());
+    }
+
+    @AfterEach
+    void deleteProducts() {
+        jdbcTemplate.update("DELETE FROM medicine_usage_log WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM usage_daily_rollup WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM dose_slot_month WHERE user_id = ?", user.getId());
+        healthProductRepo.deleteById(active.getId());
+        healthProductRepo.deleteById(expired.getId());
+        userRepo.deleteById(user.getId());
+    }
+
+    @Test
+    void statsAreOneStatement() {
+        medicineUsageLogService.add(new MedicineUsageLogDto(user.getId(), active.getId(), true));
+        medicineUsageLogService.add(new MedicineUsageLogDto(user.getId(), active.getId(), true));
+        medicineUsageLogService.add(new MedicineUsageLogDto(user.getId(), active.getId(), false));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        UserStatsDto stats = userService.getUserStats(user.getId());
+
+        assertEquals(0, statistics.getEntityLoadCount(), "no entity may be loaded");
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        assertEquals(2, stats.totalMedicines());
+        assertEquals(1, stats.activeMedicines());
+        assertEquals(1, stats.expiredMedicines());
+        assertEquals(1, stats.lowStockMedicines());
+        assertEquals(2L, stats.totalDosesTaken());
+        assertEquals(1L, stats.totalDosesMissed());
+        assertEquals(66.67, stats.adherenceRate());
+    }
+
+    @Test
+    void repeatedStatsAreServedFromCacheUntilALogIsWritten() {
+        userService.getUserStats(user.getId());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        userService.getUserStats(user.getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        medicineUsageLogService.add(new MedicineUsageLogDto(user.getId(), active.getId(), true));
+        statistics.clear();
+        assertEquals(1L, userService.getUserStats(user.getId()).totalDosesTaken());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void unknownUserIsRejected() {
+        assertThrows(EntityNotFoundException.class, () -> userService.getUserStats(-1L));
+    }
+}